@@ -0,0 +1,186 @@
+package org.checkerframework.benchmarks;
+
+import com.sun.source.tree.AnnotationTree;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.ImportTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TreePathScanner;
+import com.sun.tools.javac.api.BasicJavacTask;
+import com.sun.tools.javac.processing.JavacProcessingEnvironment;
+import com.sun.tools.javac.util.Context;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import org.checkerframework.common.basetype.BaseTypeChecker;
+import org.checkerframework.framework.type.GenericAnnotatedTypeFactory;
+
+/**
+ * A fixture program that has been parsed and attributed by javac, together with a checker that has
+ * been initialized on it. The benchmarks use it to exercise the framework without running a whole
+ * compilation per invocation.
+ *
+ * <p>The fixtures are Java sources in the {@code fixtures} resource directory of this project.
+ */
+final class CheckedProgram {
+
+    /** The checker, initialized for {@link #root}. */
+    final BaseTypeChecker checker;
+
+    /** The checker's type factory, with its root set to {@link #root}. */
+    final GenericAnnotatedTypeFactory<?, ?, ?, ?> factory;
+
+    /** The processing environment of the compilation. */
+    final JavacProcessingEnvironment env;
+
+    /** The compilation unit of the fixture. */
+    final CompilationUnitTree root;
+
+    /** The top-level and nested classes of the fixture, in source order. */
+    final List<ClassTree> classes = new ArrayList<>();
+
+    /** The methods of the fixture that have a body, in source order. */
+    final List<MethodTree> methods = new ArrayList<>();
+
+    /** The enclosing class of each element of {@link #methods}. */
+    final List<ClassTree> methodClasses = new ArrayList<>();
+
+    /** The expressions of the fixture outside annotations and imports, in source order. */
+    final List<ExpressionTree> expressions = new ArrayList<>();
+
+    /**
+     * Parses and attributes a fixture, then initializes a checker on it.
+     *
+     * @param fixture the file name of the fixture, relative to the {@code fixtures} resource
+     *     directory
+     * @param checkerClass the fully-qualified name of a subclass of {@link BaseTypeChecker}
+     * @param options javac options, such as {@code -A} options for the checker
+     */
+    CheckedProgram(String fixture, String checkerClass, String... options) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        List<String> javacOptions = new ArrayList<>();
+        javacOptions.add("-proc:none");
+        javacOptions.addAll(Arrays.asList(options));
+        JavacTask task =
+                (JavacTask)
+                        compiler.getTask(
+                                null,
+                                null,
+                                diagnostics,
+                                javacOptions,
+                                null,
+                                Collections.singletonList(new FixtureSource(fixture)));
+        CompilationUnitTree unit;
+        try {
+            unit = task.parse().iterator().next();
+            task.analyze();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (Diagnostic<? extends JavaFileObject> d : diagnostics.getDiagnostics()) {
+            if (d.getKind() == Diagnostic.Kind.ERROR) {
+                throw new IllegalStateException("Fixture " + fixture + " does not compile: " + d);
+            }
+        }
+        this.root = unit;
+
+        Context context = ((BasicJavacTask) task).getContext();
+        this.env = JavacProcessingEnvironment.instance(context);
+        try {
+            this.checker =
+                    Class.forName(checkerClass)
+                            .asSubclass(BaseTypeChecker.class)
+                            .getConstructor()
+                            .newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Cannot instantiate " + checkerClass, e);
+        }
+        checker.init(env);
+        checker.typeProcessingStart();
+        this.factory = checker.getTypeFactory();
+        factory.setRoot(root);
+
+        new TreePathScanner<Void, ClassTree>() {
+            @Override
+            public Void visitClass(ClassTree tree, ClassTree enclosing) {
+                classes.add(tree);
+                factory.preProcessClassTree(tree);
+                return super.visitClass(tree, tree);
+            }
+
+            @Override
+            public Void visitMethod(MethodTree tree, ClassTree enclosing) {
+                if (tree.getBody() != null) {
+                    methods.add(tree);
+                    methodClasses.add(enclosing);
+                }
+                return super.visitMethod(tree, enclosing);
+            }
+
+            @Override
+            public Void scan(Tree tree, ClassTree enclosing) {
+                // The framework computes no type for annotations and import declarations.
+                if (tree instanceof AnnotationTree || tree instanceof ImportTree) {
+                    return null;
+                }
+                if (tree instanceof ExpressionTree) {
+                    expressions.add((ExpressionTree) tree);
+                }
+                return super.scan(tree, enclosing);
+            }
+        }.scan(root, null);
+    }
+
+    /** A fixture source file, read from the resources of this project. */
+    private static final class FixtureSource extends SimpleJavaFileObject {
+        /** The contents of the fixture. */
+        private final String contents;
+
+        /**
+         * Reads a fixture.
+         *
+         * @param fixture the file name of the fixture, relative to the {@code fixtures} resource
+         *     directory
+         */
+        FixtureSource(String fixture) {
+            super(URI.create("string:///" + fixture), Kind.SOURCE);
+            try (InputStream in =
+                    CheckedProgram.class.getResourceAsStream("/fixtures/" + fixture)) {
+                if (in == null) {
+                    throw new IllegalArgumentException("No such fixture: " + fixture);
+                }
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, n);
+                }
+                this.contents = out.toString(StandardCharsets.UTF_8.name());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return contents;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package org.checkerframework.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.checkerframework.dataflow.analysis.ForwardAnalysisImpl;
+import org.checkerframework.dataflow.analysis.TransferInput;
+import org.checkerframework.dataflow.cfg.ControlFlowGraph;
+import org.checkerframework.dataflow.cfg.UnderlyingAST;
+import org.checkerframework.dataflow.cfg.block.Block;
+import org.checkerframework.framework.flow.CFAbstractStore;
+import org.checkerframework.framework.flow.CFAnalysis;
+import org.checkerframework.framework.flow.CFCFGBuilder;
+import org.checkerframework.framework.flow.CFStore;
+import org.checkerframework.framework.flow.CFTransfer;
+import org.checkerframework.framework.flow.CFValue;
+import org.checkerframework.framework.type.GenericAnnotatedTypeFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of control-flow graph construction ({@link CFCFGBuilder#build}), of the forward
+ * dataflow analysis ({@link ForwardAnalysisImpl#performAnalysis}), and of {@link
+ * CFAbstractStore#leastUpperBound}, on every method of a fixture.
+ */
+@State(Scope.Benchmark)
+public class DataflowBenchmark {
+
+    /** The fixture to analyze. */
+    @Param({"Graph.java", "Tokenizer.java"})
+    public String fixture;
+
+    /** The checker whose transfer function and stores to use. */
+    @Param({
+        "org.checkerframework.checker.regex.RegexChecker",
+        "org.checkerframework.checker.signature.SignatureChecker"
+    })
+    public String checker;
+
+    /** The fixture, type-checked. */
+    private CheckedProgram program;
+
+    /** The type factory of the checker. */
+    private GenericAnnotatedTypeFactory<CFValue, CFStore, CFTransfer, CFAnalysis> factory;
+
+    /** The control-flow graph of each method of the fixture. */
+    private final List<ControlFlowGraph> cfgs = new ArrayList<>();
+
+    /** Pairs of stores that hold before blocks of the same method. */
+    private final List<CFStore[]> storePairs = new ArrayList<>();
+
+    /** Type-checks the fixture and builds and analyzes the control-flow graph of every method. */
+    @Setup
+    @SuppressWarnings("unchecked") // The checkers in @Param all use the default CF classes.
+    public void setup() {
+        program = new CheckedProgram(fixture, checker);
+        factory =
+                (GenericAnnotatedTypeFactory<CFValue, CFStore, CFTransfer, CFAnalysis>)
+                        program.factory;
+        cfgs.addAll(buildCfgs());
+        for (ControlFlowGraph cfg : cfgs) {
+            CFAnalysis analysis = analyze(cfg);
+            List<CFStore> stores = new ArrayList<>();
+            for (Block b : cfg.getAllBlocks()) {
+                TransferInput<CFValue, CFStore> input = analysis.getInput(b);
+                if (input != null) {
+                    stores.add(input.getRegularStore());
+                }
+            }
+            for (CFStore s1 : stores) {
+                for (CFStore s2 : stores) {
+                    storePairs.add(new CFStore[] {s1, s2});
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds the control-flow graph of every method of the fixture.
+     *
+     * @return the control-flow graphs, in source order
+     */
+    private List<ControlFlowGraph> buildCfgs() {
+        List<ControlFlowGraph> result = new ArrayList<>(program.methods.size());
+        for (int i = 0; i < program.methods.size(); i++) {
+            UnderlyingAST ast =
+                    new UnderlyingAST.CFGMethod(
+                            program.methods.get(i), program.methodClasses.get(i));
+            result.add(
+                    CFCFGBuilder.build(program.root, ast, program.checker, factory, program.env));
+        }
+        return result;
+    }
+
+    /**
+     * Runs a fresh dataflow analysis on a control-flow graph.
+     *
+     * @param cfg the control-flow graph
+     * @return the analysis, after it has run
+     */
+    private CFAnalysis analyze(ControlFlowGraph cfg) {
+        CFAnalysis analysis = new CFAnalysis(program.checker, factory, Collections.emptyList());
+        analysis.performAnalysis(cfg, Collections.emptyList());
+        return analysis;
+    }
+
+    /**
+     * Builds the control-flow graph of every method of the fixture.
+     *
+     * @return the control-flow graphs
+     */
+    @Benchmark
+    public List<ControlFlowGraph> buildCfg() {
+        return buildCfgs();
+    }
+
+    /**
+     * Runs the dataflow analysis on every method of the fixture.
+     *
+     * @param bh consumes the results
+     */
+    @Benchmark
+    public void performAnalysis(Blackhole bh) {
+        for (ControlFlowGraph cfg : cfgs) {
+            bh.consume(analyze(cfg));
+        }
+    }
+
+    /**
+     * Computes the least upper bound of every pair of stores that hold before blocks of the same
+     * method.
+     *
+     * @param bh consumes the results
+     */
+    @Benchmark
+    public void storeLeastUpperBound(Blackhole bh) {
+        for (CFStore[] pair : storePairs) {
+            bh.consume(pair[0].leastUpperBound(pair[1]));
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package org.checkerframework.benchmarks;
+
+import com.sun.source.tree.ExpressionTree;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.util.Types;
+import org.checkerframework.framework.type.AnnotatedTypeMirror;
+import org.checkerframework.framework.type.QualifierHierarchy;
+import org.checkerframework.framework.type.TypeHierarchy;
+import org.checkerframework.javacutil.AnnotationUtils;
+import org.checkerframework.javacutil.TreeUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of {@link TypeHierarchy#isSubtype} and of {@link QualifierHierarchy#leastUpperBound}
+ * and {@link QualifierHierarchy#greatestLowerBound}. Each invocation processes the pairs of types,
+ * or of distinct qualifiers, that occur in the fixture, up to a fixed number of pairs.
+ */
+@State(Scope.Benchmark)
+public class HierarchyBenchmark {
+
+    /** The maximum number of type pairs to check in one invocation. */
+    private static final int MAX_TYPE_PAIRS = 5000;
+
+    /** The maximum number of qualifier pairs to compare in one invocation. */
+    private static final int MAX_QUALIFIER_PAIRS = 5000;
+
+    /** The fixture to check. */
+    @Param({"Graph.java", "Tokenizer.java"})
+    public String fixture;
+
+    /** The checker whose hierarchies to use. */
+    @Param({
+        "org.checkerframework.checker.regex.RegexChecker",
+        "org.checkerframework.checker.signature.SignatureChecker"
+    })
+    public String checker;
+
+    /** The type hierarchy of the checker. */
+    private TypeHierarchy typeHierarchy;
+
+    /** The qualifier hierarchy of the checker. */
+    private QualifierHierarchy qualifierHierarchy;
+
+    /** Pairs of types of value expressions in the fixture whose Java types are assignable. */
+    private final List<AnnotatedTypeMirror[]> typePairs = new ArrayList<>();
+
+    /** Pairs of qualifiers in the fixture that belong to the same hierarchy. */
+    private final List<AnnotationMirror[]> qualifierPairs = new ArrayList<>();
+
+    /** Type-checks the fixture and collects the pairs to compare. */
+    @Setup
+    public void setup() {
+        CheckedProgram program = new CheckedProgram(fixture, checker);
+        typeHierarchy = program.factory.getTypeHierarchy();
+        qualifierHierarchy = program.factory.getQualifierHierarchy();
+        Types types = program.env.getTypeUtils();
+
+        List<AnnotatedTypeMirror> exprTypes = new ArrayList<>();
+        Set<AnnotationMirror> qualifiers = AnnotationUtils.createAnnotationSet();
+        for (ExpressionTree expr : program.expressions) {
+            if (isTypeName(expr)) {
+                continue;
+            }
+            AnnotatedTypeMirror type = program.factory.getAnnotatedType(expr);
+            TypeKind kind = type.getKind();
+            if (kind == TypeKind.VOID || kind == TypeKind.PACKAGE || kind == TypeKind.EXECUTABLE) {
+                continue;
+            }
+            exprTypes.add(type);
+            qualifiers.addAll(type.getEffectiveAnnotations());
+        }
+        for (AnnotatedTypeMirror sub : exprTypes) {
+            for (AnnotatedTypeMirror sup : exprTypes) {
+                if (typePairs.size() < MAX_TYPE_PAIRS
+                        && types.isAssignable(sub.getUnderlyingType(), sup.getUnderlyingType())) {
+                    typePairs.add(new AnnotatedTypeMirror[] {sub, sup});
+                }
+            }
+        }
+        for (AnnotationMirror a1 : qualifiers) {
+            for (AnnotationMirror a2 : qualifiers) {
+                if (qualifierPairs.size() < MAX_QUALIFIER_PAIRS
+                        && AnnotationUtils.areSame(
+                                qualifierHierarchy.getTopAnnotation(a1),
+                                qualifierHierarchy.getTopAnnotation(a2))) {
+                    qualifierPairs.add(new AnnotationMirror[] {a1, a2});
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns true if the expression names a type or a package rather than denoting a value, as
+     * {@code HashMap} does in {@code new HashMap<>()}. Such names have no type to compare.
+     *
+     * @param expr an expression of the fixture
+     * @return true if {@code expr} names a type or a package
+     */
+    private static boolean isTypeName(ExpressionTree expr) {
+        Element elt = TreeUtils.elementFromTree(expr);
+        if (elt == null) {
+            return false;
+        }
+        ElementKind kind = elt.getKind();
+        return kind.isClass()
+                || kind.isInterface()
+                || kind == ElementKind.TYPE_PARAMETER
+                || kind == ElementKind.PACKAGE;
+    }
+
+    /**
+     * Checks subtyping between every collected pair of types.
+     *
+     * @param bh consumes the results
+     */
+    @Benchmark
+    public void isSubtype(Blackhole bh) {
+        for (AnnotatedTypeMirror[] pair : typePairs) {
+            bh.consume(typeHierarchy.isSubtype(pair[0], pair[1]));
+        }
+    }
+
+    /**
+     * Computes the least upper bound of every collected pair of qualifiers.
+     *
+     * @param bh consumes the results
+     */
+    @Benchmark
+    public void leastUpperBound(Blackhole bh) {
+        for (AnnotationMirror[] pair : qualifierPairs) {
+            bh.consume(qualifierHierarchy.leastUpperBound(pair[0], pair[1]));
+        }
+    }
+
+    /**
+     * Computes the greatest lower bound of every collected pair of qualifiers.
+     *
+     * @param bh consumes the results
+     */
+    @Benchmark
+    public void greatestLowerBound(Blackhole bh) {
+        for (AnnotationMirror[] pair : qualifierPairs) {
+            bh.consume(qualifierHierarchy.greatestLowerBound(pair[0], pair[1]));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.checkerframework.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.checkerframework.framework.stub.StubParser;
+import org.checkerframework.framework.stub.StubTypes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of {@link StubParser}, through {@link StubTypes#parseStubFiles}: parsing the
+ * annotated JDK and the checker's stub files, as a type factory does when it is created.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class StubParserBenchmark {
+
+    /** The checker whose stub files to parse. */
+    @Param({
+        "org.checkerframework.checker.regex.RegexChecker",
+        "org.checkerframework.checker.signature.SignatureChecker"
+    })
+    public String checker;
+
+    /**
+     * Whether to parse all of the annotated JDK eagerly ({@code -AparseAllJdk}) rather than only
+     * the JDK stub files that are used.
+     */
+    @Param({"false", "true"})
+    public boolean parseAllJdk;
+
+    /** A type-checked fixture, which provides the type factory. */
+    private CheckedProgram program;
+
+    /** Type-checks a fixture. */
+    @Setup
+    public void setup() {
+        program =
+                parseAllJdk
+                        ? new CheckedProgram("Graph.java", checker, "-AparseAllJdk")
+                        : new CheckedProgram("Graph.java", checker);
+    }
+
+    /**
+     * Parses the stub files of the checker.
+     *
+     * @return the parsed stub types
+     */
+    @Benchmark
+    public StubTypes parseStubFiles() {
+        StubTypes stubTypes = new StubTypes(program.factory);
+        stubTypes.parseStubFiles();
+        return stubTypes;
+    }
+}
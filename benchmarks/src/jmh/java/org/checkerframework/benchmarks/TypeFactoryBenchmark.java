@@ -0,0 +1,60 @@
+package org.checkerframework.benchmarks;
+
+import com.sun.source.tree.ExpressionTree;
+import org.checkerframework.framework.type.AnnotatedTypeFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of {@link AnnotatedTypeFactory#getAnnotatedType(com.sun.source.tree.Tree)} on every
+ * expression of a fixture. With {@code shouldCache} true, this measures the cost of cache hits,
+ * including the defensive copies; with it false, it measures the cost of computing each type,
+ * including defaulting and flow refinement.
+ */
+@State(Scope.Benchmark)
+public class TypeFactoryBenchmark {
+
+    /** The fixture to check. */
+    @Param({"Graph.java", "Tokenizer.java"})
+    public String fixture;
+
+    /** The checker whose type factory to use. */
+    @Param({
+        "org.checkerframework.checker.regex.RegexChecker",
+        "org.checkerframework.checker.signature.SignatureChecker"
+    })
+    public String checker;
+
+    /** Whether the type factory caches types. */
+    @Param({"true", "false"})
+    public boolean shouldCache;
+
+    /** The fixture, type-checked. */
+    private CheckedProgram program;
+
+    /** Type-checks the fixture and fills the caches of the type factory. */
+    @Setup
+    public void setup() {
+        program = new CheckedProgram(fixture, checker);
+        program.factory.shouldCache = shouldCache;
+        for (ExpressionTree expr : program.expressions) {
+            program.factory.getAnnotatedType(expr);
+        }
+    }
+
+    /**
+     * Computes the annotated type of every expression in the fixture.
+     *
+     * @param bh consumes the results
+     */
+    @Benchmark
+    public void getAnnotatedType(Blackhole bh) {
+        for (ExpressionTree expr : program.expressions) {
+            bh.consume(program.factory.getAnnotatedType(expr));
+        }
+    }
+}
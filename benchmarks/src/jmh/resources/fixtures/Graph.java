@@ -0,0 +1,148 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/** A directed graph; a benchmark fixture that uses generics, collections, and loops. */
+public class Graph<N extends Comparable<N>> {
+
+    private final Map<N, Set<N>> successors = new HashMap<>();
+    private final Map<N, Set<N>> predecessors = new HashMap<>();
+    private int edgeCount;
+
+    public boolean addNode(N node) {
+        if (successors.containsKey(node)) {
+            return false;
+        }
+        successors.put(node, new LinkedHashSet<>());
+        predecessors.put(node, new LinkedHashSet<>());
+        return true;
+    }
+
+    public boolean addEdge(N from, N to) {
+        addNode(from);
+        addNode(to);
+        boolean added = successors.get(from).add(to);
+        if (added) {
+            predecessors.get(to).add(from);
+            edgeCount++;
+        }
+        return added;
+    }
+
+    public Set<N> successors(N node) {
+        Set<N> result = successors.get(node);
+        return result == null ? Collections.emptySet() : Collections.unmodifiableSet(result);
+    }
+
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    public List<N> breadthFirst(N start) {
+        List<N> order = new ArrayList<>();
+        Set<N> seen = new LinkedHashSet<>();
+        Deque<N> queue = new ArrayDeque<>();
+        queue.add(start);
+        seen.add(start);
+        while (!queue.isEmpty()) {
+            N node = queue.poll();
+            order.add(node);
+            for (N succ : successors(node)) {
+                if (seen.add(succ)) {
+                    queue.add(succ);
+                }
+            }
+        }
+        return order;
+    }
+
+    public List<N> topologicalOrder() {
+        Map<N, Integer> inDegree = new HashMap<>();
+        for (Map.Entry<N, Set<N>> e : predecessors.entrySet()) {
+            inDegree.put(e.getKey(), e.getValue().size());
+        }
+        List<N> ready = new ArrayList<>();
+        for (Map.Entry<N, Integer> e : inDegree.entrySet()) {
+            if (e.getValue() == 0) {
+                ready.add(e.getKey());
+            }
+        }
+        List<N> order = new ArrayList<>();
+        while (!ready.isEmpty()) {
+            Collections.sort(ready);
+            N node = ready.remove(0);
+            order.add(node);
+            for (N succ : successors(node)) {
+                int remaining = inDegree.get(succ) - 1;
+                inDegree.put(succ, remaining);
+                if (remaining == 0) {
+                    ready.add(succ);
+                }
+            }
+        }
+        if (order.size() != successors.size()) {
+            throw new IllegalStateException("cycle among " + (successors.size() - order.size()));
+        }
+        return order;
+    }
+
+    public Map<N, Integer> distances(N start) {
+        Map<N, Integer> dist = new HashMap<>();
+        dist.put(start, 0);
+        for (N node : breadthFirst(start)) {
+            int d = dist.get(node);
+            for (N succ : successors(node)) {
+                Integer old = dist.get(succ);
+                if (old == null || old > d + 1) {
+                    dist.put(succ, d + 1);
+                }
+            }
+        }
+        return dist;
+    }
+
+    public static Graph<String> chain(int length) {
+        Graph<String> g = new Graph<>();
+        String prev = null;
+        for (int i = 0; i < length; i++) {
+            String name = "n" + i;
+            if (prev != null) {
+                g.addEdge(prev, name);
+            } else {
+                g.addNode(name);
+            }
+            prev = name;
+        }
+        return g;
+    }
+
+    static class Edge<N> {
+        final N from;
+        final N to;
+
+        Edge(N from, N to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Edge)) {
+                return false;
+            }
+            Edge<?> other = (Edge<?>) o;
+            return from.equals(other.from) && to.equals(other.to);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * from.hashCode() + to.hashCode();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/** A tokenizer; a benchmark fixture that uses strings, regular expressions, and conditionals. */
+public class Tokenizer {
+
+    enum Kind {
+        IDENTIFIER,
+        NUMBER,
+        STRING,
+        SYMBOL
+    }
+
+    static final class Token {
+        final Kind kind;
+        final String text;
+        final int offset;
+
+        Token(Kind kind, String text, int offset) {
+            this.kind = kind;
+            this.text = text;
+            this.offset = offset;
+        }
+
+        @Override
+        public String toString() {
+            return kind + "(" + text + ")@" + offset;
+        }
+    }
+
+    private static final Pattern NUMBER = Pattern.compile("[0-9]+(\\.[0-9]+)?");
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+    private final String input;
+    private int pos;
+
+    public Tokenizer(String input) {
+        this.input = input;
+        this.pos = 0;
+    }
+
+    public List<Token> tokenize() {
+        List<Token> tokens = new ArrayList<>();
+        Token t;
+        while ((t = next()) != null) {
+            tokens.add(t);
+        }
+        return tokens;
+    }
+
+    private Token next() {
+        while (pos < input.length() && Character.isWhitespace(input.charAt(pos))) {
+            pos++;
+        }
+        if (pos >= input.length()) {
+            return null;
+        }
+        char c = input.charAt(pos);
+        int start = pos;
+        if (c == '"') {
+            StringBuilder sb = new StringBuilder();
+            pos++;
+            while (pos < input.length() && input.charAt(pos) != '"') {
+                char d = input.charAt(pos);
+                if (d == '\\' && pos + 1 < input.length()) {
+                    pos++;
+                    d = unescape(input.charAt(pos));
+                }
+                sb.append(d);
+                pos++;
+            }
+            pos++;
+            return new Token(Kind.STRING, sb.toString(), start);
+        }
+        Token t = match(NUMBER, Kind.NUMBER);
+        if (t == null) {
+            t = match(IDENTIFIER, Kind.IDENTIFIER);
+        }
+        if (t == null) {
+            pos++;
+            t = new Token(Kind.SYMBOL, String.valueOf(c), start);
+        }
+        return t;
+    }
+
+    private Token match(Pattern p, Kind kind) {
+        Matcher m = p.matcher(input);
+        m.region(pos, input.length());
+        if (!m.lookingAt()) {
+            return null;
+        }
+        Token t = new Token(kind, m.group(), pos);
+        pos = m.end();
+        return t;
+    }
+
+    private static char unescape(char c) {
+        switch (c) {
+            case 'n':
+                return '\n';
+            case 't':
+                return '\t';
+            case 'r':
+                return '\r';
+            default:
+                return c;
+        }
+    }
+
+    public static String join(List<Token> tokens, String separator) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < tokens.size(); i++) {
+            if (i > 0) {
+                sb.append(separator);
+            }
+            Token t = tokens.get(i);
+            sb.append(t.kind == Kind.STRING ? "\"" + t.text + "\"" : t.text);
+        }
+        return sb.toString();
+    }
+
+    public static String firstGroup(String regex, String text) {
+        Matcher m = Pattern.compile(regex).matcher(text);
+        return m.find() && m.groupCount() >= 1 ? m.group(1) : null;
+    }
+}
@@ -161,7 +161,8 @@ public class I18nFormatUtil {
             "", "short", "medium", "long", "full"
         };
 
-        public static I18nConversion[] parse(String pattern) {
+        // The parser keeps its state in static fields, so only one thread may parse at a time.
+        public static synchronized I18nConversion[] parse(String pattern) {
             MessageFormatParser.categories = new ArrayList<>();
             MessageFormatParser.argumentIndices = new ArrayList<>();
             MessageFormatParser.locale = Locale.getDefault(Locale.Category.FORMAT);
@@ -1,5 +1,6 @@
 package org.checkerframework.checker.index.upperbound;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -7,6 +8,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.AnnotationMirror;
 import org.checkerframework.checker.index.qual.LTEqLengthOf;
@@ -35,6 +37,20 @@ import org.checkerframework.javacutil.Pair;
  */
 public abstract class UBQualifier {
 
+    /**
+     * Maps an annotation to the qualifier that it represents. Decoding an annotation reads its
+     * element values and parses each offset, and the Upper Bound Checker decodes the same
+     * annotations for every subtype test, lub, and glb.
+     *
+     * <p>Neither javac's nor the Checker Framework's annotation mirrors override {@code equals}, so
+     * the keys are compared by identity. The keys are weak, so that the entries of a finished
+     * compilation can be collected; a qualifier does not refer to the annotation that it was
+     * decoded from. The map is synchronized because several compilations may run in one JVM.
+     * Qualifiers are immutable, so a cached qualifier can be returned to every caller.
+     */
+    private static final Map<AnnotationMirror, UBQualifier> decodedQualifiers =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
     /**
      * Create a UBQualifier from the given annotation.
      *
@@ -42,7 +58,12 @@ public abstract class UBQualifier {
      * @return a UBQualifier that represents the same information as the given annotation
      */
     public static UBQualifier createUBQualifier(AnnotationMirror am) {
-        return createUBQualifier(am, null);
+        UBQualifier qualifier = decodedQualifiers.get(am);
+        if (qualifier == null) {
+            qualifier = createUBQualifier(am, null);
+            decodedQualifiers.put(am, qualifier);
+        }
+        return qualifier;
     }
 
     /**
@@ -276,11 +297,61 @@ public abstract class UBQualifier {
         return false;
     }
 
+    /**
+     * An annotation that was built from a qualifier, and the processing environment that it was
+     * built with. Both are weakly referenced: {@link #decodedQualifiers} maps the annotation to the
+     * qualifier, and a cached qualifier must not keep a finished compilation alive.
+     */
+    private static final class BuiltAnnotation {
+        /** The processing environment that the annotation was built with. */
+        private final WeakReference<ProcessingEnvironment> env;
+
+        /** The annotation. */
+        private final WeakReference<AnnotationMirror> annotation;
+
+        /**
+         * Creates a BuiltAnnotation.
+         *
+         * @param env the processing environment that the annotation was built with
+         * @param annotation the annotation
+         */
+        BuiltAnnotation(ProcessingEnvironment env, AnnotationMirror annotation) {
+            this.env = new WeakReference<>(env);
+            this.annotation = new WeakReference<>(annotation);
+        }
+
+        /**
+         * Returns the annotation, if it was built with the given processing environment and has
+         * not been collected.
+         *
+         * @param env a processing environment
+         * @return the annotation, or null if it cannot be used with {@code env}
+         */
+        @Nullable AnnotationMirror get(ProcessingEnvironment env) {
+            if (this.env.get() != env) {
+                return null;
+            }
+            return annotation.get();
+        }
+    }
+
     /** The less-than-length-of qualifier (@LTLengthOf). */
     public static class LessThanLengthOf extends UBQualifier {
-        /** Maps from sequence name to offset. */
+        /** Maps from sequence name to offset. Neither the map nor its sets are modified. */
         private final Map<String, Set<OffsetEquation>> map;
 
+        /**
+         * The result of {@link #convertToAnnotation(ProcessingEnvironment)}, or null if it has not
+         * been built.
+         */
+        private @Nullable BuiltAnnotation annotation = null;
+
+        /**
+         * The result of {@link #convertToSubstringIndexAnnotation}, or null if it has not been
+         * built.
+         */
+        private @Nullable BuiltAnnotation substringIndexAnnotation = null;
+
         private LessThanLengthOf(Map<String, Set<OffsetEquation>> map) {
             assert !map.isEmpty();
             this.map = map;
@@ -367,7 +438,13 @@ public abstract class UBQualifier {
          * @return the AnnotationMirror that represents this qualifier
          */
         public AnnotationMirror convertToAnnotation(ProcessingEnvironment env) {
-            return convertToAnnotation(env, false);
+            AnnotationMirror result = annotation == null ? null : annotation.get(env);
+            if (result == null) {
+                result = convertToAnnotation(env, false);
+                annotation = new BuiltAnnotation(env, result);
+                decodedQualifiers.put(result, this);
+            }
+            return result;
         }
 
         /**
@@ -381,7 +458,14 @@ public abstract class UBQualifier {
          *     upper bounds as this qualifier
          */
         public AnnotationMirror convertToSubstringIndexAnnotation(ProcessingEnvironment env) {
-            return convertToAnnotation(env, true);
+            AnnotationMirror result =
+                    substringIndexAnnotation == null ? null : substringIndexAnnotation.get(env);
+            if (result == null) {
+                result = convertToAnnotation(env, true);
+                substringIndexAnnotation = new BuiltAnnotation(env, result);
+                decodedQualifiers.put(result, this);
+            }
+            return result;
         }
 
         /**
@@ -678,6 +762,7 @@ public abstract class UBQualifier {
                 if (glb == null) {
                     glb = otherglb;
                 } else if (otherglb != null) {
+                    glb = new HashSet<>(glb);
                     glb.addAll(otherglb);
                 }
                 glbMap.put(sequence, simplifyOffsets(glb));
@@ -482,17 +482,17 @@ public class LockAnnotatedTypeFactory
         static SideEffectAnnotation weakest = null;
 
         public static SideEffectAnnotation weakest() {
-            if (weakest == null) {
+            SideEffectAnnotation result = weakest;
+            if (result == null) {
+                // Compute the result locally, so that no other thread sees a partial result.
                 for (SideEffectAnnotation sea : SideEffectAnnotation.values()) {
-                    if (weakest == null) {
-                        weakest = sea;
-                    }
-                    if (sea.isWeakerThan(weakest)) {
-                        weakest = sea;
+                    if (result == null || sea.isWeakerThan(result)) {
+                        result = sea;
                     }
                 }
+                weakest = result;
             }
-            return weakest;
+            return result;
         }
     }
 
@@ -212,6 +212,19 @@ public class LockStore extends CFAbstractStore<CFValue, LockStore> {
         }
     }
 
+    /**
+     * Returns true if a lock is known to be held at the point that this store represents. The
+     * value of the lock expression is found by a hash lookup, and the lock is held if the value is
+     * annotated with {@code @LockHeld}.
+     *
+     * @param lock a lock expression
+     * @return true if {@code lock} is held
+     */
+    public boolean isLockHeld(Receiver lock) {
+        CFValue value = getValue(lock);
+        return value != null && hasLockHeld(value);
+    }
+
     boolean hasLockHeld(CFValue value) {
         return AnnotationUtils.containsSame(value.getAnnotations(), atypeFactory.LOCKHELD);
     }
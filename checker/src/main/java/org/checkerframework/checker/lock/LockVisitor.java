@@ -4,6 +4,8 @@ import com.sun.source.tree.AnnotatedTypeTree;
 import com.sun.source.tree.AnnotationTree;
 import com.sun.source.tree.ArrayAccessTree;
 import com.sun.source.tree.BinaryTree;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
 import com.sun.source.tree.CompoundAssignmentTree;
 import com.sun.source.tree.ExpressionTree;
 import com.sun.source.tree.IdentifierTree;
@@ -15,10 +17,15 @@ import com.sun.source.tree.Tree;
 import com.sun.source.tree.Tree.Kind;
 import com.sun.source.tree.VariableTree;
 import com.sun.source.util.TreePath;
+import com.sun.source.util.TreeScanner;
 import java.lang.annotation.Annotation;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.locks.Lock;
 import java.util.regex.Matcher;
@@ -40,7 +47,7 @@ import org.checkerframework.checker.lock.qual.GuardedBy;
 import org.checkerframework.checker.lock.qual.GuardedByBottom;
 import org.checkerframework.checker.lock.qual.GuardedByUnknown;
 import org.checkerframework.checker.lock.qual.Holding;
-import org.checkerframework.checker.lock.qual.LockHeld;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.common.basetype.BaseTypeChecker;
 import org.checkerframework.common.basetype.BaseTypeVisitor;
 import org.checkerframework.dataflow.analysis.FlowExpressions;
@@ -48,12 +55,10 @@ import org.checkerframework.dataflow.analysis.FlowExpressions.Receiver;
 import org.checkerframework.dataflow.analysis.FlowExpressions.Unknown;
 import org.checkerframework.dataflow.qual.Deterministic;
 import org.checkerframework.dataflow.qual.Pure;
-import org.checkerframework.framework.flow.CFAbstractValue;
 import org.checkerframework.framework.type.AnnotatedTypeFactory.ParameterizedExecutableType;
 import org.checkerframework.framework.type.AnnotatedTypeMirror;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedDeclaredType;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedExecutableType;
-import org.checkerframework.framework.type.QualifierHierarchy;
 import org.checkerframework.framework.util.AnnotatedTypes;
 import org.checkerframework.framework.util.FlowExpressionParseUtil;
 import org.checkerframework.framework.util.FlowExpressionParseUtil.FlowExpressionContext;
@@ -77,10 +82,35 @@ public class LockVisitor extends BaseTypeVisitor<LockAnnotatedTypeFactory> {
 
     protected static final Pattern SELF_RECEIVER_PATTERN = Pattern.compile("^<self>(\\.(.*))?$");
 
+    /** Matches the identifiers in a lock expression string. */
+    private static final Pattern IDENTIFIER_PATTERN =
+            Pattern.compile("\\p{javaJavaIdentifierStart}\\p{javaJavaIdentifierPart}*");
+
+    /**
+     * The parsed lock expressions of each method of the current compilation unit, indexed by their
+     * strings. Only lock expressions whose meaning is the same everywhere in the method are
+     * cached; see {@link #isCacheable}.
+     */
+    private final Map<MethodTree, Map<String, LockExpression>> lockExpressionCache =
+            new IdentityHashMap<>();
+
+    /**
+     * The names of the variables and classes that are declared in the body of each method of the
+     * current compilation unit.
+     */
+    private final Map<MethodTree, Set<String>> localNames = new IdentityHashMap<>();
+
     public LockVisitor(BaseTypeChecker checker) {
         super(checker);
     }
 
+    @Override
+    public void setRoot(CompilationUnitTree root) {
+        lockExpressionCache.clear();
+        localNames.clear();
+        super.setRoot(root);
+    }
+
     @Override
     public Void visitVariable(VariableTree node, Void p) { // visit a variable declaration
         // A user may not annotate a primitive type, a boxed primitive type or a String
@@ -1205,18 +1235,7 @@ public class LockVisitor extends BaseTypeVisitor<LockAnnotatedTypeFactory> {
     }
 
     private boolean isLockHeld(Receiver lock, LockStore store) {
-        if (store == null) {
-            return false;
-        }
-        CFAbstractValue<?> value = store.getValue(lock);
-        if (value == null) {
-            return false;
-        }
-        Set<AnnotationMirror> annos = value.getAnnotations();
-        QualifierHierarchy hierarchy = atypeFactory.getQualifierHierarchy();
-        AnnotationMirror lockAnno =
-                hierarchy.findAnnotationInSameHierarchy(annos, atypeFactory.LOCKHELD);
-        return lockAnno != null && atypeFactory.areSameByClass(lockAnno, LockHeld.class);
+        return store != null && store.isLockHeld(lock);
     }
 
     private List<LockExpression> getLockExpressions(
@@ -1230,30 +1249,129 @@ public class LockVisitor extends BaseTypeVisitor<LockAnnotatedTypeFactory> {
         }
 
         TreePath currentPath = getCurrentPath();
-        List<Receiver> params =
-                FlowExpressions.getParametersOfEnclosingMethod(atypeFactory, currentPath);
-
-        TypeMirror enclosingType = TreeUtils.typeOf(TreeUtils.enclosingClass(currentPath));
-        Receiver pseudoReceiver =
-                FlowExpressions.internalReprOfPseudoReceiver(currentPath, enclosingType);
-        FlowExpressionContext exprContext =
-                new FlowExpressionContext(pseudoReceiver, params, atypeFactory.getContext());
-        Receiver self;
-        if (implicitThis) {
-            self = pseudoReceiver;
-        } else if (TreeUtils.isExpressionTree(tree)) {
-            self = FlowExpressions.internalReprOf(atypeFactory, (ExpressionTree) tree);
-        } else {
-            self = new Unknown(TreeUtils.typeOf(tree));
+        MethodTree enclosingMethod = enclosingMethodOfCode(currentPath);
+        Map<String, LockExpression> cache = null;
+        if (enclosingMethod != null) {
+            cache = lockExpressionCache.get(enclosingMethod);
+            if (cache == null) {
+                cache = new HashMap<>();
+                lockExpressionCache.put(enclosingMethod, cache);
+            }
         }
 
-        List<LockExpression> lockExpressions = new ArrayList<>();
+        FlowExpressionContext exprContext = null;
+        Receiver self = null;
+        List<LockExpression> lockExpressions = new ArrayList<>(expressions.size());
         for (String expression : expressions) {
-            lockExpressions.add(parseExpressionString(expression, exprContext, currentPath, self));
+            LockExpression lockExpression = cache == null ? null : cache.get(expression);
+            if (lockExpression == null) {
+                if (exprContext == null) {
+                    List<Receiver> params =
+                            FlowExpressions.getParametersOfEnclosingMethod(
+                                    atypeFactory, currentPath);
+
+                    TypeMirror enclosingType =
+                            TreeUtils.typeOf(TreeUtils.enclosingClass(currentPath));
+                    Receiver pseudoReceiver =
+                            FlowExpressions.internalReprOfPseudoReceiver(
+                                    currentPath, enclosingType);
+                    exprContext =
+                            new FlowExpressionContext(
+                                    pseudoReceiver, params, atypeFactory.getContext());
+                    if (implicitThis) {
+                        self = pseudoReceiver;
+                    } else if (TreeUtils.isExpressionTree(tree)) {
+                        self = FlowExpressions.internalReprOf(atypeFactory, (ExpressionTree) tree);
+                    } else {
+                        self = new Unknown(TreeUtils.typeOf(tree));
+                    }
+                }
+                lockExpression = parseExpressionString(expression, exprContext, currentPath, self);
+                if (cache != null && isCacheable(expression, enclosingMethod)) {
+                    cache.put(expression, lockExpression);
+                }
+            }
+            lockExpressions.add(lockExpression);
         }
         return lockExpressions;
     }
 
+    /**
+     * Returns the innermost method that contains the code at a path, if that method is nested in
+     * the innermost class that contains the code. The lock expressions of the code are parsed in
+     * the context of that method and class.
+     *
+     * @param path a path to code
+     * @return the innermost method that contains the code, or null if the code is not in a method
+     *     or is in a class that is declared in the method
+     */
+    private @Nullable MethodTree enclosingMethodOfCode(TreePath path) {
+        for (TreePath p = path; p != null; p = p.getParentPath()) {
+            Tree leaf = p.getLeaf();
+            if (leaf.getKind() == Kind.METHOD) {
+                return (MethodTree) leaf;
+            } else if (TreeUtils.isClassTree(leaf)) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns true if a lock expression has the same meaning everywhere in a method, so that the
+     * result of parsing it can be reused. This is true unless the expression refers to the
+     * receiver of a guarded expression, which differs between expressions, or it contains a name
+     * that is declared in the body of the method, which may refer to a local variable or class at
+     * some places in the method and to a field or another class elsewhere.
+     *
+     * @param expression a lock expression string
+     * @param method the method that contains the code where the expression is parsed
+     * @return true if the parsed lock expression can be reused in {@code method}
+     */
+    private boolean isCacheable(String expression, MethodTree method) {
+        if (SELF_RECEIVER_PATTERN.matcher(expression).matches()) {
+            return false;
+        }
+        Set<String> names = getLocalNames(method);
+        Matcher identifiers = IDENTIFIER_PATTERN.matcher(expression);
+        while (identifiers.find()) {
+            if (names.contains(identifiers.group())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the names of the variables and classes that are declared in the body of a method,
+     * including those of lambda expressions and classes in the body.
+     *
+     * @param method a method
+     * @return the names declared in the body of {@code method}
+     */
+    private Set<String> getLocalNames(MethodTree method) {
+        Set<String> names = localNames.get(method);
+        if (names == null) {
+            Set<String> declared = new HashSet<>();
+            new TreeScanner<Void, Void>() {
+                @Override
+                public Void visitVariable(VariableTree node, Void p) {
+                    declared.add(node.getName().toString());
+                    return super.visitVariable(node, p);
+                }
+
+                @Override
+                public Void visitClass(ClassTree node, Void p) {
+                    declared.add(node.getSimpleName().toString());
+                    return super.visitClass(node, p);
+                }
+            }.scan(method.getBody(), null);
+            names = declared;
+            localNames.put(method, names);
+        }
+        return names;
+    }
+
     private LockExpression parseExpressionString(
             String expression,
             FlowExpressionContext flowExprContext,
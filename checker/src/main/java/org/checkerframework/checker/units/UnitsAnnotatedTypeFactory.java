@@ -8,6 +8,7 @@ import java.lang.annotation.Annotation;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Name;
 import javax.tools.Diagnostic.Kind;
@@ -67,9 +68,9 @@ public class UnitsAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
     private Map<String, UnitsRelations> unitsRel;
 
     private static final Map<String, Class<? extends Annotation>> externalQualsMap =
-            new HashMap<>();
+            new ConcurrentHashMap<>();
 
-    private static final Map<String, AnnotationMirror> aliasMap = new HashMap<>();
+    private static final Map<String, AnnotationMirror> aliasMap = new ConcurrentHashMap<>();
 
     public UnitsAnnotatedTypeFactory(BaseTypeChecker checker) {
         // use true to enable flow inference, false to disable it
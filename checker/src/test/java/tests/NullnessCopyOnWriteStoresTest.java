@@ -0,0 +1,34 @@
+package tests;
+
+import java.io.File;
+import java.util.List;
+import org.checkerframework.checker.nullness.NullnessChecker;
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+
+/** JUnit tests for the Nullness checker when dataflow stores use copy-on-write maps. */
+public class NullnessCopyOnWriteStoresTest extends CheckerFrameworkPerDirectoryTest {
+
+    /**
+     * Create a NullnessCopyOnWriteStoresTest.
+     *
+     * @param testFiles the files containing test code, which will be type-checked
+     */
+    public NullnessCopyOnWriteStoresTest(List<File> testFiles) {
+        super(
+                testFiles,
+                org.checkerframework.checker.nullness.NullnessChecker.class,
+                "nullness",
+                "-AcopyOnWriteStores",
+                "-AcheckPurityAnnotations",
+                "-Anomsgtext",
+                "-Xlint:deprecation",
+                "-Alint=soundArrayCreationNullness,"
+                        + NullnessChecker.LINT_REDUNDANTNULLCOMPARISON);
+    }
+
+    @Parameters
+    public static String[] getTestDirs() {
+        return new String[] {"nullness", "initialization/fbc", "all-systems"};
+    }
+}
@@ -0,0 +1,44 @@
+// Tests that refining a variable does not change the qualifier of its declared type. The Upper
+// Bound Checker caches the qualifier of each annotation, so a greatest lower bound that added the
+// offsets of the refinement to the declared qualifier would make the accesses after the if
+// statements appear safe.
+
+import org.checkerframework.checker.index.qual.LTLengthOf;
+import org.checkerframework.checker.index.qual.NonNegative;
+
+public class GlbCachedQualifier {
+
+    int[] a = new int[10];
+
+    int[] b = new int[10];
+
+    void refineWithOffset(@NonNegative int x, @NonNegative @LTLengthOf("a") int i) {
+        if (i + x < a.length) {
+            int y = a[i + x];
+        }
+        // :: error: (array.access.unsafe.high)
+        int z = a[i + x];
+    }
+
+    void refineWithOtherSequence(@NonNegative int x, @NonNegative @LTLengthOf("a") int i) {
+        if (i + x < b.length) {
+            int y = b[i + x];
+        }
+        int z = a[i];
+        // :: error: (array.access.unsafe.high)
+        int w = b[i + x];
+    }
+
+    void refineTwice(@NonNegative int x, @NonNegative @LTLengthOf("a") int i) {
+        if (i + x < a.length) {
+            int y = a[i + x];
+        }
+        if (i + 1 < a.length) {
+            int y = a[i + 1];
+        }
+        // :: error: (array.access.unsafe.high)
+        int z = a[i + x];
+        // :: error: (array.access.unsafe.high)
+        int w = a[i + 1];
+    }
+}
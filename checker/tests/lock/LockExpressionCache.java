@@ -0,0 +1,149 @@
+// Tests that the lock expressions that the Lock Checker reuses within a method have the same
+// meaning at every use: the expressions that name a local variable or class, and the <self>
+// expressions, are parsed anew at each use.
+
+import org.checkerframework.checker.lock.qual.*;
+
+public class LockExpressionCache {
+
+    final Object lock = new Object();
+
+    @GuardedBy("lock") Object guarded = new Object();
+
+    @GuardedBy("Holder.lock") Object guardedByHolder = new Object();
+
+    final @GuardedBy("<self>") Object self1 = new Object();
+
+    final @GuardedBy("<self>") Object self2 = new Object();
+
+    static class Holder {
+        static final Object lock = new Object();
+    }
+
+    void localVariableShadowsField() {
+        synchronized (lock) {
+            guarded.toString();
+        }
+        // :: error: (lock.not.held)
+        guarded.toString();
+        Object lock = new Object();
+        synchronized (lock) {
+            // :: error: (lock.not.held)
+            guarded.toString();
+        }
+        synchronized (this.lock) {
+            guarded.toString();
+        }
+    }
+
+    void localGuardedByShadowsField() {
+        @GuardedBy("lock") Object before = guarded;
+        synchronized (this.lock) {
+            before.toString();
+        }
+        final Object lock = new Object();
+        @GuardedBy("lock") Object after = new Object();
+        synchronized (this.lock) {
+            before.toString();
+            // :: error: (lock.not.held)
+            after.toString();
+        }
+        synchronized (lock) {
+            // :: error: (lock.not.held)
+            before.toString();
+            after.toString();
+        }
+    }
+
+    void localVariableInBlock() {
+        {
+            final Object lock = new Object();
+            @GuardedBy("lock") Object local = new Object();
+            synchronized (lock) {
+                local.toString();
+            }
+        }
+        @GuardedBy("lock") Object field = guarded;
+        synchronized (this.lock) {
+            field.toString();
+        }
+        synchronized (lock) {
+            field.toString();
+        }
+    }
+
+    void localClassShadowsClass() {
+        synchronized (Holder.lock) {
+            guardedByHolder.toString();
+        }
+        class Holder {
+            final Object lock = new Object();
+        }
+        synchronized (LockExpressionCache.Holder.lock) {
+            // :: error: (expression.unparsable.type.invalid)
+            guardedByHolder.toString();
+        }
+        // :: error: (expression.unparsable.type.invalid)
+        guardedByHolder.toString();
+    }
+
+    void localGuardedByLocalClass() {
+        @GuardedBy("Holder.lock") Object before = new Object();
+        synchronized (Holder.lock) {
+            before.toString();
+        }
+        class Holder {
+            final Object lock = new Object();
+        }
+        // :: error: (expression.unparsable.type.invalid)
+        @GuardedBy("Holder.lock") Object after = new Object();
+        synchronized (LockExpressionCache.Holder.lock) {
+            // :: error: (expression.unparsable.type.invalid)
+            before.toString();
+            // :: error: (expression.unparsable.type.invalid)
+            after.toString();
+        }
+    }
+
+    void self() {
+        synchronized (self1) {
+            self1.toString();
+            // :: error: (lock.not.held)
+            self2.toString();
+        }
+        synchronized (self2) {
+            // :: error: (lock.not.held)
+            self1.toString();
+            self2.toString();
+        }
+    }
+
+    void anonymousAndLocalClass() {
+        synchronized (lock) {
+            guarded.toString();
+            new Object() {
+                final Object lock = new Object();
+
+                void m() {
+                    // :: error: (lock.not.held)
+                    guarded.toString();
+                    synchronized (lock) {
+                        guarded.toString();
+                    }
+                }
+            };
+            class Local {
+                void m() {
+                    guarded.toString();
+                    synchronized (LockExpressionCache.this.lock) {
+                        guarded.toString();
+                    }
+                }
+            }
+            // :: error: (lock.not.held)
+            Runnable r = () -> guarded.toString();
+        }
+        // :: error: (lock.not.held)
+        guarded.toString();
+    }
+}
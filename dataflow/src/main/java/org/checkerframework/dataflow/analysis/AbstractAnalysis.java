@@ -3,13 +3,15 @@ package org.checkerframework.dataflow.analysis;
 import com.sun.source.tree.ClassTree;
 import com.sun.source.tree.MethodTree;
 import com.sun.source.tree.Tree;
-import java.util.Comparator;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.StringJoiner;
 import javax.lang.model.element.Element;
 import org.checkerframework.checker.nullness.qual.EnsuresNonNull;
 import org.checkerframework.checker.nullness.qual.EnsuresNonNullIf;
@@ -412,47 +414,46 @@ public abstract class AbstractAnalysis<
      * @param b the block to add to {@link #worklist}
      */
     protected void addToWorklist(Block b) {
-        // TODO: use a more efficient way to check if b is already present
-        if (!worklist.contains(b)) {
-            worklist.add(b);
-        }
+        worklist.add(b);
     }
 
     /**
      * A worklist is a priority queue of blocks in which the order is given by depth-first ordering
      * to place non-loop predecessors ahead of successors.
+     *
+     * <p>The blocks in the worklist are kept in a bit set indexed by their depth-first order, so
+     * adding a block, testing whether a block is present, and removing the next block neither
+     * compare blocks nor scan the queue. The depth-first order of a block is found in an array
+     * indexed by block id, because the ids of the blocks of a CFG are nearly contiguous.
      */
     protected static class Worklist {
 
+        /**
+         * The largest ratio of the range of the block ids of a CFG to its number of blocks for
+         * which {@link #orderById} is built. Above it, {@link #depthFirstOrder} is used instead.
+         */
+        private static final int MAX_ID_SPREAD = 4;
+
         /** Map all blocks in the CFG to their depth-first order. */
         protected final IdentityHashMap<Block, Integer> depthFirstOrder;
 
-        /**
-         * Comparators to allow priority queue to order blocks by their depth-first order, using by
-         * forward analysis.
-         */
-        public class ForwardDFOComparator implements Comparator<Block> {
-            @SuppressWarnings("unboxing.of.nullable")
-            @Override
-            public int compare(Block b1, Block b2) {
-                return depthFirstOrder.get(b1) - depthFirstOrder.get(b2);
-            }
-        }
+        /** The direction of the analysis, which determines the order in which blocks are polled. */
+        private final Direction direction;
+
+        /** The blocks of the CFG, indexed by their depth-first order. */
+        private Block[] blocksByOrder;
+
+        /** The smallest id of a block of the CFG. */
+        private long minId;
 
         /**
-         * Comparators to allow priority queue to order blocks by their depth-first order, using by
-         * backward analysis.
+         * The depth-first order of each block of the CFG, indexed by its id minus {@link #minId},
+         * or -1 for ids of blocks that have no order yet. Null if the ids are too far apart.
          */
-        public class BackwardDFOComparator implements Comparator<Block> {
-            @SuppressWarnings("unboxing.of.nullable")
-            @Override
-            public int compare(Block b1, Block b2) {
-                return depthFirstOrder.get(b2) - depthFirstOrder.get(b1);
-            }
-        }
+        private int @Nullable [] orderById;
 
-        /** The backing priority queue. */
-        protected final PriorityQueue<Block> queue;
+        /** The depth-first order of each block in the worklist. */
+        private final BitSet queuedOrders;
 
         /**
          * Create a Worklist.
@@ -462,13 +463,12 @@ public abstract class AbstractAnalysis<
         public Worklist(Direction direction) {
             depthFirstOrder = new IdentityHashMap<>();
 
-            if (direction == Direction.FORWARD) {
-                queue = new PriorityQueue<>(11, new ForwardDFOComparator());
-            } else if (direction == Direction.BACKWARD) {
-                queue = new PriorityQueue<>(11, new BackwardDFOComparator());
-            } else {
+            if (direction != Direction.FORWARD && direction != Direction.BACKWARD) {
                 throw new BugInCF("Unexpected Direction meet: " + direction.name());
             }
+            this.direction = direction;
+            blocksByOrder = new Block[0];
+            queuedOrders = new BitSet();
         }
 
         /**
@@ -478,58 +478,128 @@ public abstract class AbstractAnalysis<
          */
         public void process(ControlFlowGraph cfg) {
             depthFirstOrder.clear();
-            int count = 1;
-            for (Block b : cfg.getDepthFirstOrderedBlocks()) {
-                depthFirstOrder.put(b, count++);
+            List<Block> blocks = cfg.getDepthFirstOrderedBlocks();
+            blocksByOrder = blocks.toArray(new Block[blocks.size()]);
+            long maxId = Long.MIN_VALUE;
+            minId = Long.MAX_VALUE;
+            for (int i = 0; i < blocksByOrder.length; i++) {
+                depthFirstOrder.put(blocksByOrder[i], i);
+                maxId = Math.max(maxId, blocksByOrder[i].getId());
+                minId = Math.min(minId, blocksByOrder[i].getId());
             }
 
-            queue.clear();
+            orderById = null;
+            if (blocksByOrder.length > 0
+                    && maxId - minId < (long) MAX_ID_SPREAD * blocksByOrder.length) {
+                orderById = new int[(int) (maxId - minId + 1)];
+                Arrays.fill(orderById, -1);
+                for (int i = 0; i < blocksByOrder.length; i++) {
+                    orderById[(int) (blocksByOrder[i].getId() - minId)] = i;
+                }
+            }
+
+            queuedOrders.clear();
         }
 
         /**
-         * See {@link PriorityQueue#isEmpty}.
+         * Returns the depth-first order of the given block, or -1 if it has none.
          *
-         * @see PriorityQueue#isEmpty
-         * @return true if {@link #queue} is empty else false
+         * @param block a block
+         * @return the depth-first order of {@code block}, or -1 if it has none
+         */
+        private int knownOrderOf(Block block) {
+            if (orderById != null) {
+                long index = block.getId() - minId;
+                if (index >= 0 && index < orderById.length) {
+                    // Block ids are unique, so no other block has this index.
+                    return orderById[(int) index];
+                }
+            }
+            // A block that was not in the CFG when it was processed.
+            Integer order = depthFirstOrder.get(block);
+            return order == null ? -1 : order;
+        }
+
+        /**
+         * Returns the depth-first order of the given block. A block that is not reachable in the
+         * depth-first traversal of the CFG is ordered after all other blocks.
+         *
+         * @param block a block
+         * @return the depth-first order of {@code block}
+         */
+        protected int orderOf(Block block) {
+            int order = knownOrderOf(block);
+            if (order >= 0) {
+                return order;
+            }
+            int newOrder = blocksByOrder.length;
+            blocksByOrder = Arrays.copyOf(blocksByOrder, newOrder + 1);
+            blocksByOrder[newOrder] = block;
+            depthFirstOrder.put(block, newOrder);
+            long index = block.getId() - minId;
+            if (orderById != null && index >= 0 && index < orderById.length) {
+                orderById[(int) index] = newOrder;
+            }
+            return newOrder;
+        }
+
+        /**
+         * Returns true if the worklist is empty.
+         *
+         * @return true if the worklist is empty else false
          */
         @EnsuresNonNullIf(result = false, expression = "poll()")
         @SuppressWarnings("nullness:contracts.conditional.postcondition.not.satisfied") // forwarded
         public boolean isEmpty() {
-            return queue.isEmpty();
+            return queuedOrders.isEmpty();
         }
 
         /**
-         * Check if {@link #queue} contains the block which is passed as the argument.
+         * Check if the worklist contains the block which is passed as the argument.
          *
          * @param block the given block to check
-         * @return true if {@link #queue} contains the given block
+         * @return true if the worklist contains the given block
          */
         public boolean contains(Block block) {
-            return queue.contains(block);
+            int order = knownOrderOf(block);
+            return order >= 0 && queuedOrders.get(order);
         }
 
         /**
-         * Add the given block to {@link #queue}.
+         * Add the given block to the worklist. Adding a block that is already present has no
+         * effect.
          *
-         * @param block the block to add to {@link #queue}
+         * @param block the block to add to the worklist
          */
         public void add(Block block) {
-            queue.add(block);
+            queuedOrders.set(orderOf(block));
         }
 
         /**
-         * See {@link PriorityQueue#poll}.
+         * Remove and return the block in the worklist that comes first in depth-first order (for a
+         * forward analysis) or last in depth-first order (for a backward analysis).
          *
-         * @see PriorityQueue#poll
-         * @return the head of {@link #queue}
+         * @return the head of the worklist, or null if it is empty
          */
         public @Nullable Block poll() {
-            return queue.poll();
+            int order =
+                    direction == Direction.FORWARD
+                            ? queuedOrders.nextSetBit(0)
+                            : queuedOrders.previousSetBit(queuedOrders.length() - 1);
+            if (order < 0) {
+                return null;
+            }
+            queuedOrders.clear(order);
+            return blocksByOrder[order];
         }
 
         @Override
         public String toString() {
-            return "Worklist(" + queue + ")";
+            StringJoiner result = new StringJoiner(", ", "Worklist([", "])");
+            for (int i = queuedOrders.nextSetBit(0); i >= 0; i = queuedOrders.nextSetBit(i + 1)) {
+                result.add(blocksByOrder[i].toString());
+            }
+            return result.toString();
         }
     }
 }
@@ -74,6 +74,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
@@ -549,7 +550,8 @@ public class CFGBuilder {
      * internally generated unique names.
      */
     protected static class Label {
-        private static int uid = 0;
+        /** The number of the next generated label name. */
+        private static final AtomicLong uid = new AtomicLong();
 
         protected final String name;
 
@@ -572,7 +574,7 @@ public class CFGBuilder {
          * @return a new unique label name
          */
         private static String uniqueName() {
-            return "%L" + uid++;
+            return "%L" + uid.getAndIncrement();
         }
     }
 
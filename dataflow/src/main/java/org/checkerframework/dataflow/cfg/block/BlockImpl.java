@@ -3,6 +3,7 @@ package org.checkerframework.dataflow.cfg.block;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 /** Base class of the {@link Block} implementation hierarchy. */
 public abstract class BlockImpl implements Block {
@@ -10,8 +11,8 @@ public abstract class BlockImpl implements Block {
     /** A unique ID for this node. */
     protected final long id = BlockImpl.uniqueID();
 
-    /** The last ID that has already been used. */
-    protected static long lastId = 0;
+    /** The next ID to be used. Shared by the threads that build control flow graphs. */
+    protected static final AtomicLong lastId = new AtomicLong();
 
     /** The type of this basic block. */
     protected final BlockType type;
@@ -25,7 +26,7 @@ public abstract class BlockImpl implements Block {
      * @return a fresh identifier
      */
     private static long uniqueID() {
-        return lastId++;
+        return lastId.getAndIncrement();
     }
 
     protected BlockImpl(BlockType type) {
@@ -1,7 +1,11 @@
 package org.checkerframework.dataflow.util;
 
 import com.sun.source.tree.MethodTree;
+import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
 import org.checkerframework.dataflow.qual.Deterministic;
@@ -22,6 +26,20 @@ import org.checkerframework.javacutil.TreeUtils;
  */
 public class PurityUtils {
 
+    /**
+     * The purity kinds of methods, indexed by the annotation provider that determined them and
+     * then by method element. The dataflow analysis asks for the purity of the invoked method at
+     * every method invocation, and looking up three declaration annotations (and their aliases)
+     * each time is wasteful. The purity kinds depend on the provider, because a provider may read
+     * stub files or treat other annotations as aliases of the purity annotations.
+     *
+     * <p>The keys are weak, so that the entries of a provider are collected together with the
+     * provider. The map is synchronized because several compilations may run in one JVM; each
+     * per-provider map is used by the thread that uses the provider.
+     */
+    private static final Map<AnnotationProvider, Map<Element, EnumSet<Pure.Kind>>> purityKinds =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
     /**
      * Does the method {@code methodTree} have any purity annotation?
      *
@@ -67,8 +85,7 @@ public class PurityUtils {
      * @return whether the method is deterministic
      */
     public static boolean isDeterministic(AnnotationProvider provider, Element methodElement) {
-        EnumSet<Pure.Kind> kinds = getPurityKinds(provider, methodElement);
-        return kinds.contains(Kind.DETERMINISTIC);
+        return getCachedPurityKinds(provider, methodElement).contains(Kind.DETERMINISTIC);
     }
 
     /**
@@ -94,8 +111,7 @@ public class PurityUtils {
      * @return whether the method is side-effect-free
      */
     public static boolean isSideEffectFree(AnnotationProvider provider, Element methodElement) {
-        EnumSet<Pure.Kind> kinds = getPurityKinds(provider, methodElement);
-        return kinds.contains(Kind.SIDE_EFFECT_FREE);
+        return getCachedPurityKinds(provider, methodElement).contains(Kind.SIDE_EFFECT_FREE);
     }
 
     /**
@@ -124,6 +140,40 @@ public class PurityUtils {
     // TODO: should the return type be an EnumSet?
     public static EnumSet<Pure.Kind> getPurityKinds(
             AnnotationProvider provider, Element methodElement) {
+        return EnumSet.copyOf(getCachedPurityKinds(provider, methodElement));
+    }
+
+    /**
+     * Returns the types of purity of the method {@code methodElement}, computing them only the
+     * first time they are requested from {@code provider}.
+     *
+     * @param provider how to get annotations
+     * @param methodElement a method to test
+     * @return the types of purity of the method {@code methodElement}; the result must not be
+     *     modified
+     */
+    private static EnumSet<Pure.Kind> getCachedPurityKinds(
+            AnnotationProvider provider, Element methodElement) {
+        Map<Element, EnumSet<Pure.Kind>> cache =
+                purityKinds.computeIfAbsent(provider, p -> new HashMap<>());
+        EnumSet<Pure.Kind> result = cache.get(methodElement);
+        if (result == null) {
+            result = computePurityKinds(provider, methodElement);
+            cache.put(methodElement, result);
+        }
+        return result;
+    }
+
+    /**
+     * Computes the types of purity of the method {@code methodElement} from its declaration
+     * annotations.
+     *
+     * @param provider how to get annotations
+     * @param methodElement a method to test
+     * @return the types of purity of the method {@code methodElement}
+     */
+    private static EnumSet<Pure.Kind> computePurityKinds(
+            AnnotationProvider provider, Element methodElement) {
         AnnotationMirror pureAnnotation = provider.getDeclAnnotation(methodElement, Pure.class);
         AnnotationMirror sefAnnotation =
                 provider.getDeclAnnotation(methodElement, SideEffectFree.class);
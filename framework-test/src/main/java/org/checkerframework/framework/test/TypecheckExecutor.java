@@ -1,10 +1,15 @@
 package org.checkerframework.framework.test;
 
+import com.sun.source.util.JavacTask;
 import java.io.File;
+import java.io.IOException;
 import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import javax.annotation.processing.Processor;
 import javax.tools.DiagnosticCollector;
+import javax.tools.DiagnosticListener;
 import javax.tools.JavaCompiler;
 import javax.tools.JavaFileObject;
 import javax.tools.StandardJavaFileManager;
@@ -105,6 +110,68 @@ public class TypecheckExecutor {
                 diagnostics.getDiagnostics());
     }
 
+    /**
+     * An action that runs a compilation task, such as {@link JavacTask#call} or {@link
+     * JavacTask#analyze}.
+     *
+     * @param <R> the result of the action
+     */
+    public interface TaskAction<R> {
+        /**
+         * Runs a compilation task.
+         *
+         * @param task the compilation task
+         * @return the result of the action
+         * @throws IOException if the action fails to read or write a file
+         */
+        R run(JavacTask task) throws IOException;
+    }
+
+    /**
+     * Compiles source files in this JVM with the given processor instance, rather than with a
+     * processor named by {@code -processor}, so that a test can inspect the state of the processor
+     * (typically a checker) after the compilation. The class path of the compilation is the class
+     * path of this JVM.
+     *
+     * @param <R> the result of the action
+     * @param processor the processor to run
+     * @param diagnostics collects the diagnostics of the compilation; if null, they are printed
+     * @param options the options of the compilation, other than the class path
+     * @param sourceFiles the source files to compile
+     * @param action runs the compilation task
+     * @return the result of {@code action}
+     * @throws IOException if {@code action} fails to read or write a file
+     */
+    public static <R> R compileInProcess(
+            Processor processor,
+            DiagnosticListener<? super JavaFileObject> diagnostics,
+            List<String> options,
+            List<File> sourceFiles,
+            TaskAction<R> action)
+            throws IOException {
+        List<String> allOptions = new ArrayList<>();
+        allOptions.add("-classpath");
+        allOptions.add(System.getProperty("java.class.path"));
+        allOptions.addAll(options);
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fileManager =
+                compiler.getStandardFileManager(null, null, null)) {
+            JavacTask task =
+                    (JavacTask)
+                            compiler.getTask(
+                                    null,
+                                    fileManager,
+                                    diagnostics,
+                                    allOptions,
+                                    null,
+                                    fileManager.getJavaFileObjects(
+                                            sourceFiles.toArray(new File[] {})));
+            task.setProcessors(Collections.singletonList(processor));
+            return action.run(task);
+        }
+    }
+
     /**
      * Reads the expected diagnostics for the given configuration and creates a TypecheckResult
      * which contains all of the missing and expected diagnostics
@@ -30,6 +30,7 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.checker.signature.qual.ClassGetName;
 import org.checkerframework.common.reflection.MethodValChecker;
 import org.checkerframework.dataflow.cfg.CFGVisualizer;
+import org.checkerframework.framework.flow.CFGCache;
 import org.checkerframework.framework.qual.SubtypeOf;
 import org.checkerframework.framework.source.SourceChecker;
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
@@ -141,6 +142,12 @@ public abstract class BaseTypeChecker extends SourceChecker implements BaseTypeC
      */
     private TreePathCacher treePathCacher = null;
 
+    /**
+     * The control-flow graphs that are shared by this checker and its subcheckers, or null if this
+     * checker has no subcheckers. Initialized in instantiateSubcheckers.
+     */
+    private @MonotonicNonNull CFGCache cfgCache = null;
+
     @Override
     protected void setRoot(CompilationUnitTree newRoot) {
         super.setRoot(newRoot);
@@ -430,6 +437,10 @@ public abstract class BaseTypeChecker extends SourceChecker implements BaseTypeC
 
             instance.setProcessingEnvironment(this.processingEnv);
             instance.treePathCacher = this.getTreePathCacher();
+            if (cfgCache == null) {
+                cfgCache = new CFGCache();
+            }
+            instance.cfgCache = cfgCache;
             // Prevent the new checker from storing non-immediate subcheckers
             instance.subcheckers = Collections.emptyList();
             immediateSubcheckers.add(instance);
@@ -463,6 +474,34 @@ public abstract class BaseTypeChecker extends SourceChecker implements BaseTypeC
         return subcheckers;
     }
 
+    /**
+     * Returns the control-flow graphs that are shared by this checker and its subcheckers.
+     *
+     * @return the shared control-flow graphs, or null if this checker has no subcheckers and is not
+     *     a subchecker, so there is nothing to share, or if the {@code -AcfgDoNotShare} option was
+     *     supplied
+     */
+    public @Nullable CFGCache getCFGCache() {
+        if (hasOption("cfgDoNotShare")) {
+            return null;
+        }
+        return cfgCache;
+    }
+
+    /**
+     * Makes this checker and its subcheckers share tree paths and control-flow graphs with other
+     * checkers that check the same compilation units, such as the other checkers of an {@link
+     * org.checkerframework.framework.source.AggregateChecker}. Must be called before this checker
+     * is initialized. The caller clears the caches when the compilation unit changes.
+     *
+     * @param treePathCacher the tree paths to share
+     * @param cfgCache the control-flow graphs to share
+     */
+    public void shareCaches(TreePathCacher treePathCacher, CFGCache cfgCache) {
+        this.treePathCacher = treePathCacher;
+        this.cfgCache = cfgCache;
+    }
+
     /** Get the shared TreePathCacher instance. */
     public TreePathCacher getTreePathCacher() {
         if (treePathCacher == null) {
@@ -494,6 +533,12 @@ public abstract class BaseTypeChecker extends SourceChecker implements BaseTypeC
         Context context = ((JavacProcessingEnvironment) processingEnv).getContext();
         Log log = Log.instance(context);
 
+        if (parentChecker == null && cfgCache != null && tree.getCompilationUnit() != currentRoot) {
+            // Not in setRoot, which is called after the subcheckers have built their graphs of
+            // the new compilation unit.
+            cfgCache.clear();
+        }
+
         int nerrorsOfAllPreviousCheckers = this.errsOnLastExit;
         for (BaseTypeChecker subchecker : getSubcheckers()) {
             subchecker.errsOnLastExit = nerrorsOfAllPreviousCheckers;
@@ -763,6 +808,51 @@ public abstract class BaseTypeChecker extends SourceChecker implements BaseTypeC
         return false;
     }
 
+    @Override
+    protected void printStats() {
+        super.printStats();
+        CFGCache sharedCFGs = getCFGCache();
+        if (sharedCFGs != null) {
+            System.out.println(sharedCFGs.statistics());
+        }
+        printDependentTypesStats();
+    }
+
+    /**
+     * Prints the statistics of the dependent types helpers of this checker and of its subcheckers,
+     * including the subcheckers of subcheckers.
+     */
+    public void printDependentTypesStats() {
+        printDependentTypesStats(this, new HashSet<>());
+    }
+
+    /**
+     * Prints the statistics of the dependent types helper of the given checker, if it has one, and
+     * then those of its subcheckers, recursively.
+     *
+     * @param checker a checker
+     * @param printed the checkers whose statistics have already been printed; a subchecker that
+     *     several checkers depend on is a single instance and is printed once
+     */
+    private static void printDependentTypesStats(
+            BaseTypeChecker checker, Set<BaseTypeChecker> printed) {
+        if (!printed.add(checker)) {
+            return;
+        }
+        GenericAnnotatedTypeFactory<?, ?, ?, ?> factory = checker.getTypeFactory();
+        if (factory != null && factory.getDependentTypesHelper() != null) {
+            System.out.println(
+                    checker.getClass().getSimpleName()
+                            + ": "
+                            + factory.getDependentTypesHelper().standardizationCacheStatistics());
+        }
+        if (checker.immediateSubcheckers != null) {
+            for (BaseTypeChecker subchecker : checker.immediateSubcheckers) {
+                printDependentTypesStats(subchecker, printed);
+            }
+        }
+    }
+
     @Override
     protected void shutdownHook() {
         super.shutdownHook();
@@ -1,5 +1,6 @@
 package org.checkerframework.common.value;
 
+import com.sun.source.tree.CompilationUnitTree;
 import com.sun.source.tree.ExpressionTree;
 import com.sun.source.tree.NewArrayTree;
 import com.sun.source.tree.Tree;
@@ -11,8 +12,10 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.WeakHashMap;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
@@ -20,6 +23,7 @@ import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.common.basetype.BaseAnnotatedTypeFactory;
 import org.checkerframework.common.basetype.BaseTypeChecker;
 import org.checkerframework.common.value.qual.ArrayLen;
@@ -61,7 +65,9 @@ import org.checkerframework.framework.util.MultiGraphQualifierHierarchy.MultiGra
 import org.checkerframework.javacutil.AnnotationBuilder;
 import org.checkerframework.javacutil.AnnotationUtils;
 import org.checkerframework.javacutil.BugInCF;
+import org.checkerframework.javacutil.CollectionUtils;
 import org.checkerframework.javacutil.ElementUtils;
+import org.checkerframework.javacutil.Pair;
 import org.checkerframework.javacutil.TreeUtils;
 import org.checkerframework.javacutil.TypesUtils;
 
@@ -104,6 +110,34 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
     /** The maximum number of values allowed in an annotation's array. */
     protected static final int MAX_VALUES = 10;
 
+    /**
+     * The values of the {@code @IntVal}, {@code @DoubleVal}, {@code @StringVal}, and {@code
+     * @ArrayLen} annotations that have been decoded, as sorted lists without duplicates, together
+     * with the class of the values. The transfer function and the qualifier hierarchy decode the
+     * same annotations over and over, and decoding looks up the element values and sorts them.
+     *
+     * <p>Neither javac's nor the Checker Framework's annotation mirrors override {@code equals},
+     * so the keys are compared by identity. The keys are weak, so that the entries of a finished
+     * compilation can be collected. The map is synchronized because several compilations may run
+     * in one JVM. The lists are unmodifiable; the methods that return them return copies, which
+     * their callers may modify.
+     */
+    private static final Map<AnnotationMirror, Pair<Class<?>, List<?>>> decodedValues =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    /** The ranges of the annotations that have been decoded by {@link #getRange}. */
+    private static final Map<AnnotationMirror, Range> decodedRanges =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * The annotations with element values that this factory has built, indexed by the name of
+     * the annotation and its element values. Analyzing a program builds annotations with the same
+     * values over and over. Reusing them avoids building them again, and lets {@link
+     * #decodedValues} and {@link #decodedRanges} find them.
+     */
+    private final Map<Pair<String, List<?>>, AnnotationMirror> builtAnnotations =
+            CollectionUtils.createLRUCache(getCacheSize());
+
     /** The top type for this hierarchy. */
     protected final AnnotationMirror UNKNOWNVAL =
             AnnotationBuilder.fromClass(elements, UnknownVal.class);
@@ -125,12 +159,15 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
     /** Helper class that holds references to special methods. */
     private final ValueMethodIdentifier methods;
 
-    @SuppressWarnings("StaticAssignmentInConstructor") // static Range.ignoreOverflow is gross
+    /** Whether ranges created by this type factory ignore overflow; see {@link Range}. */
+    private final boolean ignoreRangeOverflow;
+
     public ValueAnnotatedTypeFactory(BaseTypeChecker checker) {
         super(checker);
 
         reportEvalWarnings = checker.hasOption(ValueChecker.REPORT_EVAL_WARNS);
-        Range.ignoreOverflow = checker.hasOption(ValueChecker.IGNORE_RANGE_OVERFLOW);
+        ignoreRangeOverflow = checker.hasOption(ValueChecker.IGNORE_RANGE_OVERFLOW);
+        Range.setIgnoreOverflow(ignoreRangeOverflow);
         evaluator = new ReflectiveEvaluator(checker, this, reportEvalWarnings);
 
         addAliasedAnnotation("android.support.annotation.IntRange", IntRange.class, true);
@@ -185,6 +222,14 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
         return methods;
     }
 
+    @Override
+    public void setRoot(@Nullable CompilationUnitTree root) {
+        super.setRoot(root);
+        // Another Value Checker, with a different setting, may have run on this thread since this
+        // type factory was created.
+        Range.setIgnoreOverflow(ignoreRangeOverflow);
+    }
+
     @Override
     public AnnotationMirror canonicalAnnotation(AnnotationMirror anno) {
         if (AnnotationUtils.areSameByName(anno, MINLEN_NAME)) {
@@ -611,9 +656,55 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
             long valMax = Collections.max(values);
             return createIntRangeAnnotation(valMin, valMax);
         } else {
-            AnnotationBuilder builder = new AnnotationBuilder(processingEnv, IntVal.class);
-            builder.setValue("value", values);
-            return builder.build();
+            return buildValuesAnnotation(IntVal.class, Long.class, values);
+        }
+    }
+
+    /**
+     * Returns an annotation whose {@code value} element is the given values, building it only if
+     * this factory has not built it before.
+     *
+     * @param annoClass the class of the annotation
+     * @param valueClass the class of the values
+     * @param values the values, sorted and without duplicates
+     * @return an annotation of class {@code annoClass} with the given values
+     */
+    private AnnotationMirror buildValuesAnnotation(
+            Class<? extends Annotation> annoClass, Class<?> valueClass, List<?> values) {
+        List<?> valuesCopy = Collections.unmodifiableList(new ArrayList<>(values));
+        Pair<String, List<?>> key = Pair.of(annoClass.getCanonicalName(), valuesCopy);
+        AnnotationMirror result = getBuiltAnnotation(key);
+        if (result == null) {
+            AnnotationBuilder builder = new AnnotationBuilder(processingEnv, annoClass);
+            builder.setValue("value", valuesCopy);
+            result = builder.build();
+            decodedValues.put(result, Pair.of(valueClass, valuesCopy));
+            putBuiltAnnotation(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the annotation with the given name and element values that this factory has built.
+     *
+     * @param key the name of an annotation and its element values
+     * @return the annotation that was passed to {@link #putBuiltAnnotation} with {@code key}, or
+     *     null if there is none
+     */
+    private AnnotationMirror getBuiltAnnotation(Pair<String, List<?>> key) {
+        return shouldCache ? builtAnnotations.get(key) : null;
+    }
+
+    /**
+     * Records an annotation that this factory has built, so that it is reused instead of building
+     * another annotation with the same name and element values.
+     *
+     * @param key the name of the annotation and its element values
+     * @param anno the annotation
+     */
+    private void putBuiltAnnotation(Pair<String, List<?>> key, AnnotationMirror anno) {
+        if (shouldCache) {
+            builtAnnotations.put(key, anno);
         }
     }
 
@@ -646,9 +737,7 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
         if (values.size() > MAX_VALUES) {
             return UNKNOWNVAL;
         } else {
-            AnnotationBuilder builder = new AnnotationBuilder(processingEnv, DoubleVal.class);
-            builder.setValue("value", values);
-            return builder.build();
+            return buildValuesAnnotation(DoubleVal.class, Double.class, values);
         }
     }
 
@@ -690,9 +779,7 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
             List<Integer> lengths = ValueCheckerUtils.getLengthsForStringValues(values);
             return createArrayLenAnnotation(lengths);
         } else {
-            AnnotationBuilder builder = new AnnotationBuilder(processingEnv, StringVal.class);
-            builder.setValue("value", values);
-            return builder.build();
+            return buildValuesAnnotation(StringVal.class, String.class, values);
         }
     }
 
@@ -719,9 +806,7 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
         } else if (values.size() > MAX_VALUES) {
             return createArrayLenRangeAnnotation(Collections.min(values), Collections.max(values));
         } else {
-            AnnotationBuilder builder = new AnnotationBuilder(processingEnv, ArrayLen.class);
-            builder.setValue("value", values);
-            return builder.build();
+            return buildValuesAnnotation(ArrayLen.class, Integer.class, values);
         }
     }
 
@@ -816,10 +901,17 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
      */
     /* package-private */ AnnotationMirror createIntRangeAnnotation(long from, long to) {
         assert from <= to;
-        AnnotationBuilder builder = new AnnotationBuilder(processingEnv, IntRange.class);
-        builder.setValue("from", from);
-        builder.setValue("to", to);
-        return builder.build();
+        Pair<String, List<?>> key = Pair.of(INTRANGE_NAME, Arrays.asList(from, to));
+        AnnotationMirror result = getBuiltAnnotation(key);
+        if (result == null) {
+            AnnotationBuilder builder = new AnnotationBuilder(processingEnv, IntRange.class);
+            builder.setValue("from", from);
+            builder.setValue("to", to);
+            result = builder.build();
+            decodedRanges.put(result, Range.create(from, to));
+            putBuiltAnnotation(key, result);
+        }
+        return result;
     }
 
     /**
@@ -883,10 +975,17 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
      */
     public AnnotationMirror createArrayLenRangeAnnotation(int from, int to) {
         assert from <= to;
-        AnnotationBuilder builder = new AnnotationBuilder(processingEnv, ArrayLenRange.class);
-        builder.setValue("from", from);
-        builder.setValue("to", to);
-        return builder.build();
+        Pair<String, List<?>> key = Pair.of(ARRAYLENRANGE_NAME, Arrays.asList(from, to));
+        AnnotationMirror result = getBuiltAnnotation(key);
+        if (result == null) {
+            AnnotationBuilder builder = new AnnotationBuilder(processingEnv, ArrayLenRange.class);
+            builder.setValue("from", from);
+            builder.setValue("to", to);
+            result = builder.build();
+            decodedRanges.put(result, Range.create(from, to));
+            putBuiltAnnotation(key, result);
+        }
+        return result;
     }
 
     /**
@@ -945,6 +1044,25 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
         if (rangeAnno == null) {
             return null;
         }
+        Range range = decodedRanges.get(rangeAnno);
+        if (range == null) {
+            range = decodeRange(rangeAnno);
+            if (range != null) {
+                decodedRanges.put(rangeAnno, range);
+            }
+        }
+        return range;
+    }
+
+    /**
+     * Returns the range specified by the given annotation, without consulting {@link
+     * #decodedRanges}.
+     *
+     * @param rangeAnno an annotation
+     * @return the range specified by {@code rangeAnno}, or null if it does not specify a range
+     * @see #getRange
+     */
+    private static Range decodeRange(AnnotationMirror rangeAnno) {
         switch (AnnotationUtils.annotationName(rangeAnno)) {
             case INTRANGE_FROMPOS_NAME:
                 return Range.create(1, Integer.MAX_VALUE);
@@ -968,6 +1086,29 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
         }
     }
 
+    /**
+     * Returns the values of the {@code value} element of an annotation as a sorted list with no
+     * duplicate values, decoding the annotation only if it has not been decoded before.
+     *
+     * @param <T> the class of the values
+     * @param anno an annotation whose {@code value} element is an array of {@code valueClass}
+     * @param valueClass the class of the values
+     * @return a new, modifiable list of the values of {@code anno}
+     */
+    private static <T extends Comparable<T>> List<T> getSortedValues(
+            AnnotationMirror anno, Class<T> valueClass) {
+        Pair<Class<?>, List<?>> decoded = decodedValues.get(anno);
+        if (decoded == null || decoded.first != valueClass) {
+            List<T> list = AnnotationUtils.getElementValueArray(anno, "value", valueClass, true);
+            list = Collections.unmodifiableList(ValueCheckerUtils.removeDuplicates(list));
+            decoded = Pair.of(valueClass, list);
+            decodedValues.put(anno, decoded);
+        }
+        @SuppressWarnings("unchecked") // the values were decoded as instances of valueClass
+        List<T> values = (List<T>) decoded.second;
+        return new ArrayList<>(values);
+    }
+
     /**
      * Returns the set of possible values as a sorted list with no duplicate values. Returns the
      * empty list if no values are possible (for dead code). Returns null if any value is possible
@@ -983,9 +1124,7 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
         if (intAnno == null) {
             return null;
         }
-        List<Long> list = AnnotationUtils.getElementValueArray(intAnno, "value", Long.class, true);
-        list = ValueCheckerUtils.removeDuplicates(list);
-        return list;
+        return getSortedValues(intAnno, Long.class);
     }
 
     /**
@@ -1000,10 +1139,7 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
         if (doubleAnno == null) {
             return null;
         }
-        List<Double> list =
-                AnnotationUtils.getElementValueArray(doubleAnno, "value", Double.class, true);
-        list = ValueCheckerUtils.removeDuplicates(list);
-        return list;
+        return getSortedValues(doubleAnno, Double.class);
     }
 
     /**
@@ -1018,10 +1154,7 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
         if (arrayAnno == null) {
             return null;
         }
-        List<Integer> list =
-                AnnotationUtils.getElementValueArray(arrayAnno, "value", Integer.class, true);
-        list = ValueCheckerUtils.removeDuplicates(list);
-        return list;
+        return getSortedValues(arrayAnno, Integer.class);
     }
 
     /**
@@ -1036,8 +1169,7 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
         if (intAnno == null) {
             return new ArrayList<>();
         }
-        List<Long> intValues =
-                AnnotationUtils.getElementValueArray(intAnno, "value", Long.class, true);
+        List<Long> intValues = getSortedValues(intAnno, Long.class);
         TreeSet<Character> charValues = new TreeSet<>();
         for (Long i : intValues) {
             charValues.add((char) i.intValue());
@@ -1079,10 +1211,7 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
         if (stringAnno == null) {
             return null;
         }
-        List<String> list =
-                AnnotationUtils.getElementValueArray(stringAnno, "value", String.class, true);
-        list = ValueCheckerUtils.removeDuplicates(list);
-        return list;
+        return getSortedValues(stringAnno, String.class);
     }
 
     public boolean isIntRange(Set<AnnotationMirror> anmSet) {
@@ -54,8 +54,8 @@ public class ValueChecker extends BaseTypeChecker {
 
     @Override
     public void typeProcessingOver() {
-        // Reset ignore overflow.
-        Range.ignoreOverflow = false;
+        // Reset ignore overflow for this thread only; other threads may still be checking.
+        Range.setIgnoreOverflow(false);
         super.typeProcessingOver();
     }
 }
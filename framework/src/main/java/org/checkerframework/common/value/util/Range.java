@@ -34,14 +34,36 @@ public class Range {
      *       smaller value (and similarly for the min).
      * </ul>
      *
-     * <p>Any checker that uses this library should set this field. By default, this field is set to
-     * false (meaning overflow is taken into account), but a previous checker might have set it to
-     * true.
+     * <p>Any checker that uses this library should set this value, using {@link
+     * #setIgnoreOverflow}. By default, it is false (meaning overflow is taken into account), but a
+     * previous checker might have set it to true.
      *
-     * <p>A static field is used because passing an instance field throughout the class bloats the
-     * code.
+     * <p>A static value is used because passing an instance field throughout the class bloats the
+     * code. It is thread-local because checkers with different settings may run concurrently, each
+     * on its own thread.
      */
-    public static boolean ignoreOverflow = false;
+    private static final ThreadLocal<Boolean> ignoreOverflow =
+            ThreadLocal.withInitial(() -> false);
+
+    /**
+     * Returns true if ranges created by the current thread ignore overflow.
+     *
+     * @return true if ranges created by the current thread ignore overflow
+     * @see #setIgnoreOverflow
+     */
+    public static boolean getIgnoreOverflow() {
+        return ignoreOverflow.get();
+    }
+
+    /**
+     * Sets whether ranges created by the current thread ignore overflow. Does not affect other
+     * threads.
+     *
+     * @param ignore true if ranges created by the current thread should ignore overflow
+     */
+    public static void setIgnoreOverflow(boolean ignore) {
+        ignoreOverflow.set(ignore);
+    }
 
     /** A range containing all possible 64-bit values. */
     public static final Range LONG_EVERYTHING = create(Long.MIN_VALUE, Long.MAX_VALUE);
@@ -153,11 +175,11 @@ public class Range {
      *
      * <p>If the BigInteger range is wider than the full range of the Long class, return EVERYTHING.
      *
-     * <p>If one of the BigInteger bounds is out of Long's range and {@link #ignoreOverflow} is
+     * <p>If one of the BigInteger bounds is out of Long's range and {@link #getIgnoreOverflow} is
      * false, convert the bounds to Long type in accordance with Java twos-complement overflow
      * rules, e.g., Long.MAX_VALUE + 1 is converted to Long.MIN_VALUE.
      *
-     * <p>If one of the BigInteger bounds is out of Long's range and {@link #ignoreOverflow} is
+     * <p>If one of the BigInteger bounds is out of Long's range and {@link #getIgnoreOverflow} is
      * true, convert the bound that is outside Long's range to max/min value of a Long.
      *
      * @param bigFrom the lower bound of the BigInteger range
@@ -165,7 +187,7 @@ public class Range {
      * @return a range with Long type bounds converted from the BigInteger range
      */
     private static Range create(BigInteger bigFrom, BigInteger bigTo) {
-        if (ignoreOverflow) {
+        if (getIgnoreOverflow()) {
             bigFrom = bigFrom.max(BIG_LONG_MIN_VALUE);
             bigTo = bigTo.min(BIG_LONG_MAX_VALUE);
         } else {
@@ -288,15 +310,16 @@ public class Range {
     /**
      * Converts this range to a 32-bit integral range.
      *
-     * <p>If {@link #ignoreOverflow} is true and one of the bounds is outside the Integer range,
+     * <p>If {@link #getIgnoreOverflow} is true and one of the bounds is outside the Integer range,
      * then that bound is set to the bound of the Integer range.
      *
-     * <p>If {@link #ignoreOverflow} is false and this range is too wide, i.e., wider than the full
-     * range of the Integer class, return INT_EVERYTHING.
+     * <p>If {@link #getIgnoreOverflow} is false and this range is too wide, i.e., wider than the
+     * full range of the Integer class, return INT_EVERYTHING.
      *
-     * <p>If {@link #ignoreOverflow} is false and the bounds of this range are not representable as
-     * 32-bit integers, convert the bounds to Integer type in accordance with Java twos-complement
-     * overflow rules, e.g., Integer.MAX_VALUE + 1 is converted to Integer.MIN_VALUE.
+     * <p>If {@link #getIgnoreOverflow} is false and the bounds of this range are not representable
+     * as 32-bit integers, convert the bounds to Integer type in accordance with Java
+     * twos-complement overflow rules, e.g., Integer.MAX_VALUE + 1 is converted to
+     * Integer.MIN_VALUE.
      */
     public Range intRange() {
         if (this.isNothing()) {
@@ -305,7 +328,7 @@ public class Range {
         if (INT_EVERYTHING.contains(this)) {
             return this;
         }
-        if (ignoreOverflow) {
+        if (getIgnoreOverflow()) {
             return create(clipToRange(from, INT_EVERYTHING), clipToRange(to, INT_EVERYTHING));
         }
         if (this.isWiderThan(INT_WIDTH)) {
@@ -320,14 +343,14 @@ public class Range {
     /**
      * Converts a this range to a 16-bit short range.
      *
-     * <p>If {@link #ignoreOverflow} is true and one of the bounds is outside the Short range, then
-     * that bound is set to the bound of the Short range.
+     * <p>If {@link #getIgnoreOverflow} is true and one of the bounds is outside the Short range,
+     * then that bound is set to the bound of the Short range.
      *
-     * <p>If {@link #ignoreOverflow} is false and this range is too wide, i.e., wider than the full
-     * range of the Short class, return SHORT_EVERYTHING.
+     * <p>If {@link #getIgnoreOverflow} is false and this range is too wide, i.e., wider than the
+     * full range of the Short class, return SHORT_EVERYTHING.
      *
-     * <p>If {@link #ignoreOverflow} is false and the bounds of this range are not representable as
-     * 16-bit integers, convert the bounds to Short type in accordance with Java twos-complement
+     * <p>If {@link #getIgnoreOverflow} is false and the bounds of this range are not representable
+     * as 16-bit integers, convert the bounds to Short type in accordance with Java twos-complement
      * overflow rules, e.g., Short.MAX_VALUE + 1 is converted to Short.MIN_VALUE.
      */
     public Range shortRange() {
@@ -337,7 +360,7 @@ public class Range {
         if (SHORT_EVERYTHING.contains(this)) {
             return this;
         }
-        if (ignoreOverflow) {
+        if (getIgnoreOverflow()) {
             return create(clipToRange(from, SHORT_EVERYTHING), clipToRange(to, SHORT_EVERYTHING));
         }
         if (this.isWiderThan(SHORT_WIDTH)) {
@@ -353,15 +376,15 @@ public class Range {
     /**
      * Converts this range to a char range.
      *
-     * <p>If {@link #ignoreOverflow} is true and one of the bounds is outside the Character range,
-     * then that bound is set to the bound of the Character range.
+     * <p>If {@link #getIgnoreOverflow} is true and one of the bounds is outside the Character
+     * range, then that bound is set to the bound of the Character range.
      *
-     * <p>If {@link #ignoreOverflow} is false and this range is too wide, i.e., wider than the full
-     * range of the Character class, return CHAR_EVERYTHING.
+     * <p>If {@link #getIgnoreOverflow} is false and this range is too wide, i.e., wider than the
+     * full range of the Character class, return CHAR_EVERYTHING.
      *
-     * <p>If {@link #ignoreOverflow} is false and the bounds of this range are not representable as
-     * 8-bit integers, convert the bounds to Character type in accordance with Java overflow rules
-     * (twos-complement), e.g., Character.MAX_VALUE + 1 is converted to Character.MIN_VALUE.
+     * <p>If {@link #getIgnoreOverflow} is false and the bounds of this range are not representable
+     * as 8-bit integers, convert the bounds to Character type in accordance with Java overflow
+     * rules (twos-complement), e.g., Character.MAX_VALUE + 1 is converted to Character.MIN_VALUE.
      */
     public Range charRange() {
         if (this.isNothing()) {
@@ -370,7 +393,7 @@ public class Range {
         if (CHAR_EVERYTHING.contains(this)) {
             return this;
         }
-        if (ignoreOverflow) {
+        if (getIgnoreOverflow()) {
             return create(clipToRange(from, CHAR_EVERYTHING), clipToRange(to, CHAR_EVERYTHING));
         }
         if (this.isWiderThan(CHAR_WIDTH)) {
@@ -386,14 +409,14 @@ public class Range {
     /**
      * Converts this range to a 8-bit byte range.
      *
-     * <p>If {@link #ignoreOverflow} is true and one of the bounds is outside the Byte range, then
-     * that bound is set to the bound of the Byte range.
+     * <p>If {@link #getIgnoreOverflow} is true and one of the bounds is outside the Byte range,
+     * then that bound is set to the bound of the Byte range.
      *
-     * <p>If {@link #ignoreOverflow} is false and this range is too wide, i.e., wider than the full
-     * range of the Byte class, return BYTE_EVERYTHING.
+     * <p>If {@link #getIgnoreOverflow} is false and this range is too wide, i.e., wider than the
+     * full range of the Byte class, return BYTE_EVERYTHING.
      *
-     * <p>If {@link #ignoreOverflow} is false and the bounds of this range are not representable as
-     * 8-bit integers, convert the bounds to Byte type in accordance with Java twos-complement
+     * <p>If {@link #getIgnoreOverflow} is false and the bounds of this range are not representable
+     * as 8-bit integers, convert the bounds to Byte type in accordance with Java twos-complement
      * overflow rules, e.g., Byte.MAX_VALUE + 1 is converted to Byte.MIN_VALUE.
      */
     public Range byteRange() {
@@ -403,7 +426,7 @@ public class Range {
         if (BYTE_EVERYTHING.contains(this)) {
             return this;
         }
-        if (ignoreOverflow) {
+        if (getIgnoreOverflow()) {
             return create(clipToRange(from, BYTE_EVERYTHING), clipToRange(to, BYTE_EVERYTHING));
         }
         if (this.isWiderThan(BYTE_WIDTH)) {
@@ -415,7 +438,7 @@ public class Range {
 
     /**
      * Return x clipped to the given range; out-of-range values become extremal values. Appropriate
-     * only when {@link #ignoreOverflow} is true.
+     * only when {@link #getIgnoreOverflow} is true.
      *
      * @param x a value
      * @param r a range
@@ -1,11 +1,14 @@
 package org.checkerframework.common.wholeprograminference;
 
 import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
 import com.sun.source.tree.MethodTree;
 import com.sun.source.tree.Tree;
 import com.sun.tools.javac.code.Symbol.ClassSymbol;
 import java.util.Map;
+import javax.lang.model.element.Element;
 import javax.lang.model.element.ExecutableElement;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.common.basetype.BaseTypeChecker;
 import org.checkerframework.dataflow.cfg.node.LocalVariableNode;
 import org.checkerframework.dataflow.cfg.node.MethodInvocationNode;
@@ -14,6 +17,7 @@ import org.checkerframework.dataflow.cfg.node.ObjectCreationNode;
 import org.checkerframework.dataflow.cfg.node.ReturnNode;
 import org.checkerframework.framework.qual.IgnoreInWholeProgramInference;
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
+import org.checkerframework.framework.type.AnnotatedTypeMirror;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedDeclaredType;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedExecutableType;
 
@@ -173,6 +177,35 @@ public interface WholeProgramInference {
             Map<AnnotatedDeclaredType, ExecutableElement> overriddenMethods,
             AnnotatedTypeFactory atf);
 
+    /**
+     * Adds to the type of a declaration the annotations that an earlier compilation in the same
+     * {@link WholeProgramInferenceSession} inferred for it, in each hierarchy in which the type has
+     * no annotation written in source code. Does nothing if there is no such compilation.
+     *
+     * <p>The default implementation does nothing, which is correct for an implementation that is
+     * never used in a session.
+     *
+     * @param elt the element of a declaration in source code
+     * @param type the annotated type of {@code elt}, which contains only the annotations written in
+     *     source code; it is side-effected by this method
+     * @param atf the annotated type factory of a given type system, whose type hierarchy will be
+     *     used
+     */
+    default void addPreviouslyInferredAnnotations(
+            Element elt, AnnotatedTypeMirror type, AnnotatedTypeFactory atf) {}
+
+    /**
+     * Records that a compilation unit uses the type of the declaration {@code elt}. In a {@link
+     * WholeProgramInferenceSession}, a compilation unit is analyzed again only if the annotations
+     * inferred for a declaration that it uses change. Does nothing outside a session.
+     *
+     * <p>The default implementation does nothing.
+     *
+     * @param elt an element
+     * @param root the compilation unit being checked, or null if none is
+     */
+    default void recordDeclarationUse(Element elt, @Nullable CompilationUnitTree root) {}
+
     /**
      * Writes the inferred results to a file. Ideally should be called at the end of the
      * type-checking process.
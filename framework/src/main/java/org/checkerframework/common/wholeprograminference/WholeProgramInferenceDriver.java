@@ -0,0 +1,159 @@
+package org.checkerframework.common.wholeprograminference;
+
+import com.sun.source.util.JavacTask;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.checkerframework.framework.util.DriverArguments;
+import org.checkerframework.javacutil.UserError;
+
+/**
+ * Runs whole-program inference iteratively in a single JVM, until the inferred annotations stop
+ * changing. This is an alternative to the {@code infer-and-annotate.sh} script, which runs javac
+ * once per iteration, writes .jaif files, and inserts them into the source code before the next
+ * iteration.
+ *
+ * <p>Each iteration compiles the program (without generating class files) with a {@link
+ * WholeProgramInferenceSession} active, so inferred annotations are kept in memory between
+ * iterations and applied to declarations as if they had been inserted into the source code. The
+ * .jaif or stub files are written once, when the inferred annotations are the same as in the
+ * previous iteration. The source code is not modified. After the first iteration, only the
+ * compilation units that use a declaration whose inferred annotations changed are type-checked
+ * again.
+ *
+ * <p>Usage:
+ *
+ * <pre>{@code
+ * java -cp checker.jar:... org.checkerframework.common.wholeprograminference.WholeProgramInferenceDriver \
+ *     [--max-iterations=N] -processor <checkers> [javac options] <source files>
+ * }</pre>
+ *
+ * The processors, which must be given by their fully-qualified names, are loaded from the
+ * classpath of this program. {@code -Ainfer} and {@code -Awarns} are added to the javac options if
+ * they are missing. The diagnostics of the last iteration, which only cover the compilation units
+ * that it type-checked, are printed.
+ *
+ * @checker_framework.manual #whole-program-inference Whole-program inference
+ */
+public final class WholeProgramInferenceDriver {
+
+    /** The default maximum number of iterations. */
+    public static final int DEFAULT_MAX_ITERATIONS = 100;
+
+    /** The command-line option that sets the maximum number of iterations. */
+    private static final String MAX_ITERATIONS_OPT = "--max-iterations=";
+
+    /** Do not instantiate. */
+    private WholeProgramInferenceDriver() {
+        throw new Error("Do not instantiate");
+    }
+
+    /**
+     * Runs whole-program inference iteratively. Exits with status 0 if the inferred annotations
+     * converged, and 1 otherwise.
+     *
+     * @param args the maximum number of iterations (optional), followed by javac options and the
+     *     source files of the program
+     */
+    public static void main(String[] args) {
+        System.exit(execute(args));
+    }
+
+    /**
+     * Runs whole-program inference iteratively.
+     *
+     * @param args the maximum number of iterations (optional), followed by javac options and the
+     *     source files of the program
+     * @return 0 if the inferred annotations converged, 1 if they did not, and 2 if the arguments
+     *     are invalid
+     */
+    public static int execute(String[] args) {
+        DriverArguments arguments =
+                DriverArguments.parse(
+                        WholeProgramInferenceDriver.class,
+                        MAX_ITERATIONS_OPT,
+                        DEFAULT_MAX_ITERATIONS,
+                        args);
+        if (arguments == null) {
+            return 2;
+        }
+        boolean hasInfer = false;
+        boolean hasWarns = false;
+        for (String option : arguments.options) {
+            hasInfer |= option.equals("-Ainfer") || option.startsWith("-Ainfer=");
+            hasWarns |= option.equals("-Awarns");
+        }
+        List<String> options = new ArrayList<>(arguments.options);
+        if (!hasInfer) {
+            options.add("-Ainfer");
+        }
+        if (!hasWarns) {
+            options.add("-Awarns");
+        }
+        boolean converged =
+                run(arguments.processorNames, options, arguments.sourceFiles, arguments.number);
+        return converged ? 0 : 1;
+    }
+
+    /**
+     * Runs whole-program inference iteratively, then writes the inferred annotations.
+     *
+     * @param processorNames the fully-qualified names of the checkers, which must run
+     *     whole-program inference
+     * @param options javac options, which must include {@code -Ainfer}
+     * @param sourceFiles the source files of the program
+     * @param maxIterations the maximum number of iterations
+     * @return true if the inferred annotations converged within {@code maxIterations} iterations;
+     *     if they did not, the annotations inferred by the last iteration are written
+     */
+    public static boolean run(
+            List<String> processorNames,
+            List<String> options,
+            List<String> sourceFiles,
+            int maxIterations) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        WholeProgramInferenceSession session = new WholeProgramInferenceSession();
+        boolean converged = false;
+        DiagnosticCollector<JavaFileObject> diagnostics = null;
+        int iteration = 0;
+        while (iteration < maxIterations && !converged) {
+            iteration++;
+            diagnostics = new DiagnosticCollector<>();
+            try (StandardJavaFileManager fileManager =
+                    compiler.getStandardFileManager(null, null, null)) {
+                JavacTask task =
+                        (JavacTask)
+                                compiler.getTask(
+                                        null,
+                                        fileManager,
+                                        diagnostics,
+                                        options,
+                                        null,
+                                        fileManager.getJavaFileObjectsFromStrings(sourceFiles));
+                task.setProcessors(DriverArguments.createProcessors(processorNames));
+                session.analyze(task);
+            } catch (IOException e) {
+                throw new UserError("Problem while compiling: %s", e.getMessage());
+            }
+            converged = !session.startNextIteration();
+        }
+        if (diagnostics != null) {
+            for (Diagnostic<? extends JavaFileObject> d : diagnostics.getDiagnostics()) {
+                System.err.println(d);
+            }
+        }
+        System.err.printf(
+                "%s after %d iterations. %s%n",
+                converged ? "Converged" : "Did not converge",
+                iteration,
+                session.statistics());
+        session.writeResults();
+        return converged;
+    }
+}
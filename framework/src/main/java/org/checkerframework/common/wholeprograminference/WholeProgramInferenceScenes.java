@@ -1,6 +1,7 @@
 package org.checkerframework.common.wholeprograminference;
 
 import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
 import com.sun.source.tree.MethodTree;
 import com.sun.source.tree.Tree;
 import com.sun.source.tree.VariableTree;
@@ -12,6 +13,7 @@ import java.util.Map;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.VariableElement;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.checker.signature.qual.BinaryName;
 import org.checkerframework.common.basetype.BaseTypeChecker;
 import org.checkerframework.dataflow.cfg.node.FieldAccessNode;
@@ -85,6 +87,9 @@ public class WholeProgramInferenceScenes implements WholeProgramInference {
     /** The interface to the AScene library itself, which stores the inferred annotations. */
     private final WholeProgramInferenceScenesStorage storage;
 
+    /** The session that owns {@link #storage}, or null if this object owns it. */
+    private final @Nullable WholeProgramInferenceSession session;
+
     /**
      * Default constructor.
      *
@@ -93,6 +98,24 @@ public class WholeProgramInferenceScenes implements WholeProgramInference {
      */
     public WholeProgramInferenceScenes(boolean ignoreNullAssignments) {
         storage = new WholeProgramInferenceScenesStorage(ignoreNullAssignments);
+        session = null;
+    }
+
+    /**
+     * Creates a WholeProgramInferenceScenes that stores inferred annotations in a session, so that
+     * later compilations in the session can use them.
+     *
+     * @param session the active session
+     * @param checker the checker that uses this object
+     * @param ignoreNullAssignments indicates whether assignments where the rhs is null should be
+     *     ignored
+     */
+    public WholeProgramInferenceScenes(
+            WholeProgramInferenceSession session,
+            BaseTypeChecker checker,
+            boolean ignoreNullAssignments) {
+        this.storage = session.getStorage(checker, ignoreNullAssignments);
+        this.session = session;
     }
 
     @Override
@@ -167,6 +190,7 @@ public class WholeProgramInferenceScenes implements WholeProgramInference {
             AField param =
                     method.vivifyAndAddTypeMirrorToParameter(
                             i, argATM.getUnderlyingType(), ve.getSimpleName());
+            recordContribution(methodElt);
             storage.updateAnnotationSetInScene(
                     param.type, atf, jaifPath, argATM, paramATM, TypeUseLocation.PARAMETER);
         }
@@ -199,6 +223,7 @@ public class WholeProgramInferenceScenes implements WholeProgramInference {
             AField param =
                     method.vivifyAndAddTypeMirrorToParameter(
                             i, argATM.getUnderlyingType(), ve.getSimpleName());
+            recordContribution(methodElt);
             storage.updateAnnotationSetInScene(
                     param.type, atf, jaifPath, argATM, paramATM, TypeUseLocation.PARAMETER);
         }
@@ -208,6 +233,7 @@ public class WholeProgramInferenceScenes implements WholeProgramInference {
             AnnotatedTypeMirror paramATM = atf.getAnnotatedType(methodTree).getReceiverType();
             if (paramATM != null) {
                 AField receiver = method.receiver;
+                recordContribution(methodElt);
                 storage.updateAnnotationSetInScene(
                         receiver.type, atf, jaifPath, argADT, paramATM, TypeUseLocation.RECEIVER);
             }
@@ -254,6 +280,7 @@ public class WholeProgramInferenceScenes implements WholeProgramInference {
                 AField param =
                         method.vivifyAndAddTypeMirrorToParameter(
                                 i, argATM.getUnderlyingType(), ve.getSimpleName());
+                recordContribution(methodElt);
                 storage.updateAnnotationSetInScene(
                         param.type, atf, jaifPath, argATM, paramATM, TypeUseLocation.PARAMETER);
                 break;
@@ -307,6 +334,7 @@ public class WholeProgramInferenceScenes implements WholeProgramInference {
         // TODO: For a primitive such as long, this is yielding just @GuardedBy rather than
         // @GuardedBy({}).
         AnnotatedTypeMirror rhsATM = atf.getAnnotatedType(rhs.getTree());
+        recordContribution(element);
         storage.updateAnnotationSetInScene(
                 field.type, atf, jaifPath, rhsATM, lhsATM, TypeUseLocation.FIELD);
     }
@@ -364,6 +392,7 @@ public class WholeProgramInferenceScenes implements WholeProgramInference {
 
         // Type of the expression returned
         AnnotatedTypeMirror rhsATM = atf.getAnnotatedType(retNode.getTree().getExpression());
+        recordContribution(methodElt);
         storage.updateAnnotationSetInScene(
                 method.returnType, atf, jaifPath, rhsATM, lhsATM, TypeUseLocation.RETURN);
 
@@ -407,6 +436,7 @@ public class WholeProgramInferenceScenes implements WholeProgramInference {
             overriddenMethodInSuperclass.setFieldsFromMethodElement(overriddenMethodElement);
             AnnotatedTypeMirror overriddenMethodReturnType = overriddenMethod.getReturnType();
 
+            recordContribution(overriddenMethodElement);
             storage.updateAnnotationSetInScene(
                     overriddenMethodInSuperclass.returnType,
                     atf,
@@ -417,10 +447,42 @@ public class WholeProgramInferenceScenes implements WholeProgramInference {
         }
     }
 
-    /** Write all modified scenes into .jaif files or stub files. */
+    @Override
+    public void addPreviouslyInferredAnnotations(
+            Element elt, AnnotatedTypeMirror type, AnnotatedTypeFactory atf) {
+        storage.addPreviouslyInferredAnnotations(elt, type, atf);
+    }
+
+    @Override
+    public void recordDeclarationUse(Element elt, @Nullable CompilationUnitTree root) {
+        if (session != null) {
+            session.recordUse(elt, root);
+        }
+    }
+
+    /**
+     * Records that the compilation unit being analyzed contributes to the inferred annotations of a
+     * field or method. Does nothing outside a {@link WholeProgramInferenceSession}.
+     *
+     * @param elt a field, method, or constructor
+     */
+    private void recordContribution(Element elt) {
+        if (session != null) {
+            session.recordContribution(elt);
+        }
+    }
+
+    /**
+     * Write all modified scenes into .jaif files or stub files. In a {@link
+     * WholeProgramInferenceSession}, the scenes are written when the session has converged instead.
+     */
     @Override
     public void writeResultsToFile(OutputFormat outputFormat, BaseTypeChecker checker) {
-        storage.writeScenes(outputFormat, checker);
+        if (session != null) {
+            session.deferWrite(checker, outputFormat);
+        } else {
+            storage.writeScenes(outputFormat, checker);
+        }
     }
 
     /**
@@ -1,18 +1,27 @@
 package org.checkerframework.common.wholeprograminference;
 
 import com.sun.tools.javac.code.Symbol.ClassSymbol;
+import com.sun.tools.javac.code.Symbol.MethodSymbol;
+import com.sun.tools.javac.code.Symbol.VarSymbol;
 import com.sun.tools.javac.code.TypeAnnotationPosition;
 import java.io.File;
 import java.io.IOException;
 import java.lang.annotation.Target;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.TypeKind;
+import javax.lang.model.util.Elements;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.checker.signature.qual.BinaryName;
 import org.checkerframework.common.basetype.BaseTypeChecker;
@@ -26,6 +35,8 @@ import org.checkerframework.framework.qual.TypeUseLocation;
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
 import org.checkerframework.framework.type.AnnotatedTypeMirror;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedArrayType;
+import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedDeclaredType;
+import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedExecutableType;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedNullType;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedTypeVariable;
 import org.checkerframework.framework.type.GenericAnnotatedTypeFactory;
@@ -33,10 +44,13 @@ import org.checkerframework.javacutil.Pair;
 import org.checkerframework.javacutil.UserError;
 import scenelib.annotations.Annotation;
 import scenelib.annotations.el.AClass;
+import scenelib.annotations.el.AField;
+import scenelib.annotations.el.AMethod;
 import scenelib.annotations.el.AScene;
 import scenelib.annotations.el.ATypeElement;
 import scenelib.annotations.el.InnerTypeLocation;
 import scenelib.annotations.io.IndexFileParser;
+import scenelib.annotations.util.JVMNames;
 
 /**
  * This class stores annotations for fields, method return types, and method parameters.
@@ -82,6 +96,25 @@ public class WholeProgramInferenceScenesStorage {
      */
     private final Set<String> modifiedScenes = new HashSet<>();
 
+    /**
+     * The annotations inferred by the previous iteration of the {@link
+     * WholeProgramInferenceSession} that uses this storage, as they would be written to .jaif
+     * files. Maps .jaif file paths to Scenes, like {@link #scenes}. Empty if this storage is not
+     * used by a session, or during the first iteration.
+     */
+    private Map<String, AScene> previousIteration = Collections.emptyMap();
+
+    /**
+     * The annotations in {@link #previousIteration} of each field and method, as text, indexed by
+     * {@link #memberKey}.
+     */
+    private Map<String, String> previousIterationMembers = Collections.emptyMap();
+
+    /**
+     * The annotations in {@link #previousIteration}, in the same form as {@link #annosToIgnore}.
+     */
+    private final AnnotationsInContexts previouslyInferred = new AnnotationsInContexts();
+
     /**
      * Default constructor.
      *
@@ -100,6 +133,21 @@ public class WholeProgramInferenceScenesStorage {
      * @param checker the checker from which this method is called, for naming stub files
      */
     public void writeScenes(OutputFormat outputFormat, BaseTypeChecker checker) {
+        writeScenes(outputFormat, checker, new HashSet<>());
+    }
+
+    /**
+     * Write all modified scenes into files. The annotations in the .jaif files that were already
+     * written by other storages are added to the scenes first, so that they are kept. (A storage
+     * that is not used by a {@link WholeProgramInferenceSession} reads the .jaif files when it
+     * first uses a scene instead.)
+     *
+     * @param outputFormat the output format to use when writing files
+     * @param checker the checker from which this method is called, for naming stub files
+     * @param written the .jaif files written by other storages; the files written by this method
+     *     are added to it
+     */
+    void writeScenes(OutputFormat outputFormat, BaseTypeChecker checker, Set<String> written) {
         // Create WPI directory if it doesn't exist already.
         File jaifDir = new File(JAIF_FILES_PATH);
         if (!jaifDir.exists()) {
@@ -107,11 +155,378 @@ public class WholeProgramInferenceScenesStorage {
         }
         // Write scenes into files.
         for (String jaifPath : modifiedScenes) {
-            scenes.get(jaifPath).writeToFile(jaifPath, annosToIgnore, outputFormat, checker);
+            ASceneWrapper scene = scenes.get(jaifPath);
+            if (outputFormat == OutputFormat.JAIF && written.contains(jaifPath)) {
+                try {
+                    IndexFileParser.parseFile(jaifPath, scene.getAScene());
+                } catch (IOException e) {
+                    throw new UserError("Problem while reading %s: %s", jaifPath, e.getMessage());
+                }
+            }
+            scene.writeToFile(jaifPath, annosToIgnore, outputFormat, checker);
         }
+        written.addAll(modifiedScenes);
         modifiedScenes.clear();
     }
 
+    /**
+     * Prepares this storage for the next iteration of a {@link WholeProgramInferenceSession}. The
+     * annotations inferred so far are recorded, and during the next iteration {@link
+     * #addPreviouslyInferredAnnotations} applies them to the declarations that they were inferred
+     * for, as if they had been inserted into the source code.
+     *
+     * @return the {@link #memberKey}s of the fields and methods whose inferred annotations differ
+     *     from those recorded by the previous call to this method (or, for the first call, that
+     *     have inferred annotations)
+     */
+    Set<String> startNextIteration() {
+        Map<String, AScene> inferred = new HashMap<>();
+        for (Map.Entry<String, ASceneWrapper> entry : scenes.entrySet()) {
+            AScene scene =
+                    ASceneWrapper.removeSymbolInformation(
+                            entry.getValue().prunedCopy(annosToIgnore));
+            if (!scene.isEmpty()) {
+                inferred.put(entry.getKey(), scene);
+            }
+        }
+        Map<String, String> inferredMembers = new HashMap<>();
+        previouslyInferred.clear();
+        for (AScene scene : inferred.values()) {
+            for (Map.Entry<String, AClass> classEntry : scene.classes.entrySet()) {
+                String className = classEntry.getKey();
+                AClass aClass = classEntry.getValue();
+                for (Map.Entry<String, AField> fieldEntry : aClass.fields.entrySet()) {
+                    AField field = fieldEntry.getValue();
+                    recordPreviouslyInferred(field.type, TypeUseLocation.FIELD);
+                    StringBuilder text = new StringBuilder();
+                    appendAnnotations(text, field.type);
+                    inferredMembers.put(className + "#" + fieldEntry.getKey(), text.toString());
+                }
+                for (Map.Entry<String, AMethod> methodEntry : aClass.methods.entrySet()) {
+                    AMethod method = methodEntry.getValue();
+                    recordPreviouslyInferred(method.returnType, TypeUseLocation.RETURN);
+                    recordPreviouslyInferred(method.receiver.type, TypeUseLocation.RECEIVER);
+                    StringBuilder text = new StringBuilder();
+                    appendAnnotations(text, method.returnType);
+                    appendAnnotations(text.append(" this "), method.receiver.type);
+                    for (Map.Entry<Integer, AField> paramEntry : method.parameters.entrySet()) {
+                        AField param = paramEntry.getValue();
+                        recordPreviouslyInferred(param.type, TypeUseLocation.PARAMETER);
+                        text.append(' ').append(paramEntry.getKey()).append(' ');
+                        appendAnnotations(text, param.type);
+                    }
+                    inferredMembers.put(className + "#" + methodEntry.getKey(), text.toString());
+                }
+            }
+        }
+
+        Set<String> changed = new HashSet<>();
+        for (Map.Entry<String, String> member : inferredMembers.entrySet()) {
+            if (!member.getValue().equals(previousIterationMembers.get(member.getKey()))) {
+                changed.add(member.getKey());
+            }
+        }
+        for (String member : previousIterationMembers.keySet()) {
+            if (!inferredMembers.containsKey(member)) {
+                changed.add(member);
+            }
+        }
+        previousIteration = inferred;
+        previousIterationMembers = inferredMembers;
+        return changed;
+    }
+
+    /**
+     * Replaces each scene by a copy without symbol information, so that no scene refers to an
+     * element or type of an earlier compilation and keeps that compilation alive. A {@link
+     * WholeProgramInferenceSession} calls this before each compilation; the compilation sets the
+     * symbol information of the classes and methods that it analyzes anew.
+     */
+    void removeSymbolInformation() {
+        for (Map.Entry<String, ASceneWrapper> entry : scenes.entrySet()) {
+            entry.setValue(entry.getValue().withoutSymbolInformation());
+        }
+    }
+
+    /**
+     * Sets the symbol information of the classes, fields, and methods in the scenes that have none,
+     * from the elements of a compilation of the program. A stub file only contains the classes,
+     * fields, and methods that have symbol information. After the last compilation of a {@link
+     * WholeProgramInferenceSession}, which may not have analyzed every class, {@link
+     * WholeProgramInferenceSession#writeResults} calls this before writing stub files.
+     *
+     * <p>Anonymous and local classes cannot be looked up by name; they are not written to stub
+     * files anyway.
+     *
+     * @param env the processing environment of a compilation of the program
+     */
+    void addMissingSymbolInformation(ProcessingEnvironment env) {
+        Elements elements = env.getElementUtils();
+        for (ASceneWrapper wrapper : scenes.values()) {
+            for (Map.Entry<String, AClass> classEntry : wrapper.getAScene().classes.entrySet()) {
+                AClass aClass = classEntry.getValue();
+                TypeElement classElt = aClass.getTypeElement();
+                if (classElt == null) {
+                    // The key is a binary name; getTypeElement expects a canonical name.
+                    classElt = elements.getTypeElement(classEntry.getKey().replace('$', '.'));
+                    if (classElt == null) {
+                        continue;
+                    }
+                    wrapper.updateSymbolInformation(aClass, (ClassSymbol) classElt);
+                }
+                for (Element member : classElt.getEnclosedElements()) {
+                    switch (member.getKind()) {
+                        case FIELD:
+                        case ENUM_CONSTANT:
+                            {
+                                AField field = aClass.fields.get(member.getSimpleName().toString());
+                                if (field != null && field.getTypeMirror() == null) {
+                                    field.setTypeMirror(member.asType());
+                                }
+                                break;
+                            }
+                        case METHOD:
+                        case CONSTRUCTOR:
+                            {
+                                ExecutableElement methodElt = (ExecutableElement) member;
+                                AMethod method =
+                                        aClass.methods.get(
+                                                JVMNames.getJVMMethodSignature(methodElt));
+                                if (method != null && method.getTypeParameters() == null) {
+                                    method.setFieldsFromMethodElement(methodElt);
+                                }
+                                break;
+                            }
+                        default:
+                            break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Discards the annotations inferred for some fields and methods, so that the next iteration of
+     * a {@link WholeProgramInferenceSession} infers them anew. The annotations recorded by {@link
+     * #startNextIteration} are not affected.
+     *
+     * @param members the {@link #memberKey}s of the fields and methods whose annotations to
+     *     discard, or null to discard the annotations of every field and method
+     */
+    void clearInferredAnnotations(@Nullable Set<String> members) {
+        if (members != null && members.isEmpty()) {
+            return;
+        }
+        for (ASceneWrapper wrapper : scenes.values()) {
+            for (Map.Entry<String, AClass> classEntry : wrapper.getAScene().classes.entrySet()) {
+                String className = classEntry.getKey();
+                AClass aClass = classEntry.getValue();
+                for (Map.Entry<String, AField> fieldEntry : aClass.fields.entrySet()) {
+                    if (members == null
+                            || members.contains(className + "#" + fieldEntry.getKey())) {
+                        clearAnnotations(fieldEntry.getValue().type);
+                    }
+                }
+                for (Map.Entry<String, AMethod> methodEntry : aClass.methods.entrySet()) {
+                    if (members == null
+                            || members.contains(className + "#" + methodEntry.getKey())) {
+                        AMethod method = methodEntry.getValue();
+                        clearAnnotations(method.returnType);
+                        clearAnnotations(method.receiver.type);
+                        for (AField param : method.parameters.values()) {
+                            clearAnnotations(param.type);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the annotations of an ATypeElement and of its inner types.
+     *
+     * @param type an ATypeElement
+     */
+    private static void clearAnnotations(ATypeElement type) {
+        type.tlAnnotationsHere.clear();
+        for (ATypeElement innerType : type.innerTypes.values()) {
+            clearAnnotations(innerType);
+        }
+    }
+
+    /**
+     * Appends the annotations of an ATypeElement, and of its inner types, to a string, in an order
+     * that does not depend on the order in which they were inferred.
+     *
+     * @param text the string to append to
+     * @param type an ATypeElement
+     */
+    private static void appendAnnotations(StringBuilder text, ATypeElement type) {
+        List<String> annos = new ArrayList<>();
+        for (Annotation anno : type.tlAnnotationsHere) {
+            annos.add(anno.toString());
+        }
+        Collections.sort(annos);
+        text.append(annos);
+        List<String> innerTypes = new ArrayList<>();
+        for (Map.Entry<InnerTypeLocation, ATypeElement> innerType : type.innerTypes.entrySet()) {
+            StringBuilder innerText = new StringBuilder().append(innerType.getKey()).append(':');
+            appendAnnotations(innerText, innerType.getValue());
+            innerTypes.add(innerText.toString());
+        }
+        Collections.sort(innerTypes);
+        text.append(innerTypes);
+    }
+
+    /**
+     * Returns a key for the field or method that declares an element, which is the same in every
+     * compilation of the program.
+     *
+     * @param elt an element
+     * @return the binary name of the class that declares {@code elt}, "#", and either the name of
+     *     the field {@code elt} or the JVM signature of the method {@code elt} or of the method
+     *     that declares the parameter {@code elt}; or null if {@code elt} is none of these
+     */
+    static @Nullable String memberKey(Element elt) {
+        switch (elt.getKind()) {
+            case FIELD:
+            case ENUM_CONSTANT:
+                return ((VarSymbol) elt).enclClass().flatname + "#" + elt.getSimpleName();
+            case METHOD:
+            case CONSTRUCTOR:
+                return ((MethodSymbol) elt).enclClass().flatname
+                        + "#"
+                        + JVMNames.getJVMMethodSignature((ExecutableElement) elt);
+            case PARAMETER:
+                Element enclosing = elt.getEnclosingElement();
+                return enclosing instanceof ExecutableElement ? memberKey(enclosing) : null;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Adds the annotations of an ATypeElement, and of its inner types, to {@link
+     * #previouslyInferred}.
+     *
+     * @param type an ATypeElement of a Scene in {@link #previousIteration}
+     * @param loc the location where {@code type} is used
+     */
+    private void recordPreviouslyInferred(ATypeElement type, TypeUseLocation loc) {
+        Pair<String, TypeUseLocation> key = Pair.of(aTypeElementToString(type), loc);
+        for (Annotation anno : type.tlAnnotationsHere) {
+            Set<String> annos = previouslyInferred.get(key);
+            if (annos == null) {
+                annos = new HashSet<>();
+                previouslyInferred.put(key, annos);
+            }
+            annos.add(anno.def().toString());
+        }
+        for (ATypeElement innerType : type.innerTypes.values()) {
+            recordPreviouslyInferred(innerType, loc);
+        }
+    }
+
+    /**
+     * Adds to the type of a declaration the annotations that the previous iteration of a {@link
+     * WholeProgramInferenceSession} inferred for it, in each hierarchy in which the type has no
+     * annotation. Does nothing if this storage is not used by a session or during the first
+     * iteration.
+     *
+     * @param elt the element of a declaration in source code; only the types of fields, methods,
+     *     and method parameters are changed
+     * @param type the annotated type of {@code elt}, which contains only the annotations written in
+     *     source code; it is side-effected by this method
+     * @param atf the annotated type factory of a given type system, whose type hierarchy will be
+     *     used
+     */
+    public void addPreviouslyInferredAnnotations(
+            Element elt, AnnotatedTypeMirror type, AnnotatedTypeFactory atf) {
+        if (previousIteration.isEmpty()) {
+            return;
+        }
+        switch (elt.getKind()) {
+            case FIELD:
+                {
+                    AClass clazz = getPreviousAClass(((VarSymbol) elt).enclClass());
+                    AField field =
+                            clazz == null ? null : clazz.fields.get(elt.getSimpleName().toString());
+                    if (field != null) {
+                        typeElementToATM(type, field.type, atf, true);
+                    }
+                    break;
+                }
+            case PARAMETER:
+                {
+                    Element enclosing = elt.getEnclosingElement();
+                    if (!(enclosing instanceof ExecutableElement)) {
+                        break;
+                    }
+                    ExecutableElement methodElt = (ExecutableElement) enclosing;
+                    // Lambda parameters are not among the parameters of their enclosing method.
+                    int index = methodElt.getParameters().indexOf(elt);
+                    AMethod method = index < 0 ? null : getPreviousAMethod(methodElt);
+                    AField param = method == null ? null : method.parameters.get(index);
+                    if (param != null) {
+                        typeElementToATM(type, param.type, atf, true);
+                    }
+                    break;
+                }
+            case METHOD:
+            case CONSTRUCTOR:
+                {
+                    AMethod method = getPreviousAMethod((ExecutableElement) elt);
+                    if (method == null) {
+                        break;
+                    }
+                    AnnotatedExecutableType methodType = (AnnotatedExecutableType) type;
+                    if (elt.getKind() == ElementKind.METHOD) {
+                        typeElementToATM(methodType.getReturnType(), method.returnType, atf, true);
+                    }
+                    AnnotatedDeclaredType receiverType = methodType.getReceiverType();
+                    if (receiverType != null) {
+                        typeElementToATM(receiverType, method.receiver.type, atf, true);
+                    }
+                    List<AnnotatedTypeMirror> paramTypes = methodType.getParameterTypes();
+                    for (int i = 0; i < paramTypes.size(); i++) {
+                        AField param = method.parameters.get(i);
+                        if (param != null) {
+                            typeElementToATM(paramTypes.get(i), param.type, atf, true);
+                        }
+                    }
+                    break;
+                }
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Returns the scene-lib representation of a class in {@link #previousIteration}.
+     *
+     * @param classSymbol a class
+     * @return the representation of the class in {@link #previousIteration}, or null if no
+     *     annotations were inferred for its members
+     */
+    private @Nullable AClass getPreviousAClass(ClassSymbol classSymbol) {
+        @SuppressWarnings("signature") // https://tinyurl.com/cfissue/3094
+        @BinaryName String className = classSymbol.flatname.toString();
+        AScene scene = previousIteration.get(getJaifPath(className));
+        return scene == null ? null : scene.classes.get(className);
+    }
+
+    /**
+     * Returns the scene-lib representation of a method in {@link #previousIteration}.
+     *
+     * @param methodElt a method or constructor
+     * @return the representation of the method in {@link #previousIteration}, or null if no
+     *     annotations were inferred for it
+     */
+    private @Nullable AMethod getPreviousAMethod(ExecutableElement methodElt) {
+        AClass clazz = getPreviousAClass(((MethodSymbol) methodElt).enclClass());
+        return clazz == null ? null : clazz.methods.get(JVMNames.getJVMMethodSignature(methodElt));
+    }
+
     /**
      * Returns the String representing the .jaif path of a class given its name.
      *
@@ -216,7 +631,7 @@ public class WholeProgramInferenceScenesStorage {
         }
         AnnotatedTypeMirror atmFromJaif =
                 AnnotatedTypeMirror.createType(rhsATM.getUnderlyingType(), atf, false);
-        typeElementToATM(atmFromJaif, type, atf);
+        typeElementToATM(atmFromJaif, type, atf, false);
         updatesATMWithLUB(atf, rhsATM, atmFromJaif);
         if (lhsATM instanceof AnnotatedTypeVariable) {
             Set<AnnotationMirror> upperAnnos =
@@ -406,25 +821,32 @@ public class WholeProgramInferenceScenesStorage {
      * @param type the {@link scenelib.annotations.el.ATypeElement}
      * @param atf the annotated type factory of a given type system, whose type hierarchy will be
      *     used
+     * @param missingOnly if true, only add annotations in hierarchies in which {@code atm} has no
+     *     annotation
      */
     private void typeElementToATM(
-            AnnotatedTypeMirror atm, ATypeElement type, AnnotatedTypeFactory atf) {
+            AnnotatedTypeMirror atm,
+            ATypeElement type,
+            AnnotatedTypeFactory atf,
+            boolean missingOnly) {
         Set<Annotation> annos = getSupportedAnnosInSet(type.tlAnnotationsHere, atf);
         for (Annotation anno : annos) {
             AnnotationMirror am =
                     AnnotationConverter.annotationToAnnotationMirror(anno, atf.getProcessingEnv());
-            atm.addAnnotation(am);
+            if (!missingOnly || !atm.isAnnotatedInHierarchy(am)) {
+                atm.addAnnotation(am);
+            }
         }
         if (atm.getKind() == TypeKind.ARRAY) {
             AnnotatedArrayType aat = (AnnotatedArrayType) atm;
             for (ATypeElement innerType : type.innerTypes.values()) {
-                typeElementToATM(aat.getComponentType(), innerType, atf);
+                typeElementToATM(aat.getComponentType(), innerType, atf, missingOnly);
             }
         }
         if (atm.getKind() == TypeKind.TYPEVAR) {
             AnnotatedTypeVariable atv = (AnnotatedTypeVariable) atm;
             for (ATypeElement innerType : type.innerTypes.values()) {
-                typeElementToATM(atv.getUpperBound(), innerType, atf);
+                typeElementToATM(atv.getUpperBound(), innerType, atf, missingOnly);
             }
         }
     }
@@ -519,7 +941,10 @@ public class WholeProgramInferenceScenesStorage {
         Annotation anno = AnnotationConverter.annotationMirrorToAnnotation(am);
         if (anno != null) {
             typeToUpdate.tlAnnotationsHere.add(anno);
-            if (isEffectiveAnnotation || shouldIgnore(am, defLoc, newATM)) {
+            // An annotation that is effective only because the previous iteration of a
+            // WholeProgramInferenceSession inferred it is not a default, and must be output.
+            if ((isEffectiveAnnotation && !isPreviouslyInferred(typeToUpdate, defLoc, anno))
+                    || shouldIgnore(am, defLoc, newATM)) {
                 // firstKey works as a unique identifier for each annotation
                 // that should not be inserted in source code
                 String firstKey = aTypeElementToString(typeToUpdate);
@@ -534,6 +959,20 @@ public class WholeProgramInferenceScenesStorage {
         }
     }
 
+    /**
+     * Returns true if the previous iteration of a {@link WholeProgramInferenceSession} inferred an
+     * annotation for a location.
+     *
+     * @param type the ATypeElement of the location
+     * @param loc the location where {@code type} is used
+     * @param anno an annotation
+     * @return true if {@link #previouslyInferred} contains {@code anno} at the location
+     */
+    private boolean isPreviouslyInferred(ATypeElement type, TypeUseLocation loc, Annotation anno) {
+        Set<String> annos = previouslyInferred.get(Pair.of(aTypeElementToString(type), loc));
+        return annos != null && annos.contains(anno.def().toString());
+    }
+
     /**
      * Returns a string representation of an ATypeElement, for use as part of a key in {@link
      * AnnotationsInContexts}.
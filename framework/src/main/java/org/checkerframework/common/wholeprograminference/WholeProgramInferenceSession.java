@@ -0,0 +1,374 @@
+package org.checkerframework.common.wholeprograminference;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.util.JavacTask;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import javax.lang.model.element.Element;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.common.basetype.BaseTypeChecker;
+import org.checkerframework.common.wholeprograminference.WholeProgramInference.OutputFormat;
+import org.checkerframework.javacutil.Pair;
+
+/**
+ * The state of whole-program inference that is kept across several compilations of the same program
+ * in one JVM, as done by {@link WholeProgramInferenceDriver}.
+ *
+ * <p>While a session is active, every {@link WholeProgramInferenceScenes} that is created for a
+ * given checker uses the same {@link WholeProgramInferenceScenesStorage}, so inferred annotations
+ * are kept in memory rather than being written to and read from .jaif files after each compilation.
+ * After each compilation, {@link #startNextIteration} records the annotations inferred so far; the
+ * next compilation applies them to the declarations they were inferred for, just as if they had
+ * been inserted into the source code, and infers them anew. {@link #writeResults} writes the
+ * results once, after the inferred annotations stop changing.
+ *
+ * <p>A session records which compilation units use the type of each field and method declaration
+ * (see {@link WholeProgramInference#recordDeclarationUse}), and which compilation units contribute
+ * to the inferred annotations of each field and method (see {@link #recordContribution}). After the
+ * first compilation, checkers only analyze the compilation units that use a declaration whose
+ * inferred annotations changed in the previous compilation. The inferred annotations of the fields
+ * and methods that those units contribute to are discarded and inferred anew, so every other unit
+ * that contributes to them is analyzed as well. Skipping the remaining compilation units is sound:
+ * their analysis would infer the same annotations as before, and the annotations that they
+ * contributed to are kept.
+ *
+ * <p>A session is only active while {@link #analyze} runs a compilation, and only on the thread
+ * that runs it. So checkers in other compilations in the same JVM, including those of another
+ * session, do not see it.
+ */
+public final class WholeProgramInferenceSession {
+
+    /** The session that is active on the current thread, or null if there is none. */
+    private static final ThreadLocal<@Nullable WholeProgramInferenceSession> current =
+            new ThreadLocal<>();
+
+    /** The storage used by each checker, indexed by the checker's class name. */
+    private final Map<String, WholeProgramInferenceScenesStorage> storages = new LinkedHashMap<>();
+
+    /**
+     * The output format of each checker's results, and the most recent instance of the checker
+     * (which is used to name stub files), indexed by the checker's class name.
+     */
+    private final Map<String, Pair<OutputFormat, BaseTypeChecker>> outputs = new LinkedHashMap<>();
+
+    /**
+     * The declarations whose types each compilation unit used during the current compilation.
+     * Declarations used while no compilation unit was being checked are recorded under null.
+     */
+    private final Map<@Nullable CompilationUnitTree, Set<Element>> usesInIteration =
+            new HashMap<>();
+
+    /**
+     * The compilation units that used the type of each declaration during any compilation of this
+     * session, indexed by {@link WholeProgramInferenceScenesStorage#memberKey}. The units are
+     * identified by {@link #unitKey}; the empty string stands for code outside any unit.
+     */
+    private final Map<String, Set<String>> users = new HashMap<>();
+
+    /**
+     * The fields and methods whose inferred annotations each compilation unit contributed to during
+     * the current compilation, indexed by {@link #unitKey}.
+     */
+    private final Map<String, Set<Element>> contributionsInIteration = new HashMap<>();
+
+    /**
+     * The compilation units that contributed to the inferred annotations of each field and method
+     * during any compilation of this session, indexed by {@link
+     * WholeProgramInferenceScenesStorage#memberKey}. The units are identified by {@link #unitKey}.
+     */
+    private final Map<String, Set<String>> contributors = new HashMap<>();
+
+    /**
+     * The fields and methods, identified by {@link WholeProgramInferenceScenesStorage#memberKey},
+     * whose inferred annotations each compilation unit contributed to during any compilation of
+     * this session, indexed by {@link #unitKey}.
+     */
+    private final Map<String, Set<String>> contributions = new HashMap<>();
+
+    /**
+     * The fields and methods, identified by {@link WholeProgramInferenceScenesStorage#memberKey},
+     * whose inferred annotations the next compilation discards and infers anew, or null for all of
+     * them.
+     */
+    private @Nullable Set<String> membersToInfer = Collections.emptySet();
+
+    /**
+     * The compilation unit that checkers are analyzing, identified by {@link #unitKey}. It is set
+     * by {@link #shouldAnalyze}.
+     */
+    private String currentUnit = "";
+
+    /**
+     * The compilation units to analyze in the current compilation, identified by {@link #unitKey},
+     * or null to analyze all of them.
+     */
+    private @Nullable Set<String> unitsToAnalyze = null;
+
+    /**
+     * The number of top-level classes that checkers analyzed, over all compilations. A class is
+     * counted once per checker.
+     */
+    private long classesAnalyzed = 0;
+
+    /**
+     * The number of top-level classes that checkers skipped, over all compilations. A class is
+     * counted once per checker.
+     */
+    private long classesSkipped = 0;
+
+    /** Creates a session. Use {@link #analyze} to run the compilations of the session. */
+    public WholeProgramInferenceSession() {}
+
+    /**
+     * Returns the session that is active on the current thread.
+     *
+     * @return the active session, or null if whole-program inference is run by a single compilation
+     */
+    public static @Nullable WholeProgramInferenceSession current() {
+        return current.get();
+    }
+
+    /**
+     * Runs the analysis of a compilation of the program, with this session active on the current
+     * thread. The processors of the compilation must run on the current thread, as javac's do.
+     * First, the inferred annotations of the fields and methods that the compilation infers anew
+     * are discarded, and so are the elements and types of the previous compilation that the
+     * inferred annotations refer to.
+     *
+     * @param task a compilation of the program
+     * @throws IOException if javac throws it
+     */
+    public void analyze(JavacTask task) throws IOException {
+        for (WholeProgramInferenceScenesStorage storage : storages.values()) {
+            storage.removeSymbolInformation();
+            storage.clearInferredAnnotations(membersToInfer);
+        }
+        membersToInfer = Collections.emptySet();
+        WholeProgramInferenceSession previous = current.get();
+        current.set(this);
+        try {
+            task.analyze();
+        } finally {
+            if (previous == null) {
+                current.remove();
+            } else {
+                current.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Returns the storage for the inferred annotations of a checker, creating it during the first
+     * compilation of the session.
+     *
+     * @param checker a checker that runs whole-program inference
+     * @param ignoreNullAssignments indicates whether assignments where the rhs is null should be
+     *     ignored
+     * @return the storage used by every instance of the checker's class in this session
+     */
+    WholeProgramInferenceScenesStorage getStorage(
+            BaseTypeChecker checker, boolean ignoreNullAssignments) {
+        String checkerName = checker.getClass().getName();
+        WholeProgramInferenceScenesStorage storage = storages.get(checkerName);
+        if (storage == null) {
+            storage = new WholeProgramInferenceScenesStorage(ignoreNullAssignments);
+            storages.put(checkerName, storage);
+        }
+        return storage;
+    }
+
+    /**
+     * Records that the results of a checker should be written in the given format when the session
+     * has converged, instead of immediately.
+     *
+     * @param checker a checker that runs whole-program inference
+     * @param outputFormat the output format to use when writing files
+     */
+    void deferWrite(BaseTypeChecker checker, OutputFormat outputFormat) {
+        outputs.put(checker.getClass().getName(), Pair.of(outputFormat, checker));
+    }
+
+    /**
+     * Records that a compilation unit uses the type of a declaration.
+     *
+     * @param elt an element
+     * @param root the compilation unit being checked, or null if none is
+     */
+    void recordUse(Element elt, @Nullable CompilationUnitTree root) {
+        Set<Element> uses = usesInIteration.get(root);
+        if (uses == null) {
+            uses = Collections.newSetFromMap(new IdentityHashMap<>());
+            usesInIteration.put(root, uses);
+        }
+        uses.add(elt);
+    }
+
+    /**
+     * Records that the compilation unit being analyzed contributes to the inferred annotations of a
+     * field or method.
+     *
+     * @param elt a field, method, or constructor
+     */
+    void recordContribution(Element elt) {
+        Set<Element> elts = contributionsInIteration.get(currentUnit);
+        if (elts == null) {
+            elts = Collections.newSetFromMap(new IdentityHashMap<>());
+            contributionsInIteration.put(currentUnit, elts);
+        }
+        elts.add(elt);
+    }
+
+    /**
+     * Returns true if a checker should analyze a top-level class in the current compilation. If so,
+     * the compilation unit of the class becomes the one that checkers are analyzing.
+     *
+     * @param root the compilation unit of the class
+     * @return true if the checker should analyze the class
+     */
+    public boolean shouldAnalyze(CompilationUnitTree root) {
+        String unit = unitKey(root);
+        boolean analyze = unitsToAnalyze == null || unitsToAnalyze.contains(unit);
+        if (analyze) {
+            currentUnit = unit;
+            classesAnalyzed++;
+        } else {
+            classesSkipped++;
+        }
+        return analyze;
+    }
+
+    /**
+     * Returns a key for a compilation unit, which is the same in every compilation of the program.
+     *
+     * @param root a compilation unit, or null
+     * @return the URI of the source file of {@code root}, or the empty string if {@code root} is
+     *     null
+     */
+    private static String unitKey(@Nullable CompilationUnitTree root) {
+        return root == null ? "" : root.getSourceFile().toUri().toString();
+    }
+
+    /**
+     * Prepares for the next compilation of the program, which uses the annotations inferred so far.
+     * It analyzes the compilation units that use a declaration whose inferred annotations changed,
+     * and the compilation units that contribute to the same fields and methods as those.
+     *
+     * @return true if the annotations inferred by the last compilation differ from those inferred
+     *     by the compilation before it in a way that affects a compilation unit, that is, if
+     *     another compilation might infer more annotations
+     */
+    public boolean startNextIteration() {
+        for (Map.Entry<@Nullable CompilationUnitTree, Set<Element>> entry :
+                usesInIteration.entrySet()) {
+            String unit = unitKey(entry.getKey());
+            for (Element elt : entry.getValue()) {
+                String member = WholeProgramInferenceScenesStorage.memberKey(elt);
+                if (member != null) {
+                    addToSet(users, member, unit);
+                }
+            }
+        }
+        usesInIteration.clear();
+        for (Map.Entry<String, Set<Element>> entry : contributionsInIteration.entrySet()) {
+            String unit = entry.getKey();
+            for (Element elt : entry.getValue()) {
+                String member = WholeProgramInferenceScenesStorage.memberKey(elt);
+                if (member != null) {
+                    addToSet(contributors, member, unit);
+                    addToSet(contributions, unit, member);
+                }
+            }
+        }
+        contributionsInIteration.clear();
+
+        Set<String> affected = new HashSet<>();
+        for (WholeProgramInferenceScenesStorage storage : storages.values()) {
+            for (String member : storage.startNextIteration()) {
+                Set<String> units = users.get(member);
+                if (units != null) {
+                    affected.addAll(units);
+                }
+            }
+        }
+
+        // The analyzed units infer the annotations of the members they contribute to anew, which
+        // requires every contribution to those members.
+        Set<String> toAnalyze = new HashSet<>(affected);
+        Set<String> toInfer = new HashSet<>();
+        Deque<String> worklist = new ArrayDeque<>(affected);
+        while (!worklist.isEmpty()) {
+            Set<String> members = contributions.get(worklist.remove());
+            if (members == null) {
+                continue;
+            }
+            for (String member : members) {
+                if (toInfer.add(member)) {
+                    for (String unit : contributors.get(member)) {
+                        if (toAnalyze.add(unit)) {
+                            worklist.add(unit);
+                        }
+                    }
+                }
+            }
+        }
+        // A declaration used outside any compilation unit may affect every unit.
+        unitsToAnalyze = toAnalyze.contains("") ? null : toAnalyze;
+        membersToInfer = unitsToAnalyze == null ? null : toInfer;
+        return !affected.isEmpty();
+    }
+
+    /**
+     * Adds a value to the set that a map maps a key to, creating the set if necessary.
+     *
+     * @param map a map
+     * @param key a key
+     * @param value the value to add to the set of {@code key}
+     */
+    private static void addToSet(Map<String, Set<String>> map, String key, String value) {
+        Set<String> set = map.get(key);
+        if (set == null) {
+            set = new HashSet<>();
+            map.put(key, set);
+        }
+        set.add(value);
+    }
+
+    /**
+     * Returns a description of how much analysis the dependency tracking of this session saved.
+     *
+     * @return the number of top-level classes that checkers analyzed and skipped
+     */
+    public String statistics() {
+        return String.format(
+                "Whole-program inference session: %d classes analyzed, %d skipped",
+                classesAnalyzed, classesSkipped);
+    }
+
+    /**
+     * Writes the inferred annotations of every checker into .jaif files or stub files. As in a
+     * single compilation, a checker's .jaif files also contain the annotations that checkers before
+     * it, such as its subcheckers, wrote to them.
+     */
+    public void writeResults() {
+        Set<String> written = new HashSet<>();
+        for (Map.Entry<String, Pair<OutputFormat, BaseTypeChecker>> entry : outputs.entrySet()) {
+            WholeProgramInferenceScenesStorage storage = storages.get(entry.getKey());
+            if (storage != null) {
+                OutputFormat format = entry.getValue().first;
+                BaseTypeChecker checker = entry.getValue().second;
+                if (format == OutputFormat.STUB) {
+                    storage.addMissingSymbolInformation(checker.getProcessingEnvironment());
+                }
+                storage.writeScenes(format, checker, written);
+            }
+        }
+    }
+}
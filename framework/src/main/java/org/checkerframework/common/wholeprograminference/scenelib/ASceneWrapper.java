@@ -108,6 +108,56 @@ public class ASceneWrapper {
         }
     }
 
+    /**
+     * Returns a copy of the scene wrapped by this object, without the annotations that should not
+     * be output and without empty elements. This is the scene that {@link #writeToFile} writes.
+     *
+     * @param annosToIgnore which annotations should be ignored in which contexts
+     * @return a pruned copy of the wrapped scene
+     */
+    public AScene prunedCopy(AnnotationsInContexts annosToIgnore) {
+        AScene scene = theScene.clone();
+        removeAnnosFromScene(scene, annosToIgnore);
+        scene.prune();
+        return scene;
+    }
+
+    /**
+     * Returns a copy of the scene wrapped by this object that has the same classes, members, and
+     * annotations, but no symbol information: it refers to no element or type of the compilation
+     * that created it.
+     *
+     * @return a copy of this without symbol information
+     */
+    public ASceneWrapper withoutSymbolInformation() {
+        return new ASceneWrapper(removeSymbolInformation(theScene.clone()));
+    }
+
+    /**
+     * Removes the symbol information from a copy of a scene. The copy constructors of scene-lib
+     * already drop the elements of classes, the enum constants, and the type parameters and return
+     * types of methods; only the types of fields, formal parameters, and receivers are copied, so
+     * this method clears them.
+     *
+     * @param copy a scene returned by {@link AScene#clone}; it is side-effected
+     * @return {@code copy}
+     * @see #withoutSymbolInformation()
+     */
+    public static AScene removeSymbolInformation(AScene copy) {
+        for (AClass aClass : copy.classes.values()) {
+            for (AField field : aClass.fields.values()) {
+                field.setTypeMirror(null);
+            }
+            for (AMethod method : aClass.methods.values()) {
+                method.receiver.setTypeMirror(null);
+                for (AField param : method.parameters.values()) {
+                    param.setTypeMirror(null);
+                }
+            }
+        }
+        return copy;
+    }
+
     /**
      * Write the scene wrapped by this object to a file at the given path.
      *
@@ -123,9 +173,7 @@ public class ASceneWrapper {
             OutputFormat outputFormat,
             BaseTypeChecker checker) {
         assert jaifPath.endsWith(".jaif");
-        AScene scene = theScene.clone();
-        removeAnnosFromScene(scene, annosToIgnore);
-        scene.prune();
+        AScene scene = prunedCopy(annosToIgnore);
         String filepath;
         switch (outputFormat) {
             case JAIF:
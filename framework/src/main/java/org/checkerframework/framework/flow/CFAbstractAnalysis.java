@@ -66,6 +66,12 @@ public abstract class CFAbstractAnalysis<
     /** Instance of the types utility. */
     protected final Types types;
 
+    /**
+     * True if stores created by this analysis should use copy-on-write maps; set by the {@code
+     * -AcopyOnWriteStores} command-line option.
+     */
+    protected final boolean copyOnWriteStores;
+
     /**
      * Create a CFAbstractAnalysis.
      *
@@ -87,6 +93,7 @@ public abstract class CFAbstractAnalysis<
         dependentTypesHelper = factory.getDependentTypesHelper();
         this.atypeFactory = factory;
         this.checker = checker;
+        this.copyOnWriteStores = checker.hasOption("copyOnWriteStores");
         this.transferFunction = createTransferFunction();
         // TODO: remove parameter and set to empty list.
         this.fieldValues = fieldValues;
@@ -99,27 +99,57 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
 
     protected CFAbstractStore(CFAbstractAnalysis<V, S, ?> analysis, boolean sequentialSemantics) {
         this.analysis = analysis;
-        localVariableValues = new HashMap<>();
+        localVariableValues = newMap();
         thisValue = null;
-        fieldValues = new HashMap<>();
-        methodValues = new HashMap<>();
-        arrayValues = new HashMap<>();
-        classValues = new HashMap<>();
+        fieldValues = newMap();
+        methodValues = newMap();
+        arrayValues = newMap();
+        classValues = newMap();
         this.sequentialSemantics = sequentialSemantics;
     }
 
     /** Copy constructor. */
     protected CFAbstractStore(CFAbstractStore<V, S> other) {
         this.analysis = other.analysis;
-        localVariableValues = new HashMap<>(other.localVariableValues);
+        localVariableValues = copyMap(other.localVariableValues);
         thisValue = other.thisValue;
-        fieldValues = new HashMap<>(other.fieldValues);
-        methodValues = new HashMap<>(other.methodValues);
-        arrayValues = new HashMap<>(other.arrayValues);
-        classValues = new HashMap<>(other.classValues);
+        fieldValues = copyMap(other.fieldValues);
+        methodValues = copyMap(other.methodValues);
+        arrayValues = copyMap(other.arrayValues);
+        classValues = copyMap(other.classValues);
         sequentialSemantics = other.sequentialSemantics;
     }
 
+    /**
+     * Returns a new, empty map for use as one of the maps of this store. The map is a {@link
+     * CopyOnWriteMap} if the {@code -AcopyOnWriteStores} command-line option was supplied, and a
+     * {@link HashMap} otherwise.
+     *
+     * @param <K> the type of keys
+     * @return a new, empty map
+     */
+    private <K> Map<K, V> newMap() {
+        if (analysis != null && analysis.copyOnWriteStores) {
+            return new CopyOnWriteMap<>();
+        }
+        return new HashMap<>();
+    }
+
+    /**
+     * Returns a copy of {@code map}, which is one of the maps of another store. Copying a {@link
+     * CopyOnWriteMap} takes constant time.
+     *
+     * @param <K> the type of keys
+     * @param map the map to copy
+     * @return a copy of {@code map}
+     */
+    private static <K, V> Map<K, V> copyMap(Map<K, V> map) {
+        if (map instanceof CopyOnWriteMap) {
+            return ((CopyOnWriteMap<K, V>) map).copy();
+        }
+        return new HashMap<>(map);
+    }
+
     /**
      * Set the abstract value of a method parameter (only adds the information to the store, does
      * not remove any other knowledge). Any previous information is erased; this method should only
@@ -188,15 +218,17 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
                 || analysis.checker.hasOption("assumePure")
                 || isSideEffectFree(atypeFactory, method))) {
             // update field values
-            Map<FlowExpressions.FieldAccess, V> newFieldValues = new HashMap<>();
+            boolean hasMonotonicQualifiers =
+                    !((GenericAnnotatedTypeFactory<?, ?, ?, ?>) atypeFactory)
+                            .getSupportedMonotonicTypeQualifiers()
+                            .isEmpty();
+            Map<FlowExpressions.FieldAccess, V> newFieldValues = newMap();
             for (Map.Entry<FlowExpressions.FieldAccess, V> e : fieldValues.entrySet()) {
                 FlowExpressions.FieldAccess fieldAccess = e.getKey();
                 V otherVal = e.getValue();
 
                 // case 3:
-                if (!((GenericAnnotatedTypeFactory<?, ?, ?, ?>) atypeFactory)
-                        .getSupportedMonotonicTypeQualifiers()
-                        .isEmpty()) {
+                if (hasMonotonicQualifiers) {
                     List<Pair<AnnotationMirror, AnnotationMirror>> fieldAnnotations =
                             atypeFactory.getAnnotationWithMetaAnnotation(
                                     fieldAccess.getField(), MonotonicQualifier.class);
@@ -864,21 +896,14 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
     private S upperBound(S other, boolean shouldWiden) {
         S newStore = analysis.createEmptyStore(sequentialSemantics);
 
-        for (Map.Entry<FlowExpressions.LocalVariable, V> e : other.localVariableValues.entrySet()) {
-            // local variables that are only part of one store, but not the
-            // other are discarded, as one of store implicitly contains 'top'
-            // for that variable.
-            FlowExpressions.LocalVariable localVar = e.getKey();
-            V thisVal = localVariableValues.get(localVar);
-            if (thisVal != null) {
-                V otherVal = e.getValue();
-                V mergedVal = upperBoundOfValues(otherVal, thisVal, shouldWiden);
-
-                if (mergedVal != null) {
-                    newStore.localVariableValues.put(localVar, mergedVal);
-                }
-            }
-        }
+        // local variables that are only part of one store, but not the
+        // other are discarded, as one of store implicitly contains 'top'
+        // for that variable.
+        upperBoundOfMaps(
+                localVariableValues,
+                other.localVariableValues,
+                newStore.localVariableValues,
+                shouldWiden);
 
         // information about the current object
         {
@@ -890,60 +915,62 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
             }
         }
 
-        for (Map.Entry<FlowExpressions.FieldAccess, V> e : other.fieldValues.entrySet()) {
-            // information about fields that are only part of one store, but not
-            // the other are discarded, as one store implicitly contains 'top'
-            // for that field.
-            FlowExpressions.FieldAccess el = e.getKey();
-            V thisVal = fieldValues.get(el);
-            if (thisVal != null) {
-                V otherVal = e.getValue();
-                V mergedVal = upperBoundOfValues(otherVal, thisVal, shouldWiden);
-                if (mergedVal != null) {
-                    newStore.fieldValues.put(el, mergedVal);
-                }
-            }
-        }
-        for (Map.Entry<FlowExpressions.ArrayAccess, V> e : other.arrayValues.entrySet()) {
-            // information about arrays that are only part of one store, but not
-            // the other are discarded, as one store implicitly contains 'top'
-            // for that array access.
-            FlowExpressions.ArrayAccess el = e.getKey();
-            V thisVal = arrayValues.get(el);
-            if (thisVal != null) {
-                V otherVal = e.getValue();
-                V mergedVal = upperBoundOfValues(otherVal, thisVal, shouldWiden);
-                if (mergedVal != null) {
-                    newStore.arrayValues.put(el, mergedVal);
-                }
-            }
+        // information about fields that are only part of one store, but not
+        // the other are discarded, as one store implicitly contains 'top'
+        // for that field.
+        upperBoundOfMaps(fieldValues, other.fieldValues, newStore.fieldValues, shouldWiden);
+        // information about arrays that are only part of one store, but not
+        // the other are discarded, as one store implicitly contains 'top'
+        // for that array access.
+        upperBoundOfMaps(arrayValues, other.arrayValues, newStore.arrayValues, shouldWiden);
+        // information about methods that are only part of one store, but
+        // not the other are discarded, as one store implicitly contains
+        // 'top' for that field.
+        upperBoundOfMaps(methodValues, other.methodValues, newStore.methodValues, shouldWiden);
+        upperBoundOfMaps(classValues, other.classValues, newStore.classValues, shouldWiden);
+        return newStore;
+    }
+
+    /**
+     * Adds to {@code result} the upper bound of each key that is in both {@code thisMap} and {@code
+     * otherMap}. Keys that are in only one of the maps are discarded.
+     *
+     * <p>If the maps are {@link CopyOnWriteMap}s that share their contents, then the least upper
+     * bound is computed without visiting any entries. Similarly, identical values are not merged. Both
+     * shortcuts rely on the least upper bound being idempotent, so they are not used for widening.
+     *
+     * @param <K> the type of keys
+     * @param thisMap a map of this store
+     * @param otherMap the corresponding map of the other store
+     * @param result the corresponding map of the new store, which must be empty
+     * @param shouldWiden true if widening should be used instead of the least upper bound
+     */
+    private <K> void upperBoundOfMaps(
+            Map<K, V> thisMap, Map<K, V> otherMap, Map<K, V> result, boolean shouldWiden) {
+        boolean copyOnWrite = thisMap instanceof CopyOnWriteMap;
+        if (copyOnWrite
+                && !shouldWiden
+                && ((CopyOnWriteMap<K, V>) thisMap).sharesContentsWith(otherMap)
+                && result instanceof CopyOnWriteMap) {
+            ((CopyOnWriteMap<K, V>) result).shareContentsOf((CopyOnWriteMap<K, V>) thisMap);
+            return;
         }
-        for (Map.Entry<MethodCall, V> e : other.methodValues.entrySet()) {
-            // information about methods that are only part of one store, but
-            // not the other are discarded, as one store implicitly contains
-            // 'top' for that field.
-            FlowExpressions.MethodCall el = e.getKey();
-            V thisVal = methodValues.get(el);
+        for (Map.Entry<K, V> e : otherMap.entrySet()) {
+            K key = e.getKey();
+            V thisVal = thisMap.get(key);
             if (thisVal != null) {
                 V otherVal = e.getValue();
-                V mergedVal = upperBoundOfValues(otherVal, thisVal, shouldWiden);
-                if (mergedVal != null) {
-                    newStore.methodValues.put(el, mergedVal);
+                V mergedVal;
+                if (copyOnWrite && !shouldWiden && thisVal == otherVal) {
+                    mergedVal = thisVal;
+                } else {
+                    mergedVal = upperBoundOfValues(otherVal, thisVal, shouldWiden);
                 }
-            }
-        }
-        for (Map.Entry<FlowExpressions.ClassName, V> e : other.classValues.entrySet()) {
-            FlowExpressions.ClassName el = e.getKey();
-            V thisVal = classValues.get(el);
-            if (thisVal != null) {
-                V otherVal = e.getValue();
-                V mergedVal = upperBoundOfValues(otherVal, thisVal, shouldWiden);
                 if (mergedVal != null) {
-                    newStore.classValues.put(el, mergedVal);
+                    result.put(key, mergedVal);
                 }
             }
         }
-        return newStore;
     }
 
     private V upperBoundOfValues(V otherVal, V thisVal, boolean shouldWiden) {
@@ -957,37 +984,28 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
      * equals predicate.
      */
     protected boolean supersetOf(CFAbstractStore<V, S> other) {
-        for (Map.Entry<FlowExpressions.LocalVariable, V> e : other.localVariableValues.entrySet()) {
-            FlowExpressions.LocalVariable key = e.getKey();
-            V value = localVariableValues.get(key);
-            if (value == null || !value.equals(e.getValue())) {
-                return false;
-            }
-        }
-        for (Map.Entry<FlowExpressions.FieldAccess, V> e : other.fieldValues.entrySet()) {
-            FlowExpressions.FieldAccess key = e.getKey();
-            V value = fieldValues.get(key);
-            if (value == null || !value.equals(e.getValue())) {
-                return false;
-            }
-        }
-        for (Map.Entry<FlowExpressions.ArrayAccess, V> e : other.arrayValues.entrySet()) {
-            FlowExpressions.ArrayAccess key = e.getKey();
-            V value = arrayValues.get(key);
-            if (value == null || !value.equals(e.getValue())) {
-                return false;
-            }
-        }
-        for (Map.Entry<MethodCall, V> e : other.methodValues.entrySet()) {
-            FlowExpressions.MethodCall key = e.getKey();
-            V value = methodValues.get(key);
-            if (value == null || !value.equals(e.getValue())) {
-                return false;
-            }
+        return supersetOf(localVariableValues, other.localVariableValues)
+                && supersetOf(fieldValues, other.fieldValues)
+                && supersetOf(arrayValues, other.arrayValues)
+                && supersetOf(methodValues, other.methodValues)
+                && supersetOf(classValues, other.classValues);
+    }
+
+    /**
+     * Returns true iff {@code thisMap} contains a superset of the map entries of {@code otherMap}.
+     *
+     * @param <K> the type of keys
+     * @param thisMap a map of this store
+     * @param otherMap the corresponding map of the other store
+     * @return true iff {@code thisMap} contains every entry of {@code otherMap}
+     */
+    private static <K, V> boolean supersetOf(Map<K, V> thisMap, Map<K, V> otherMap) {
+        if (thisMap instanceof CopyOnWriteMap
+                && ((CopyOnWriteMap<K, V>) thisMap).sharesContentsWith(otherMap)) {
+            return true;
         }
-        for (Map.Entry<FlowExpressions.ClassName, V> e : other.classValues.entrySet()) {
-            FlowExpressions.ClassName key = e.getKey();
-            V value = classValues.get(key);
+        for (Map.Entry<K, V> e : otherMap.entrySet()) {
+            V value = thisMap.get(e.getKey());
             if (value == null || !value.equals(e.getValue())) {
                 return false;
             }
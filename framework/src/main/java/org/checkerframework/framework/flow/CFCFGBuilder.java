@@ -8,21 +8,27 @@ import com.sun.source.tree.MethodInvocationTree;
 import com.sun.source.tree.MethodTree;
 import com.sun.source.tree.Tree;
 import com.sun.source.tree.VariableTree;
+import java.lang.annotation.Annotation;
 import java.util.Collection;
 import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.common.basetype.BaseTypeChecker;
 import org.checkerframework.dataflow.cfg.CFGBuilder;
 import org.checkerframework.dataflow.cfg.ControlFlowGraph;
 import org.checkerframework.dataflow.cfg.UnderlyingAST;
+import org.checkerframework.dataflow.qual.TerminatesExecution;
 import org.checkerframework.framework.source.SourceChecker;
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
 import org.checkerframework.framework.type.AnnotatedTypeMirror;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedArrayType;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedWildcardType;
+import org.checkerframework.javacutil.AnnotationProvider;
+import org.checkerframework.javacutil.Pair;
 import org.checkerframework.javacutil.TreeUtils;
 import org.checkerframework.javacutil.UserError;
 
@@ -41,6 +47,28 @@ public class CFCFGBuilder extends CFGBuilder {
             BaseTypeChecker checker,
             AnnotatedTypeFactory factory,
             ProcessingEnvironment env) {
+        return build(root, underlyingAST, checker, factory, env, null);
+    }
+
+    /**
+     * Build the control flow graph of some code, and record the facts about the checker and type
+     * factory that the graph depends on.
+     *
+     * @param root the compilation unit that contains the code
+     * @param underlyingAST the code
+     * @param checker the checker for which to build the graph
+     * @param factory the type factory of {@code checker}
+     * @param env the processing environment
+     * @param dependencies where to record the facts that the graph depends on, or null
+     * @return the control flow graph of the code
+     */
+    static ControlFlowGraph build(
+            CompilationUnitTree root,
+            UnderlyingAST underlyingAST,
+            BaseTypeChecker checker,
+            AnnotatedTypeFactory factory,
+            ProcessingEnvironment env,
+            CFGCache.@Nullable Dependencies dependencies) {
         boolean assumeAssertionsEnabled = checker.hasOption("assumeAssertionsAreEnabled");
         boolean assumeAssertionsDisabled = checker.hasOption("assumeAssertionsAreDisabled");
         if (assumeAssertionsEnabled && assumeAssertionsDisabled) {
@@ -49,20 +77,53 @@ public class CFCFGBuilder extends CFGBuilder {
         }
 
         CFTreeBuilder builder = new CFTreeBuilder(env);
-        PhaseOneResult phase1result =
+        CFCFGTranslationPhaseOne phase1 =
                 new CFCFGTranslationPhaseOne(
-                                builder,
-                                checker,
-                                factory,
-                                assumeAssertionsEnabled,
-                                assumeAssertionsDisabled,
-                                env)
-                        .process(root, underlyingAST);
+                        builder,
+                        checker,
+                        factory,
+                        dependencies == null
+                                ? factory
+                                : recordingAnnotationProvider(factory, dependencies),
+                        assumeAssertionsEnabled,
+                        assumeAssertionsDisabled,
+                        env);
+        phase1.dependencies = dependencies;
+        PhaseOneResult phase1result = phase1.process(root, underlyingAST);
         ControlFlowGraph phase2result = CFGTranslationPhaseTwo.process(phase1result);
         ControlFlowGraph phase3result = CFGTranslationPhaseThree.process(phase2result);
         return phase3result;
     }
 
+    /**
+     * Returns an annotation provider that delegates to {@code factory}, and records in {@code
+     * dependencies} which methods are annotated with {@link TerminatesExecution}.
+     *
+     * @param factory the type factory
+     * @param dependencies where to record the queries
+     * @return an annotation provider that records queries for {@link TerminatesExecution}
+     */
+    private static AnnotationProvider recordingAnnotationProvider(
+            AnnotatedTypeFactory factory, CFGCache.Dependencies dependencies) {
+        return new AnnotationProvider() {
+            @Override
+            public @Nullable AnnotationMirror getDeclAnnotation(
+                    Element elt, Class<? extends Annotation> anno) {
+                AnnotationMirror result = factory.getDeclAnnotation(elt, anno);
+                if (anno == TerminatesExecution.class) {
+                    dependencies.terminatesExecution.put(elt, result != null);
+                }
+                return result;
+            }
+
+            @Override
+            public @Nullable AnnotationMirror getAnnotationMirror(
+                    Tree tree, Class<? extends Annotation> target) {
+                return factory.getAnnotationMirror(tree, target);
+            }
+        };
+    }
+
     /*
      * Given a SourceChecker and an AssertTree, returns whether the AssertTree
      * uses an @AssumeAssertion string that is relevant to the SourceChecker.
@@ -91,6 +152,9 @@ public class CFCFGBuilder extends CFGBuilder {
         /** Type factory to provide types used during CFG building. */
         protected final AnnotatedTypeFactory factory;
 
+        /** Where to record the facts that the graph depends on, or null. */
+        private CFGCache.@Nullable Dependencies dependencies = null;
+
         public CFCFGTranslationPhaseOne(
                 CFTreeBuilder builder,
                 BaseTypeChecker checker,
@@ -98,13 +162,55 @@ public class CFCFGBuilder extends CFGBuilder {
                 boolean assumeAssertionsEnabled,
                 boolean assumeAssertionsDisabled,
                 ProcessingEnvironment env) {
-            super(builder, factory, assumeAssertionsEnabled, assumeAssertionsDisabled, env);
+            this(
+                    builder,
+                    checker,
+                    factory,
+                    factory,
+                    assumeAssertionsEnabled,
+                    assumeAssertionsDisabled,
+                    env);
+        }
+
+        /**
+         * Creates a translation phase that uses the given annotation provider rather than the type
+         * factory to look up declaration annotations.
+         *
+         * @param builder builder for new AST nodes
+         * @param checker the associated checker
+         * @param factory type factory to provide types used during CFG building
+         * @param annotationProvider extracts annotations from AST nodes
+         * @param assumeAssertionsEnabled can assertions be assumed to be enabled?
+         * @param assumeAssertionsDisabled can assertions be assumed to be disabled?
+         * @param env annotation processing environment containing type utilities
+         */
+        private CFCFGTranslationPhaseOne(
+                CFTreeBuilder builder,
+                BaseTypeChecker checker,
+                AnnotatedTypeFactory factory,
+                AnnotationProvider annotationProvider,
+                boolean assumeAssertionsEnabled,
+                boolean assumeAssertionsDisabled,
+                ProcessingEnvironment env) {
+            super(
+                    builder,
+                    annotationProvider,
+                    assumeAssertionsEnabled,
+                    assumeAssertionsDisabled,
+                    env);
             this.checker = checker;
             this.factory = factory;
         }
 
         @Override
         protected boolean assumeAssertionsEnabledFor(AssertTree tree) {
+            ExpressionTree detail = tree.getDetail();
+            if (dependencies != null
+                    && detail != null
+                    && detail.toString().contains("@AssumeAssertion(")) {
+                // Whether the assertion applies depends on the checker.
+                dependencies.checkerSpecific = true;
+            }
             if (assumeAssertionsActivatedForAssertTree(checker, tree)) {
                 return true;
             }
@@ -117,19 +223,37 @@ public class CFCFGBuilder extends CFGBuilder {
             MethodTree enclosingMethod = TreeUtils.enclosingMethod(getCurrentPath());
             if (enclosingMethod != null) {
                 Element methodElement = TreeUtils.elementFromDeclaration(enclosingMethod);
-                factory.setEnclosingElementForArtificialTree(tree, methodElement);
+                setEnclosingElementForArtificialTree(tree, methodElement);
             } else {
                 ClassTree enclosingClass = TreeUtils.enclosingClass(getCurrentPath());
                 if (enclosingClass != null) {
                     Element classElement = TreeUtils.elementFromDeclaration(enclosingClass);
-                    factory.setEnclosingElementForArtificialTree(tree, classElement);
+                    setEnclosingElementForArtificialTree(tree, classElement);
                 }
             }
         }
 
+        /**
+         * Records the enclosing element of an artificial tree in the type factory and, if the
+         * graph may be shared, in its dependencies.
+         *
+         * @param tree an artificial tree
+         * @param enclosing the element that encloses {@code tree}
+         */
+        private void setEnclosingElementForArtificialTree(Tree tree, Element enclosing) {
+            factory.setEnclosingElementForArtificialTree(tree, enclosing);
+            if (dependencies != null) {
+                dependencies.artificialTrees.add(Pair.of(tree, enclosing));
+            }
+        }
+
         @Override
         protected VariableTree createEnhancedForLoopIteratorVariable(
                 MethodInvocationTree iteratorCall, VariableElement variableElement) {
+            if (dependencies != null) {
+                // The type of the variable is an annotated type of this type factory.
+                dependencies.checkerSpecific = true;
+            }
             // We do not want to cache flow-insensitive types
             // retrieved during CFG building.
             boolean oldShouldCache = factory.shouldCache;
@@ -154,6 +278,10 @@ public class CFCFGBuilder extends CFGBuilder {
         @Override
         protected VariableTree createEnhancedForLoopArrayVariable(
                 ExpressionTree expression, VariableElement variableElement) {
+            if (dependencies != null) {
+                // The type of the variable is an annotated type of this type factory.
+                dependencies.checkerSpecific = true;
+            }
             // We do not want to cache flow-insensitive types
             // retrieved during CFG building.
             boolean oldShouldCache = factory.shouldCache;
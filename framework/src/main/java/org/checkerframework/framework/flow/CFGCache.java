@@ -0,0 +1,175 @@
+package org.checkerframework.framework.flow;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.Tree;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import org.checkerframework.common.basetype.BaseTypeChecker;
+import org.checkerframework.dataflow.cfg.ControlFlowGraph;
+import org.checkerframework.dataflow.cfg.UnderlyingAST;
+import org.checkerframework.dataflow.qual.TerminatesExecution;
+import org.checkerframework.framework.type.AnnotatedTypeFactory;
+import org.checkerframework.javacutil.Pair;
+
+/**
+ * Control-flow graphs that are shared by a checker and its subcheckers, or by the component
+ * checkers of an {@link org.checkerframework.framework.source.AggregateChecker}. Building a
+ * control-flow graph does not depend on the type system, except in a few cases, so a checker with
+ * subcheckers (such as the Index Checker) need not build the graph of the same code once per
+ * subchecker.
+ *
+ * <p>A graph is shared only if it does not depend on the checker or type factory that built it,
+ * apart from facts that are recorded with the graph and checked when it is reused:
+ *
+ * <ul>
+ *   <li>The {@code -AassumeAssertionsAreEnabled} and {@code -AassumeAssertionsAreDisabled}
+ *       options.
+ *   <li>Which invoked methods are annotated with {@link TerminatesExecution}, which may differ
+ *       between checkers that use different stub files.
+ *   <li>The enclosing elements of the artificial trees that the graph contains, which are
+ *       recorded in each type factory that uses the graph.
+ * </ul>
+ *
+ * <p>A graph that contains an enhanced for loop (whose artificial variables have trees with the
+ * annotated types of one type factory) or an {@code assert} with an {@code @AssumeAssertion}
+ * detail message (which is interpreted per checker) is never shared.
+ *
+ * <p>The graphs of the code in one compilation unit are shared; {@link #clear} is called when the
+ * next compilation unit is processed.
+ */
+public final class CFGCache {
+
+    /** The shareable graphs, indexed by the code that they represent. */
+    private final Map<Tree, Entry> cfgs = new IdentityHashMap<>();
+
+    /** The number of graphs that were reused. */
+    private long hits = 0;
+
+    /** The number of graphs that were built. */
+    private long misses = 0;
+
+    /** A shareable control-flow graph, and the facts that it depends on. */
+    private static final class Entry {
+        /** The control-flow graph. */
+        final ControlFlowGraph cfg;
+
+        /** Whether the graph was built with the -AassumeAssertionsAreEnabled option. */
+        final boolean assumeAssertionsEnabled;
+
+        /** Whether the graph was built with the -AassumeAssertionsAreDisabled option. */
+        final boolean assumeAssertionsDisabled;
+
+        /** The facts that the graph depends on. */
+        final Dependencies dependencies;
+
+        /**
+         * Creates an entry.
+         *
+         * @param cfg the control-flow graph
+         * @param checker the checker that built the graph
+         * @param dependencies the facts that the graph depends on
+         */
+        Entry(ControlFlowGraph cfg, BaseTypeChecker checker, Dependencies dependencies) {
+            this.cfg = cfg;
+            this.assumeAssertionsEnabled = checker.hasOption("assumeAssertionsAreEnabled");
+            this.assumeAssertionsDisabled = checker.hasOption("assumeAssertionsAreDisabled");
+            this.dependencies = dependencies;
+        }
+
+        /**
+         * Returns true if the graph is the graph that {@code checker} and {@code factory} would
+         * build.
+         *
+         * @param checker a checker
+         * @param factory the type factory of {@code checker}
+         * @return true if {@code checker} can use the graph
+         */
+        boolean isValidFor(BaseTypeChecker checker, AnnotatedTypeFactory factory) {
+            if (assumeAssertionsEnabled != checker.hasOption("assumeAssertionsAreEnabled")
+                    || assumeAssertionsDisabled
+                            != checker.hasOption("assumeAssertionsAreDisabled")) {
+                return false;
+            }
+            for (Map.Entry<Element, Boolean> e : dependencies.terminatesExecution.entrySet()) {
+                boolean terminates =
+                        factory.getDeclAnnotation(e.getKey(), TerminatesExecution.class) != null;
+                if (terminates != e.getValue()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * The facts about a checker and its type factory that a control-flow graph depends on. {@link
+     * CFCFGBuilder} records them while it builds a graph.
+     */
+    static final class Dependencies {
+        /** The artificial trees in the graph, and their enclosing elements. */
+        final List<Pair<Tree, Element>> artificialTrees = new ArrayList<>();
+
+        /**
+         * The invoked methods, and whether they are annotated with {@link TerminatesExecution}.
+         */
+        final Map<Element, Boolean> terminatesExecution = new HashMap<>();
+
+        /** True if the graph depends on the checker in a way that is not recorded. */
+        boolean checkerSpecific = false;
+    }
+
+    /**
+     * Returns the control-flow graph of some code, building it only if no checker that shares this
+     * cache has built an identical graph.
+     *
+     * @param root the compilation unit that contains the code
+     * @param underlyingAST the code
+     * @param checker the checker for which to build the graph
+     * @param factory the type factory of {@code checker}
+     * @param env the processing environment
+     * @return the control-flow graph of the code
+     */
+    public ControlFlowGraph getCFG(
+            CompilationUnitTree root,
+            UnderlyingAST underlyingAST,
+            BaseTypeChecker checker,
+            AnnotatedTypeFactory factory,
+            ProcessingEnvironment env) {
+        Tree code = underlyingAST.getCode();
+        Entry entry = cfgs.get(code);
+        if (entry != null && entry.isValidFor(checker, factory)) {
+            hits++;
+            for (Pair<Tree, Element> artificial : entry.dependencies.artificialTrees) {
+                factory.setEnclosingElementForArtificialTree(artificial.first, artificial.second);
+            }
+            return entry.cfg;
+        }
+        misses++;
+        Dependencies dependencies = new Dependencies();
+        ControlFlowGraph cfg =
+                CFCFGBuilder.build(root, underlyingAST, checker, factory, env, dependencies);
+        if (entry == null && !dependencies.checkerSpecific) {
+            cfgs.put(code, new Entry(cfg, checker, dependencies));
+        }
+        return cfg;
+    }
+
+    /** Discards all graphs. */
+    public void clear() {
+        cfgs.clear();
+    }
+
+    /**
+     * Returns a description of how effective this cache has been.
+     *
+     * @return the number of graphs that were reused and built
+     */
+    public String statistics() {
+        return String.format("Shared CFG cache: %d reused, %d built", hits, misses);
+    }
+}
@@ -0,0 +1,273 @@
+package org.checkerframework.framework.flow;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A {@link Map} whose copies share their contents until one of them is modified. Copying a {@code
+ * CopyOnWriteMap} with {@link #copy()} takes constant time; the first modification of a copy (or
+ * of the original) after the copy was made duplicates the underlying {@link HashMap}.
+ *
+ * <p>{@link CFAbstractStore} uses this class for its maps when the {@code -AcopyOnWriteStores}
+ * command-line option is supplied. Stores are copied much more often than they are modified, so
+ * most copies never need to duplicate their contents.
+ *
+ * <p>All modifications, including those made through {@link #entrySet()}, {@link #keySet()},
+ * {@link #values()}, their iterators, and {@link Map.Entry#setValue}, are supported. As with
+ * {@link HashMap}, this class is not thread-safe.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+final class CopyOnWriteMap<K, V> extends AbstractMap<K, V> {
+
+    /**
+     * The contents of a {@link CopyOnWriteMap}. A snapshot that is shared by more than one map is
+     * never modified.
+     */
+    private static final class Snapshot<K, V> {
+        /** The mappings. */
+        final HashMap<K, V> map;
+
+        /** True if more than one {@link CopyOnWriteMap} may refer to this snapshot. */
+        boolean shared = false;
+
+        /**
+         * Creates a snapshot with the given mappings.
+         *
+         * @param map the mappings; the snapshot takes ownership of it
+         */
+        Snapshot(HashMap<K, V> map) {
+            this.map = map;
+        }
+    }
+
+    /** The current contents of this map. */
+    private Snapshot<K, V> snapshot;
+
+    /** The entry set view of this map, created lazily. */
+    private @Nullable Set<Map.Entry<K, V>> entrySet = null;
+
+    /** Creates an empty map. */
+    CopyOnWriteMap() {
+        this.snapshot = new Snapshot<>(new HashMap<>());
+    }
+
+    /**
+     * Creates a map that shares the given contents.
+     *
+     * @param snapshot the contents, which must already be marked as shared
+     */
+    private CopyOnWriteMap(Snapshot<K, V> snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Returns a copy of this map in constant time. The copy and this map share their contents until
+     * either of them is modified.
+     *
+     * @return a copy of this map
+     */
+    CopyOnWriteMap<K, V> copy() {
+        snapshot.shared = true;
+        return new CopyOnWriteMap<>(snapshot);
+    }
+
+    /**
+     * Returns true if this map and {@code other} share their contents, which implies that they
+     * have the same mappings.
+     *
+     * @param other another map
+     * @return true if this map and {@code other} are known to have the same mappings without
+     *     comparing them
+     */
+    boolean sharesContentsWith(Map<?, ?> other) {
+        return other instanceof CopyOnWriteMap
+                && ((CopyOnWriteMap<?, ?>) other).snapshot == snapshot;
+    }
+
+    /**
+     * Discards the contents of this map and makes it share the contents of {@code other} instead.
+     *
+     * @param other the map whose contents to share
+     */
+    void shareContentsOf(CopyOnWriteMap<K, V> other) {
+        other.snapshot.shared = true;
+        this.snapshot = other.snapshot;
+    }
+
+    /**
+     * Ensures that this map is the only owner of its contents, so that they can be modified.
+     *
+     * @return the mappings of this map, which may be modified
+     */
+    private HashMap<K, V> mutableMap() {
+        if (snapshot.shared) {
+            snapshot = new Snapshot<>(new HashMap<>(snapshot.map));
+        }
+        return snapshot.map;
+    }
+
+    @Override
+    public int size() {
+        return snapshot.map.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return snapshot.map.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return snapshot.map.containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        return snapshot.map.containsValue(value);
+    }
+
+    @Override
+    public V get(Object key) {
+        return snapshot.map.get(key);
+    }
+
+    @Override
+    public V put(K key, V value) {
+        return mutableMap().put(key, value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        if (!snapshot.map.containsKey(key)) {
+            return null;
+        }
+        return mutableMap().remove(key);
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        if (!m.isEmpty()) {
+            mutableMap().putAll(m);
+        }
+    }
+
+    @Override
+    public void clear() {
+        if (snapshot.shared) {
+            snapshot = new Snapshot<>(new HashMap<>());
+        } else {
+            snapshot.map.clear();
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    /** The entry set view of a {@link CopyOnWriteMap}. */
+    private final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+        @Override
+        public int size() {
+            return CopyOnWriteMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return snapshot.map.entrySet().contains(o);
+        }
+
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public void clear() {
+            CopyOnWriteMap.this.clear();
+        }
+    }
+
+    /**
+     * An iterator over the entries of a {@link CopyOnWriteMap}. It iterates over the snapshot that
+     * was current when the iterator was created. If that snapshot becomes shared during the
+     * iteration, removals are applied to this map's private copy instead.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+        /** The snapshot being iterated over. */
+        private final Snapshot<K, V> iterated = snapshot;
+
+        /** The iterator over {@link #iterated}. */
+        private final Iterator<Map.Entry<K, V>> it = iterated.map.entrySet().iterator();
+
+        /** The key of the entry most recently returned by {@link #next()}, if not yet removed. */
+        private @Nullable K lastKey = null;
+
+        /** True if {@link #lastKey} is valid. */
+        private boolean canRemove = false;
+
+        @Override
+        public boolean hasNext() {
+            return it.hasNext();
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (!it.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Map.Entry<K, V> e = it.next();
+            lastKey = e.getKey();
+            canRemove = true;
+            return new Entry(e.getKey(), e.getValue());
+        }
+
+        @Override
+        public void remove() {
+            if (!canRemove) {
+                throw new IllegalStateException();
+            }
+            if (iterated == snapshot && !snapshot.shared) {
+                it.remove();
+            } else {
+                mutableMap().remove(lastKey);
+            }
+            canRemove = false;
+        }
+    }
+
+    /** An entry of a {@link CopyOnWriteMap}; {@link #setValue} writes through to the map. */
+    private final class Entry extends AbstractMap.SimpleEntry<K, V> {
+        /** Serial version UID. */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Creates an entry.
+         *
+         * @param key the key
+         * @param value the value
+         */
+        Entry(K key, V value) {
+            super(key, value);
+        }
+
+        @Override
+        public V setValue(V value) {
+            // Replacing the value of an existing key is not a structural modification, so this is
+            // safe during an iteration.
+            put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+}
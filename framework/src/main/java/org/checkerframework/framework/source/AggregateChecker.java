@@ -1,5 +1,6 @@
 package org.checkerframework.framework.source;
 
+import com.sun.source.tree.CompilationUnitTree;
 import com.sun.source.util.TreePath;
 import com.sun.tools.javac.processing.JavacProcessingEnvironment;
 import com.sun.tools.javac.util.Context;
@@ -15,6 +16,10 @@ import java.util.Set;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.TypeElement;
 import javax.tools.Diagnostic.Kind;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.common.basetype.BaseTypeChecker;
+import org.checkerframework.framework.flow.CFGCache;
+import org.checkerframework.framework.util.TreePathCacher;
 
 /**
  * An aggregate checker that packages multiple checkers together. The resulting checker invokes the
@@ -26,6 +31,10 @@ import javax.tools.Diagnostic.Kind;
  *
  * <p>This class delegates {@code AbstractTypeProcessor} responsibilities to each component checker.
  *
+ * <p>The component checkers that are {@link BaseTypeChecker}s share the tree paths and control-flow
+ * graphs of the compilation unit that they check, because these are computed from the trees alone
+ * (see {@link CFGCache}).
+ *
  * <p>Checker writers need to subclass this class and only override {@link #getSupportedCheckers()}
  * to indicate the classes of the checkers to be bundled.
  */
@@ -33,6 +42,17 @@ public abstract class AggregateChecker extends SourceChecker {
 
     protected final List<SourceChecker> checkers;
 
+    /** The tree paths of the current compilation unit, shared by the component checkers. */
+    private final TreePathCacher treePathCacher = new TreePathCacher();
+
+    /**
+     * The control-flow graphs of the current compilation unit, shared by the component checkers.
+     */
+    private final CFGCache cfgCache = new CFGCache();
+
+    /** The compilation unit that the component checkers last checked, or null if none. */
+    private @Nullable CompilationUnitTree lastRoot = null;
+
     /**
      * Returns the list of supported checkers to be run together. Subclasses need to override this
      * method.
@@ -48,6 +68,9 @@ public abstract class AggregateChecker extends SourceChecker {
             try {
                 SourceChecker instance = checkerClass.getDeclaredConstructor().newInstance();
                 instance.setParentChecker(this);
+                if (instance instanceof BaseTypeChecker) {
+                    ((BaseTypeChecker) instance).shareCaches(treePathCacher, cfgCache);
+                }
                 checkers.add(instance);
             } catch (Exception e) {
                 message(Kind.ERROR, "Couldn't instantiate an instance of " + checkerClass);
@@ -112,6 +135,12 @@ public abstract class AggregateChecker extends SourceChecker {
             // error was already output. Just quit.
             return;
         }
+        if (tree.getCompilationUnit() != lastRoot) {
+            // The component checkers do not clear the shared caches, because they have a parent.
+            lastRoot = tree.getCompilationUnit();
+            treePathCacher.clear();
+            cfgCache.clear();
+        }
         for (SourceChecker checker : checkers) {
             checker.errsOnLastExit = this.errsOnLastExit;
             checker.typeProcess(element, tree);
@@ -127,6 +156,17 @@ public abstract class AggregateChecker extends SourceChecker {
         super.typeProcessingOver();
     }
 
+    @Override
+    protected void printStats() {
+        super.printStats();
+        System.out.println(cfgCache.statistics());
+        for (SourceChecker checker : checkers) {
+            if (checker instanceof BaseTypeChecker) {
+                ((BaseTypeChecker) checker).printDependentTypesStats();
+            }
+        }
+    }
+
     @Override
     public final Set<String> getSupportedOptions() {
         Set<String> options = new HashSet<>();
@@ -0,0 +1,93 @@
+package org.checkerframework.framework.source;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreePathScanner;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.javacutil.TreeUtils;
+
+/**
+ * Maps every tree of a compilation unit to the innermost variable, method, or class declaration
+ * that contains it. {@link SourceChecker#shouldSuppressWarnings(Tree, String)} uses it to find the
+ * declarations whose {@code @SuppressWarnings} annotations apply to a tree, instead of searching
+ * the compilation unit for the tree each time a warning is reported.
+ *
+ * <p>The index is built by a single scan of the compilation unit, the first time that it is
+ * needed. A lookup gives the same declarations as {@link TreePath#getPath(CompilationUnitTree,
+ * Tree)}: a tree that appears more than once in the compilation unit is mapped to the declaration
+ * that contains its first occurrence, and a tree that is not part of the compilation unit is not
+ * mapped at all.
+ */
+final class DeclarationIndex {
+
+    /** The path to the compilation unit. */
+    private final TreePath rootPath;
+
+    /**
+     * Maps each tree of the compilation unit to the path to the innermost declaration that
+     * contains it, or to {@link #rootPath} if no declaration contains it. A declaration is mapped
+     * to its own path.
+     */
+    private final Map<Tree, TreePath> declarations = new IdentityHashMap<>();
+
+    /**
+     * Builds the index of a compilation unit.
+     *
+     * @param root the compilation unit
+     */
+    DeclarationIndex(CompilationUnitTree root) {
+        this.rootPath = new TreePath(root);
+        declarations.put(root, rootPath);
+        new TreePathScanner<Void, Void>() {
+            /** The path to the innermost declaration that contains the tree being scanned. */
+            private TreePath declaration = rootPath;
+
+            @Override
+            public Void scan(Tree tree, Void p) {
+                if (tree == null) {
+                    return null;
+                }
+                TreePath enclosing = declaration;
+                if (isDeclaration(tree)) {
+                    declaration = new TreePath(getCurrentPath(), tree);
+                }
+                try {
+                    declarations.putIfAbsent(tree, declaration);
+                    return super.scan(tree, p);
+                } finally {
+                    declaration = enclosing;
+                }
+            }
+        }.scan(rootPath, null);
+    }
+
+    /**
+     * Returns true if the tree is a variable, method, or class declaration.
+     *
+     * @param tree a tree
+     * @return true if {@code tree} is a declaration that may have a {@code @SuppressWarnings}
+     *     annotation
+     */
+    private static boolean isDeclaration(Tree tree) {
+        Tree.Kind kind = tree.getKind();
+        return kind == Tree.Kind.VARIABLE
+                || kind == Tree.Kind.METHOD
+                || TreeUtils.classTreeKinds().contains(kind);
+    }
+
+    /**
+     * Returns the path to the innermost variable, method, or class declaration that contains a
+     * tree. The declarations on the path are the same as those on the path to the tree itself.
+     *
+     * @param tree a tree
+     * @return the path to the innermost declaration that contains {@code tree} (which is {@code
+     *     tree} itself if it is a declaration), the path to the compilation unit if no declaration
+     *     contains {@code tree}, or null if {@code tree} is not part of the compilation unit
+     */
+    @Nullable TreePath getEnclosingDeclaration(Tree tree) {
+        return declarations.get(tree);
+    }
+}
@@ -54,13 +54,18 @@ import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
 import javax.tools.Diagnostic.Kind;
 import org.checkerframework.checker.compilermsgs.qual.CompilerMessageKey;
+import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.common.basetype.BaseTypeChecker;
+import org.checkerframework.common.wholeprograminference.WholeProgramInferenceSession;
 import org.checkerframework.framework.qual.AnnotatedFor;
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
 import org.checkerframework.framework.util.CFContext;
 import org.checkerframework.framework.util.CheckerMain;
+import org.checkerframework.framework.util.CheckingProfiler;
+import org.checkerframework.framework.util.FlowExpressionParseUtil;
 import org.checkerframework.framework.util.OptionConfiguration;
+import org.checkerframework.framework.util.ParallelCheckingDriver;
 import org.checkerframework.javacutil.AbstractTypeProcessor;
 import org.checkerframework.javacutil.AnnotationProvider;
 import org.checkerframework.javacutil.AnnotationUtils;
@@ -245,6 +250,14 @@ import org.plumelib.util.UtilPlume;
     // Already listed above, but worth noting again in this section:
     // "useConservativeDefaultsForUncheckedCode"
 
+    ///
+    /// Performance
+    ///
+
+    // Use copy-on-write maps in dataflow stores, so that copying a store is cheap
+    // org.checkerframework.framework.flow.CFAbstractStore.newMap
+    "copyOnWriteStores",
+
     ///
     /// Debugging
     ///
@@ -353,12 +366,22 @@ import org.plumelib.util.UtilPlume;
     // Sets AnnotatedTypeFactory shouldCache to false
     "atfDoNotCache",
 
+    // Makes a checker build its own control-flow graphs instead of sharing them with its
+    // subcheckers or the other checkers of an AggregateChecker
+    // org.checkerframework.common.basetype.BaseTypeChecker.getCFGCache()
+    "cfgDoNotShare",
+
     /// Miscellaneous debugging options
 
     // Whether to output resource statistics at JVM shutdown
     // org.checkerframework.framework.source.SourceChecker.shutdownHook()
     "resourceStats",
 
+    // Whether to output, at JVM shutdown, the time and allocation of each phase of type-checking,
+    // per compilation unit and for the slowest methods. -AprofileChecking=json outputs JSON.
+    // org.checkerframework.framework.util.CheckingProfiler
+    "profileChecking",
+
     // Parse all JDK files at startup rather than as needed.
     "parseAllJdk"
 })
@@ -400,6 +423,12 @@ public abstract class SourceChecker extends AbstractTypeProcessor
     /** The source tree that is being scanned. */
     protected CompilationUnitTree currentRoot;
 
+    /**
+     * The enclosing declarations of the trees in {@link #currentRoot}, or null if they have not
+     * been needed yet. Do not use directly; call {@link #getDeclarationIndex()}.
+     */
+    private @Nullable DeclarationIndex declarationIndex;
+
     /**
      * If an error is detected in a CompilationUnitTree, skip all future calls of {@link
      * #typeProcess} with that same CompilationUnitTree.
@@ -409,12 +438,25 @@ public abstract class SourceChecker extends AbstractTypeProcessor
     /** The visitor to use. */
     protected SourceVisitor<?, ?> visitor;
 
+    /** The profiler of this checker. Do not use directly; call {@link #getProfiler()}. */
+    private @MonotonicNonNull CheckingProfiler profiler;
+
+    /** The number of slowest methods listed in the report of {@code -AprofileChecking}. */
+    private static final int PROFILE_TOP_METHODS = 20;
+
     /**
      * SuppressWarnings strings supplied via the -AsuppressWarnings option. Do not use directly,
      * call {@link #getSuppressWarningsStringsFromOption()}.
      */
     private String @Nullable [] suppressWarningsStringsFromOption;
 
+    /**
+     * The lowercased strings of the {@code @SuppressWarnings} annotation of each element for which
+     * they have been needed, or an empty array if the element has no such annotation. Do not use
+     * directly; call {@link #getSuppressWarningsStrings(Element)}.
+     */
+    private final Map<Element, String[]> suppressWarningsStrings = new HashMap<>();
+
     /**
      * Regular expression pattern to specify Java classes that are not annotated, so warnings about
      * uses of them should be suppressed.
@@ -558,7 +600,22 @@ public abstract class SourceChecker extends AbstractTypeProcessor
      */
     protected void setRoot(CompilationUnitTree newRoot) {
         this.currentRoot = newRoot;
+        this.declarationIndex = null;
         visitor.setRoot(currentRoot);
+        getProfiler().setCompilationUnit(newRoot.getSourceFile().getName());
+    }
+
+    /**
+     * Returns the profiler of this checker. It records measurements only if the {@code
+     * -AprofileChecking} command-line option was supplied.
+     *
+     * @return the profiler of this checker
+     */
+    public CheckingProfiler getProfiler() {
+        if (profiler == null) {
+            profiler = new CheckingProfiler(getClass().getName(), hasOption("profileChecking"));
+        }
+        return profiler;
     }
 
     /**
@@ -871,6 +928,15 @@ public abstract class SourceChecker extends AbstractTypeProcessor
             // logged there. Don't also cause a NPE here.
             return;
         }
+        WholeProgramInferenceSession wpiSession = WholeProgramInferenceSession.current();
+        if (wpiSession != null && !wpiSession.shouldAnalyze(p.getCompilationUnit())) {
+            // Analyzing this class again would not change the inferred annotations.
+            return;
+        }
+        if (!ParallelCheckingDriver.shouldCheck(p.getCompilationUnit())) {
+            // Another thread checks this class.
+            return;
+        }
         if (p.getCompilationUnit() != currentRoot) {
             setRoot(p.getCompilationUnit());
             if (hasOption("filenames")) {
@@ -890,6 +956,7 @@ public abstract class SourceChecker extends AbstractTypeProcessor
         }
 
         // Visit the attributed tree.
+        getProfiler().start(CheckingProfiler.Phase.TYPE_CHECKING, null);
         try {
             visitor.visit(p);
             warnUnneededSuppressions();
@@ -900,6 +967,7 @@ public abstract class SourceChecker extends AbstractTypeProcessor
         } catch (Throwable t) {
             logBugInCF(wrapThrowableAsBugInCF("SourceChecker.typeProcess", t, p));
         } finally {
+            getProfiler().stop(CheckingProfiler.Phase.TYPE_CHECKING);
             // Also add possibly deferred diagnostics, which will get published back in
             // AbstractTypeProcessor.
             this.errsOnLastExit = log.nerrors;
@@ -1744,6 +1812,43 @@ public abstract class SourceChecker extends AbstractTypeProcessor
         return this.suppressWarningsStringsFromOption;
     }
 
+    /**
+     * Returns the strings of the {@code @SuppressWarnings} annotation of an element, in lowercase.
+     * The result is cached in field {@link #suppressWarningsStrings}.
+     *
+     * @param elt an element
+     * @return the lowercased strings of the {@code @SuppressWarnings} annotation of {@code elt},
+     *     or an empty array if it has no such annotation; the result must not be modified
+     */
+    private String[] getSuppressWarningsStrings(Element elt) {
+        String[] result = suppressWarningsStrings.get(elt);
+        if (result == null) {
+            SuppressWarnings suppressWarningsAnno = elt.getAnnotation(SuppressWarnings.class);
+            if (suppressWarningsAnno == null) {
+                result = new String[0];
+            } else {
+                String[] strings = suppressWarningsAnno.value();
+                Arrays.setAll(strings, i -> strings[i].toLowerCase());
+                result = strings;
+            }
+            suppressWarningsStrings.put(elt, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the index of the enclosing declarations of the trees in the current compilation
+     * unit, building it the first time it is needed for the compilation unit.
+     *
+     * @return the index of the enclosing declarations of the trees in {@link #currentRoot}
+     */
+    private DeclarationIndex getDeclarationIndex() {
+        if (declarationIndex == null) {
+            declarationIndex = new DeclarationIndex(currentRoot);
+        }
+        return declarationIndex;
+    }
+
     /**
      * Issues a warning about any {@code @SuppressWarnings} that isn't used by this checker, but
      * contains a string that would suppress a warning from this checker.
@@ -1775,6 +1880,9 @@ public abstract class SourceChecker extends AbstractTypeProcessor
         // It's not clear for which checker "all" is intended, so never report it as unused.
         prefixes.remove(SourceChecker.SUPPRESS_ALL_PREFIX);
 
+        // Whether each SuppressWarnings string would suppress some warning of this checker.  The
+        // same strings appear on many declarations, and each test tries every error key.
+        Map<String, Boolean> suppressesSomeWarning = new HashMap<>();
         for (Tree tree : getVisitor().treesWithSuppressWarnings) {
             Element elt = TreeUtils.elementFromTree(tree);
             // TODO: This test is too coarse.  The fact that this @SuppressWarnings suppressed
@@ -1782,15 +1890,21 @@ public abstract class SourceChecker extends AbstractTypeProcessor
             if (elementsSuppress.contains(elt)) {
                 continue;
             }
-            SuppressWarnings suppressAnno = elt.getAnnotation(SuppressWarnings.class);
-            String[] suppressWarningsStrings = suppressAnno.value();
-            Arrays.setAll(suppressWarningsStrings, i -> suppressWarningsStrings[i].toLowerCase());
-            for (String suppressWarningsString : suppressWarningsStrings) {
-                for (String errorKey : allErrorKeys) {
-                    if (shouldSuppress(prefixes, new String[] {suppressWarningsString}, errorKey)) {
-                        reportUnneededSuppression(tree, suppressWarningsString);
-                        break; // Don't report the same warning string more than once.
+            for (String suppressWarningsString : getSuppressWarningsStrings(elt)) {
+                Boolean suppresses = suppressesSomeWarning.get(suppressWarningsString);
+                if (suppresses == null) {
+                    suppresses = false;
+                    for (String errorKey : allErrorKeys) {
+                        if (shouldSuppress(
+                                prefixes, new String[] {suppressWarningsString}, errorKey)) {
+                            suppresses = true;
+                            break;
+                        }
                     }
+                    suppressesSomeWarning.put(suppressWarningsString, suppresses);
+                }
+                if (suppresses) {
+                    reportUnneededSuppression(tree, suppressWarningsString);
                 }
             }
         }
@@ -1883,8 +1997,8 @@ public abstract class SourceChecker extends AbstractTypeProcessor
                     "Checker must provide a SuppressWarnings prefix. SourceChecker#getSuppressWarningsPrefixes was not overridden correctly.");
         }
 
-        // trees.getPath might be slow, but this is only used in error reporting
-        @Nullable TreePath path = trees.getPath(this.currentRoot, tree);
+        // The declarations on this path are those on the path to the tree.
+        @Nullable TreePath path = getDeclarationIndex().getEnclosingDeclaration(tree);
 
         @Nullable VariableTree var = TreeUtils.enclosingVariable(path);
         if (var != null && shouldSuppressWarnings(TreeUtils.elementFromTree(var), errKey)) {
@@ -1999,17 +2113,11 @@ public abstract class SourceChecker extends AbstractTypeProcessor
         }
 
         while (elt != null) {
-            SuppressWarnings suppressWarningsAnno = elt.getAnnotation(SuppressWarnings.class);
-            if (suppressWarningsAnno != null) {
-                String[] suppressWarningsStrings = suppressWarningsAnno.value();
-                Arrays.setAll(
-                        suppressWarningsStrings, i -> suppressWarningsStrings[i].toLowerCase());
-                if (shouldSuppress(suppressWarningsStrings, errKey)) {
-                    if (hasOption("warnUnneededSuppressions")) {
-                        elementsWithSuppressedWarnings.add(elt);
-                    }
-                    return true;
+            if (shouldSuppress(getSuppressWarningsStrings(elt), errKey)) {
+                if (hasOption("warnUnneededSuppressions")) {
+                    elementsWithSuppressedWarnings.add(elt);
                 }
+                return true;
             }
             if (isAnnotatedForThisCheckerOrUpstreamChecker(elt)) {
                 // Return false immediately. Do NOT check for AnnotatedFor in the
@@ -2430,7 +2538,7 @@ public abstract class SourceChecker extends AbstractTypeProcessor
      * @return true to add {@link #shutdownHook} as a shutdown hook of the JVM
      */
     protected boolean shouldAddShutdownHook() {
-        return hasOption("resourceStats");
+        return hasOption("resourceStats") || hasOption("profileChecking");
     }
 
     /**
@@ -2444,6 +2552,24 @@ public abstract class SourceChecker extends AbstractTypeProcessor
             // call the super implementations.
             printStats();
         }
+        if (hasOption("profileChecking")) {
+            printProfile();
+        }
+    }
+
+    /**
+     * Print the measurements of {@link #getProfiler()}, as text or, if {@code
+     * -AprofileChecking=json} was supplied, as one line of JSON.
+     */
+    protected void printProfile() {
+        CheckingProfiler profiler = getProfiler();
+        // Print the whole report at once, because the shutdown hooks of several checkers may run
+        // concurrently.
+        if ("json".equals(getOption("profileChecking"))) {
+            System.out.println(profiler.formatJson(PROFILE_TOP_METHODS));
+        } else {
+            System.out.print(profiler.formatText(PROFILE_TOP_METHODS));
+        }
     }
 
     /** Print resource usage statistics. */
@@ -2454,6 +2580,7 @@ public abstract class SourceChecker extends AbstractTypeProcessor
             System.out.println("  Pool type: " + memoryPool.getType());
             System.out.println("  Peak usage: " + memoryPool.getPeakUsage());
         }
+        System.out.println(FlowExpressionParseUtil.parseCacheStatistics());
     }
 
     ///////////////////////////////////////////////////////////////////////////
@@ -77,6 +77,7 @@ import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedExecutab
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedTypeVariable;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedWildcardType;
 import org.checkerframework.framework.type.AnnotatedTypeReplacer;
+import org.checkerframework.framework.util.CheckingProfiler;
 import org.checkerframework.javacutil.AnnotationBuilder;
 import org.checkerframework.javacutil.AnnotationUtils;
 import org.checkerframework.javacutil.BugInCF;
@@ -458,6 +459,8 @@ public class StubParser {
         StubParser sp =
                 new StubParser(
                         filename, atypeFactory, processingEnv, atypes, declAnnos, isJdkAsStub);
+        CheckingProfiler profiler = atypeFactory.getContext().getChecker().getProfiler();
+        profiler.start(CheckingProfiler.Phase.STUB_PARSING, null);
         try {
             sp.parseStubUnit(inputStream);
             sp.process();
@@ -473,6 +476,8 @@ public class StubParser {
                 message.append(LINE_SEPARATOR);
             }
             sp.stubWarn(message.toString());
+        } finally {
+            profiler.stop(CheckingProfiler.Phase.STUB_PARSING);
         }
     }
 
@@ -2054,7 +2059,7 @@ public class StubParser {
     ///
 
     // The warnings that have been issued so far.
-    private static final Set<String> warnings = new HashSet<>();
+    private static final Set<String> warnings = Collections.synchronizedSet(new HashSet<>());
 
     /**
      * Issues the given warning about missing elements, only if it has not been previously issued
@@ -396,8 +396,23 @@ public class StubTypes {
      */
     private void parseJarEntry(String jarEntryName) {
         JarURLConnection connection = getJarURLConnectionToJdk();
-        parsing = true;
         try (JarFile jarFile = connection.getJarFile()) {
+            parseJarEntry(jarFile, jarEntryName);
+        } catch (IOException e) {
+            throw new BugInCF("cannot open the Jar file " + connection.getEntryName(), e);
+        }
+    }
+
+    /**
+     * Parses the stub file in the given jar entry of an already-open jar file. Callers that parse
+     * several entries should use this method, so that the jar file is opened only once.
+     *
+     * @param jarFile the jar file that contains the annotated JDK
+     * @param jarEntryName name of the jar entry to parse
+     */
+    private void parseJarEntry(JarFile jarFile, String jarEntryName) {
+        parsing = true;
+        try {
             InputStream jdkStub;
             try {
                 jdkStub = jarFile.getInputStream(jarFile.getJarEntry(jarEntryName));
@@ -411,8 +426,6 @@ public class StubTypes {
                     factory.getProcessingEnv(),
                     typesFromStubFiles,
                     declAnnosFromStubFiles);
-        } catch (IOException e) {
-            throw new BugInCF("cannot open the Jar file " + connection.getEntryName(), e);
         } catch (BugInCF e) {
             throw new BugInCF("Exception while parsing " + jarEntryName + ": " + e.getMessage(), e);
         } finally {
@@ -535,7 +548,7 @@ public class StubTypes {
                         && !jarEntry.getName().contains("module-info")) {
                     String jarEntryName = jarEntry.getName();
                     if (parseAllJdkFiles) {
-                        parseJarEntry(jarEntryName);
+                        parseJarEntry(jarFile, jarEntryName);
                         continue;
                     }
                     int index = jarEntry.getName().indexOf("/share/classes/");
@@ -546,7 +559,7 @@ public class StubTypes {
                                     .replace('/', '.');
                     jdkStubFilesJar.put(shortName, jarEntryName);
                     if (jarEntryName.endsWith("package-info.java")) {
-                        parseJarEntry(jarEntryName);
+                        parseJarEntry(jarFile, jarEntryName);
                     }
                 }
             }
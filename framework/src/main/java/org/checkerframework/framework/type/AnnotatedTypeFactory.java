@@ -33,9 +33,11 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.annotation.processing.ProcessingEnvironment;
@@ -65,6 +67,7 @@ import org.checkerframework.common.reflection.MethodValChecker;
 import org.checkerframework.common.reflection.ReflectionResolver;
 import org.checkerframework.common.wholeprograminference.WholeProgramInference;
 import org.checkerframework.common.wholeprograminference.WholeProgramInferenceScenes;
+import org.checkerframework.common.wholeprograminference.WholeProgramInferenceSession;
 import org.checkerframework.dataflow.qual.SideEffectFree;
 import org.checkerframework.framework.qual.FieldInvariant;
 import org.checkerframework.framework.qual.FromStubFile;
@@ -313,7 +316,7 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
             declAliases = new HashMap<>();
 
     /** Unique ID counter; for debugging purposes. */
-    private static int uidCounter = 0;
+    private static final AtomicInteger uidCounter = new AtomicInteger();
 
     /** Unique ID of the current object; for debugging purposes. */
     public final int uid;
@@ -373,6 +376,13 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
     /** Mapping from an Element to the source Tree of the declaration. */
     private final Map<Element, Tree> elementToTreeCache;
 
+    /**
+     * Mapping from a method to the methods that it overrides, indexed by the supertypes that
+     * declare them. See {@link #getOverriddenMethods}.
+     */
+    private final Map<ExecutableElement, Map<AnnotatedDeclaredType, ExecutableElement>>
+            overriddenMethodsCache;
+
     /** Mapping from a Tree to its TreePath. Shared between all instances. */
     private final TreePathCacher treePathCache;
 
@@ -408,7 +418,7 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
      * @throws IllegalArgumentException if either argument is {@code null}
      */
     public AnnotatedTypeFactory(BaseTypeChecker checker) {
-        uid = ++uidCounter;
+        uid = uidCounter.incrementAndGet();
         this.processingEnv = checker.getProcessingEnvironment();
         // this.root = root;
         this.checker = checker;
@@ -436,6 +446,7 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
             this.fromTypeTreeCache = CollectionUtils.createLRUCache(cacheSize);
             this.elementCache = CollectionUtils.createLRUCache(cacheSize);
             this.elementToTreeCache = CollectionUtils.createLRUCache(cacheSize);
+            this.overriddenMethodsCache = CollectionUtils.createLRUCache(cacheSize);
             this.annotationClassNames =
                     Collections.synchronizedMap(
                             CollectionUtils.createLRUCache(ANNOTATION_CACHE_SIZE));
@@ -446,6 +457,7 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
             this.fromTypeTreeCache = null;
             this.elementCache = null;
             this.elementToTreeCache = null;
+            this.overriddenMethodsCache = null;
             this.annotationClassNames = null;
         }
 
@@ -475,7 +487,12 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
             }
             boolean isNullnessChecker =
                     "NullnessAnnotatedTypeFactory".equals(this.getClass().getSimpleName());
-            wholeProgramInference = new WholeProgramInferenceScenes(!isNullnessChecker);
+            WholeProgramInferenceSession session = WholeProgramInferenceSession.current();
+            wholeProgramInference =
+                    session == null
+                            ? new WholeProgramInferenceScenes(!isNullnessChecker)
+                            : new WholeProgramInferenceScenes(
+                                    session, checker, !isNullnessChecker);
         } else {
             wholeProgramInference = null;
         }
@@ -646,6 +663,8 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
             fromMemberTreeCache.clear();
             fromTypeTreeCache.clear();
             classAndMethodTreeCache.clear();
+            // The supertypes of a class in source code are computed from its tree.
+            overriddenMethodsCache.clear();
 
             // There is no need to clear the following cache, it is limited by cache size and it
             // contents won't change between compilation units.
@@ -1076,8 +1095,11 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
         if (tree == null) {
             throw new BugInCF("AnnotatedTypeFactory.getAnnotatedType: null tree");
         }
-        if (shouldCache && classAndMethodTreeCache.containsKey(tree)) {
-            return classAndMethodTreeCache.get(tree).deepCopy();
+        if (shouldCache) {
+            AnnotatedTypeMirror cached = classAndMethodTreeCache.get(tree);
+            if (cached != null) {
+                return cached.deepCopy();
+            }
         }
 
         AnnotatedTypeMirror type;
@@ -1205,8 +1227,14 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
      * @return AnnotatedTypeMirror of the element with explicitly-written and stub file annotations
      */
     public AnnotatedTypeMirror fromElement(Element elt) {
-        if (shouldCache && elementCache.containsKey(elt)) {
-            return elementCache.get(elt).deepCopy();
+        if (wholeProgramInference != null) {
+            wholeProgramInference.recordDeclarationUse(elt, root);
+        }
+        if (shouldCache) {
+            AnnotatedTypeMirror cached = elementCache.get(elt);
+            if (cached != null) {
+                return cached.deepCopy();
+            }
         }
         if (elt.getKind() == ElementKind.PACKAGE) {
             return toAnnotatedType(elt.asType(), false);
@@ -1279,11 +1307,19 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
                     "AnnotatedTypeFactory.fromMember: not a method or variable declaration: "
                             + tree);
         }
-        if (shouldCache && fromMemberTreeCache.containsKey(tree)) {
-            return fromMemberTreeCache.get(tree).deepCopy();
+        if (shouldCache) {
+            AnnotatedTypeMirror cached = fromMemberTreeCache.get(tree);
+            if (cached != null) {
+                return cached.deepCopy();
+            }
         }
         AnnotatedTypeMirror result = TypeFromTree.fromMember(this, tree);
 
+        if (wholeProgramInference != null) {
+            Element elt = TreeUtils.elementFromTree(tree);
+            wholeProgramInference.recordDeclarationUse(elt, root);
+            wholeProgramInference.addPreviouslyInferredAnnotations(elt, result, this);
+        }
         if (checker.hasOption("mergeStubsWithSource")) {
             result = mergeStubsIntoType(result, tree);
         }
@@ -1348,8 +1384,11 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
      * @see TypeFromExpressionVisitor
      */
     private AnnotatedTypeMirror fromExpression(ExpressionTree tree) {
-        if (shouldCache && fromExpressionTreeCache.containsKey(tree)) {
-            return fromExpressionTreeCache.get(tree).deepCopy();
+        if (shouldCache) {
+            AnnotatedTypeMirror cached = fromExpressionTreeCache.get(tree);
+            if (cached != null) {
+                return cached.deepCopy();
+            }
         }
 
         AnnotatedTypeMirror result = TypeFromTree.fromExpression(this, tree);
@@ -1376,8 +1415,11 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
      * @return the (partially) annotated type of the type in the AST
      */
     /*package private*/ final AnnotatedTypeMirror fromTypeTree(Tree tree) {
-        if (shouldCache && fromTypeTreeCache.containsKey(tree)) {
-            return fromTypeTreeCache.get(tree).deepCopy();
+        if (shouldCache) {
+            AnnotatedTypeMirror cached = fromTypeTreeCache.get(tree);
+            if (cached != null) {
+                return cached.deepCopy();
+            }
         }
 
         AnnotatedTypeMirror result = TypeFromTree.fromTypeTree(this, tree);
@@ -3340,6 +3382,53 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
         return results;
     }
 
+    /**
+     * Returns the methods that a method overrides, indexed by the supertypes of its class that
+     * declare them. The result is cached; each call returns new copies of the supertypes, which
+     * the caller may side-effect.
+     *
+     * @param method the overriding method
+     * @return a map from types to methods that {@code method} overrides
+     * @see AnnotatedTypes#overriddenMethods(Elements, AnnotatedTypeFactory, ExecutableElement)
+     */
+    public Map<AnnotatedDeclaredType, ExecutableElement> getOverriddenMethods(
+            ExecutableElement method) {
+        if (shouldCache) {
+            Map<AnnotatedDeclaredType, ExecutableElement> cached =
+                    overriddenMethodsCache.get(method);
+            if (cached != null) {
+                return copyOverriddenMethods(cached);
+            }
+        }
+
+        TypeElement elem = (TypeElement) method.getEnclosingElement();
+        AnnotatedDeclaredType type = getAnnotatedType(elem);
+        Map<AnnotatedDeclaredType, ExecutableElement> overriddenMethods =
+                AnnotatedTypes.overriddenMethods(
+                        elements, method, AnnotatedTypes.getSuperTypes(type));
+        if (shouldCache && !stubTypes.isParsing()) {
+            overriddenMethodsCache.put(method, copyOverriddenMethods(overriddenMethods));
+        }
+        return overriddenMethods;
+    }
+
+    /**
+     * Returns a copy of a result of {@link #getOverriddenMethods} that contains deep copies of its
+     * supertypes.
+     *
+     * @param overriddenMethods a map from types to methods
+     * @return an unmodifiable copy of {@code overriddenMethods}
+     */
+    private static Map<AnnotatedDeclaredType, ExecutableElement> copyOverriddenMethods(
+            Map<AnnotatedDeclaredType, ExecutableElement> overriddenMethods) {
+        Map<AnnotatedDeclaredType, ExecutableElement> copy = new LinkedHashMap<>();
+        for (Map.Entry<AnnotatedDeclaredType, ExecutableElement> entry :
+                overriddenMethods.entrySet()) {
+            copy.put(entry.getKey().deepCopy(), entry.getValue());
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+
     /**
      * Adds into {@code results} the declaration annotations found in all elements that the method
      * element {@code elt} overrides.
@@ -3350,7 +3439,7 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
      */
     private void inheritOverriddenDeclAnnos(ExecutableElement elt, Set<AnnotationMirror> results) {
         Map<AnnotatedDeclaredType, ExecutableElement> overriddenMethods =
-                AnnotatedTypes.overriddenMethods(elements, this, elt);
+                getOverriddenMethods(elt);
 
         if (overriddenMethods != null) {
             for (ExecutableElement superElt : overriddenMethods.values()) {
@@ -121,9 +121,49 @@ public abstract class AnnotatedTypeMirror {
         return result;
     }
 
+    // The comparer and the visitor keep state while they visit a type, and several compilations
+    // may compare types at the same time. So each thread has its own.
+    private static final ThreadLocal<EqualityAtmComparer> EQUALITY_COMPARERS =
+            ThreadLocal.withInitial(EqualityAtmComparer::new);
+    private static final ThreadLocal<HashcodeAtmVisitor> HASHCODE_VISITORS =
+            ThreadLocal.withInitial(HashcodeAtmVisitor::new);
+
+    /**
+     * A comparer that is shared by all threads, so it must not be used by several compilations at
+     * the same time.
+     *
+     * @deprecated Use {@link #getEqualityComparer()} instead.
+     */
+    @Deprecated
     protected static final EqualityAtmComparer EQUALITY_COMPARER = new EqualityAtmComparer();
+
+    /**
+     * A visitor that is shared by all threads, so it must not be used by several compilations at
+     * the same time.
+     *
+     * @deprecated Use {@link #getHashcodeVisitor()} instead.
+     */
+    @Deprecated
     protected static final HashcodeAtmVisitor HASHCODE_VISITOR = new HashcodeAtmVisitor();
 
+    /**
+     * Returns the comparer that {@link #equals} uses on the current thread.
+     *
+     * @return the comparer that {@link #equals} uses on the current thread
+     */
+    protected static EqualityAtmComparer getEqualityComparer() {
+        return EQUALITY_COMPARERS.get();
+    }
+
+    /**
+     * Returns the visitor that {@link #hashCode} uses on the current thread.
+     *
+     * @return the visitor that {@link #hashCode} uses on the current thread
+     */
+    protected static HashcodeAtmVisitor getHashcodeVisitor() {
+        return HASHCODE_VISITORS.get();
+    }
+
     /** The factory to use for lazily creating annotated types. */
     protected final AnnotatedTypeFactory atypeFactory;
 
@@ -165,13 +205,13 @@ public abstract class AnnotatedTypeMirror {
             return false;
         }
 
-        return EQUALITY_COMPARER.visit(this, (AnnotatedTypeMirror) o, null);
+        return getEqualityComparer().visit(this, (AnnotatedTypeMirror) o, null);
     }
 
     @Pure
     @Override
     public final int hashCode() {
-        return HASHCODE_VISITOR.visit(this);
+        return getHashcodeVisitor().visit(this);
     }
 
     /**
@@ -1696,7 +1736,8 @@ public abstract class AnnotatedTypeMirror {
 
         @Override
         public AnnotatedNoType deepCopy(boolean copyAnnotations) {
-            return (AnnotatedNoType) new AnnotatedTypeCopier(copyAnnotations).visit(this);
+            // This type has no component types, so a shallow copy is a deep copy.
+            return shallowCopy(copyAnnotations);
         }
 
         @Override
@@ -1738,7 +1779,8 @@ public abstract class AnnotatedTypeMirror {
 
         @Override
         public AnnotatedNullType deepCopy(boolean copyAnnotations) {
-            return (AnnotatedNullType) new AnnotatedTypeCopier(copyAnnotations).visit(this);
+            // This type has no component types, so a shallow copy is a deep copy.
+            return shallowCopy(copyAnnotations);
         }
 
         @Override
@@ -1783,7 +1825,8 @@ public abstract class AnnotatedTypeMirror {
 
         @Override
         public AnnotatedPrimitiveType deepCopy(boolean copyAnnotations) {
-            return (AnnotatedPrimitiveType) new AnnotatedTypeCopier(copyAnnotations).visit(this);
+            // This type has no component types, so a shallow copy is a deep copy.
+            return shallowCopy(copyAnnotations);
         }
 
         @Override
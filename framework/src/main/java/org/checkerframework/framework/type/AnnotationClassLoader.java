@@ -7,16 +7,21 @@ import java.lang.annotation.ElementType;
 import java.lang.annotation.Target;
 import java.net.JarURLConnection;
 import java.net.MalformedURLException;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
@@ -95,6 +100,35 @@ public class AnnotationClassLoader {
     /** The class loader used to load annotation classes. */
     protected final URLClassLoader classLoader;
 
+    /**
+     * The annotation names found in the qual package of a checker jar, keyed by the resource URL of
+     * that package. Scanning a jar visits every one of its entries, so the result is shared by all
+     * AnnotationClassLoaders in this JVM: by the subcheckers of a compound checker, and by
+     * successive compilations that run in one JVM (as in a build daemon or the test suite).
+     */
+    private static final Map<String, JarScan> jarScanCache =
+            Collections.synchronizedMap(new HashMap<>());
+
+    /** The annotation names that were found in a jar, and the jar's timestamp at that time. */
+    private static final class JarScan {
+        /** The last-modified time of the jar file when it was scanned. */
+        final long lastModified;
+
+        /** The binary names of the annotation classes in the qual package. */
+        final Set<@BinaryName String> annotationNames;
+
+        /**
+         * Creates a JarScan.
+         *
+         * @param lastModified the last-modified time of the jar file when it was scanned
+         * @param annotationNames the binary names of the annotation classes in the qual package
+         */
+        JarScan(long lastModified, Set<@BinaryName String> annotationNames) {
+            this.lastModified = lastModified;
+            this.annotationNames = annotationNames;
+        }
+    }
+
     /**
      * The annotation classes bundled with a checker (located in its qual directory) that are deemed
      * supported by the checker (non-alias annotations). Each checker can override {@link
@@ -486,6 +520,22 @@ public class AnnotationClassLoader {
         }
     }
 
+    /**
+     * Returns the last-modified time of a jar file. The URL is decoded as a URI, because its path
+     * escapes characters, such as spaces, that may appear in a file name.
+     *
+     * @param jarFileURL the URL of a jar file
+     * @return the last-modified time of the jar file, or 0 if it is not a local file or its time
+     *     cannot be determined
+     */
+    private static long lastModified(URL jarFileURL) {
+        try {
+            return Paths.get(jarFileURL.toURI()).toFile().lastModified();
+        } catch (URISyntaxException | IllegalArgumentException | FileSystemNotFoundException e) {
+            return 0;
+        }
+    }
+
     /**
      * Loads the set of annotation classes in the qual directory of a checker shipped with the
      * Checker Framework.
@@ -509,27 +559,48 @@ public class AnnotationClassLoader {
             // create a connection to the jar file
             try {
                 connection = (JarURLConnection) resourceURL.openConnection();
-
-                // disable caching / connection sharing of the low level URLConnection to the Jar
-                // file
-                connection.setDefaultUseCaches(false);
-                connection.setUseCaches(false);
-
-                // connect to the Jar file
-                connection.connect();
             } catch (IOException e) {
                 throw new BugInCF(
                         "AnnotationClassLoader: cannot open a connection to the Jar file "
                                 + resourceURL.getFile());
             }
 
-            // open up that jar file and extract annotation class names
-            try (JarFile jarFile = connection.getJarFile()) {
-                // get class names inside the jar file within the particular package
-                annotationNames = getBundledAnnotationNamesFromJar(jarFile);
-            } catch (IOException e) {
-                throw new BugInCF(
-                        "AnnotationClassLoader: cannot open the Jar file " + resourceURL.getFile());
+            // reuse an earlier scan of the same, unmodified jar file
+            String cacheKey = resourceURL.toString();
+            long lastModified = lastModified(connection.getJarFileURL());
+            JarScan cached = jarScanCache.get(cacheKey);
+            if (cached != null && lastModified != 0 && cached.lastModified == lastModified) {
+                annotationNames = cached.annotationNames;
+            } else {
+                try {
+                    // disable caching / connection sharing of the low level URLConnection to the
+                    // Jar file
+                    connection.setDefaultUseCaches(false);
+                    connection.setUseCaches(false);
+
+                    // connect to the Jar file
+                    connection.connect();
+                } catch (IOException e) {
+                    throw new BugInCF(
+                            "AnnotationClassLoader: cannot open a connection to the Jar file "
+                                    + resourceURL.getFile());
+                }
+
+                // open up that jar file and extract annotation class names
+                try (JarFile jarFile = connection.getJarFile()) {
+                    // get class names inside the jar file within the particular package
+                    annotationNames = getBundledAnnotationNamesFromJar(jarFile);
+                } catch (IOException e) {
+                    throw new BugInCF(
+                            "AnnotationClassLoader: cannot open the Jar file "
+                                    + resourceURL.getFile());
+                }
+                if (lastModified != 0) {
+                    jarScanCache.put(
+                            cacheKey,
+                            new JarScan(
+                                    lastModified, Collections.unmodifiableSet(annotationNames)));
+                }
             }
 
         } else if (resourceURL.getProtocol().contentEquals("file")) {
@@ -62,6 +62,7 @@ import org.checkerframework.framework.flow.CFAbstractTransfer;
 import org.checkerframework.framework.flow.CFAbstractValue;
 import org.checkerframework.framework.flow.CFAnalysis;
 import org.checkerframework.framework.flow.CFCFGBuilder;
+import org.checkerframework.framework.flow.CFGCache;
 import org.checkerframework.framework.flow.CFStore;
 import org.checkerframework.framework.flow.CFTransfer;
 import org.checkerframework.framework.flow.CFValue;
@@ -87,6 +88,7 @@ import org.checkerframework.framework.type.typeannotator.ListTypeAnnotator;
 import org.checkerframework.framework.type.typeannotator.PropagationTypeAnnotator;
 import org.checkerframework.framework.type.typeannotator.TypeAnnotator;
 import org.checkerframework.framework.util.AnnotatedTypes;
+import org.checkerframework.framework.util.CheckingProfiler;
 import org.checkerframework.framework.util.FlowExpressionParseUtil;
 import org.checkerframework.framework.util.FlowExpressionParseUtil.FlowExpressionParseException;
 import org.checkerframework.framework.util.defaults.QualifierDefaults;
@@ -1048,6 +1050,10 @@ public abstract class GenericAnnotatedTypeFactory<
 
         Queue<Pair<ClassTree, Store>> queue = new ArrayDeque<>();
         List<Pair<VariableElement, Value>> fieldValues = new ArrayList<>();
+        // The paths of member classes, which are known when their enclosing class is processed.
+        // Computing them from the compilation unit instead would scan the entire compilation unit
+        // once per nested class.
+        Map<ClassTree, TreePath> memberClassPaths = new IdentityHashMap<>();
 
         // No captured store for top-level classes.
         queue.add(Pair.of(classTree, null));
@@ -1065,7 +1071,13 @@ public abstract class GenericAnnotatedTypeFactory<
             MethodTree preMT = visitorState.getMethodTree();
 
             // Don't use getPath, b/c that depends on the visitorState path.
-            visitorState.setPath(TreePath.getPath(this.root, ct));
+            TreePath classPath = memberClassPaths.remove(ct);
+            if (classPath == null) {
+                classPath = checker.getTreePathCacher().getPath(this.root, ct);
+            } else {
+                checker.getTreePathCacher().addPath(ct, classPath);
+            }
+            visitorState.setPath(classPath);
             visitorState.setClassType(getAnnotatedType(TreeUtils.elementFromDeclaration(ct)));
             visitorState.setClassTree(ct);
             visitorState.setMethodReceiver(null);
@@ -1133,6 +1145,7 @@ public abstract class GenericAnnotatedTypeFactory<
                         case ENUM:
                             // Visit inner and nested class trees.
                             // TODO: Use no store for them? What can be captured?
+                            memberClassPaths.put((ClassTree) m, new TreePath(classPath, m));
                             queue.add(Pair.of((ClassTree) m, capturedStore));
                             break;
                         case BLOCK:
@@ -1231,7 +1244,21 @@ public abstract class GenericAnnotatedTypeFactory<
             boolean updateInitializationStore,
             boolean isStatic,
             Store capturedStore) {
-        ControlFlowGraph cfg = CFCFGBuilder.build(root, ast, checker, this, processingEnv);
+        CheckingProfiler profiler = checker.getProfiler();
+        String methodLabel = profiler.isEnabled() ? CheckingProfiler.methodLabel(ast) : null;
+        profiler.start(CheckingProfiler.Phase.CFG_CONSTRUCTION, methodLabel);
+        ControlFlowGraph cfg;
+        try {
+            CFGCache cfgCache = checker.getCFGCache();
+            if (cfgCache != null) {
+                // Reuse the graph built by another checker in the same hierarchy, if any.
+                cfg = cfgCache.getCFG(root, ast, checker, this, processingEnv);
+            } else {
+                cfg = CFCFGBuilder.build(root, ast, checker, this, processingEnv);
+            }
+        } finally {
+            profiler.stop(CheckingProfiler.Phase.CFG_CONSTRUCTION);
+        }
 
         if (isInitializationCode) {
             Store initStore = !isStatic ? initializationStore : initializationStaticStore;
@@ -1246,7 +1273,12 @@ public abstract class GenericAnnotatedTypeFactory<
         } else {
             transfer.setFixedInitialStore(capturedStore);
         }
-        analysis.performAnalysis(cfg, fieldValues);
+        profiler.start(CheckingProfiler.Phase.DATAFLOW, methodLabel);
+        try {
+            analysis.performAnalysis(cfg, fieldValues);
+        } finally {
+            profiler.stop(CheckingProfiler.Phase.DATAFLOW);
+        }
         AnalysisResult<Value, Store> result = analysis.getResult();
 
         // store result
@@ -19,7 +19,11 @@ import org.checkerframework.javacutil.BugInCF;
  */
 class TypeFromTree {
 
-    private static final TypeFromTypeTreeVisitor typeTreeVisitor = new TypeFromTypeTreeVisitor();
+    // TypeFromTypeTreeVisitor remembers the bounds it is visiting, and several compilations may
+    // convert type trees at the same time. So each thread has its own. The other visitors have no
+    // state.
+    private static final ThreadLocal<TypeFromTypeTreeVisitor> typeTreeVisitor =
+            ThreadLocal.withInitial(TypeFromTypeTreeVisitor::new);
     private static final TypeFromMemberVisitor memberVisitor = new TypeFromMemberVisitor();
     private static final TypeFromClassVisitor classVisitor = new TypeFromClassVisitor();
     private static final TypeFromExpressionVisitor expressionVisitor =
@@ -66,7 +70,7 @@ class TypeFromTree {
             final AnnotatedTypeFactory typeFactory, final Tree tree) {
         abortIfTreeIsNull(typeFactory, tree);
 
-        final AnnotatedTypeMirror type = typeTreeVisitor.visit(tree, typeFactory);
+        final AnnotatedTypeMirror type = typeTreeVisitor.get().visit(tree, typeFactory);
         abortIfTypeIsExecutable(typeFactory, tree, type);
         return type;
     }
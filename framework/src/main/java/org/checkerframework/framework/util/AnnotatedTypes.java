@@ -105,10 +105,13 @@ public class AnnotatedTypes {
      */
     public static <T extends AnnotatedTypeMirror> T asSuper(
             AnnotatedTypeFactory atypeFactory, AnnotatedTypeMirror type, T superType) {
-        if (asSuperVisitor == null || !asSuperVisitor.sameAnnotatedTypeFactory(atypeFactory)) {
-            asSuperVisitor = new AsSuperVisitor(atypeFactory);
+        // Read the field once: another thread may replace the visitor with one for its own factory.
+        AsSuperVisitor visitor = asSuperVisitor;
+        if (visitor == null || !visitor.sameAnnotatedTypeFactory(atypeFactory)) {
+            visitor = new AsSuperVisitor(atypeFactory);
+            asSuperVisitor = visitor;
         }
-        return asSuperVisitor.asSuper(type, superType);
+        return visitor.asSuper(type, superType);
     }
 
     /**
@@ -674,17 +677,15 @@ public class AnnotatedTypes {
     }
 
     /**
-     * Given a method, return the methods that it overrides.
+     * Given a method, return the methods that it overrides. The result is cached by {@code
+     * atypeFactory}; see {@link AnnotatedTypeFactory#getOverriddenMethods}.
      *
      * @param method the overriding method
      * @return a map from types to methods that {@code method} overrides
      */
     public static Map<AnnotatedDeclaredType, ExecutableElement> overriddenMethods(
             Elements elements, AnnotatedTypeFactory atypeFactory, ExecutableElement method) {
-        final TypeElement elem = (TypeElement) method.getEnclosingElement();
-        final AnnotatedDeclaredType type = atypeFactory.getAnnotatedType(elem);
-        final Collection<AnnotatedDeclaredType> supertypes = getSuperTypes(type);
-        return overriddenMethods(elements, method, supertypes);
+        return atypeFactory.getOverriddenMethods(method);
     }
 
     /**
@@ -780,9 +781,15 @@ public class AnnotatedTypes {
             }
             return typeArguments;
         } else {
-            return atypeFactory
-                    .getTypeArgumentInference()
-                    .inferTypeArgs(atypeFactory, expr, elt, preType);
+            CheckingProfiler profiler = atypeFactory.getContext().getChecker().getProfiler();
+            profiler.start(CheckingProfiler.Phase.TYPE_ARGUMENT_INFERENCE, null);
+            try {
+                return atypeFactory
+                        .getTypeArgumentInference()
+                        .inferTypeArgs(atypeFactory, expr, elt, preType);
+            } finally {
+                profiler.stop(CheckingProfiler.Phase.TYPE_ARGUMENT_INFERENCE);
+            }
         }
     }
 
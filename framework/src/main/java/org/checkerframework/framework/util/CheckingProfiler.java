@@ -0,0 +1,524 @@
+package org.checkerframework.framework.util;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.MethodTree;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.dataflow.cfg.UnderlyingAST;
+import org.checkerframework.dataflow.cfg.UnderlyingAST.CFGMethod;
+import org.checkerframework.dataflow.cfg.UnderlyingAST.CFGStatement;
+import org.checkerframework.javacutil.ElementUtils;
+import org.checkerframework.javacutil.TreeUtils;
+
+/**
+ * Attributes the time and memory allocation of a type-checking run to the phases of the run, to
+ * compilation units, and to methods. A profiler that is not enabled does nothing. The profiler of a
+ * checker is enabled by the {@code -AprofileChecking} command-line option and is obtained with
+ * {@link org.checkerframework.framework.source.SourceChecker#getProfiler()}.
+ *
+ * <p>Each phase is measured from its outermost entry: a phase that re-enters itself, such as type
+ * argument inference that triggers further inference, is counted once. Different phases do nest,
+ * and their measurements are inclusive. For example, the time reported for type-checking a method
+ * includes the defaulting and type argument inference it triggers.
+ *
+ * <p>Allocation is measured per thread where the JVM supports it (as HotSpot does), and is
+ * reported as 0 otherwise.
+ */
+public final class CheckingProfiler {
+
+    /** A phase of a type-checking run. */
+    public enum Phase {
+        /** Parsing stub files and the annotated JDK. */
+        STUB_PARSING("stub parsing"),
+        /** Building control flow graphs. */
+        CFG_CONSTRUCTION("CFG construction"),
+        /** Running the dataflow analysis. */
+        DATAFLOW("dataflow"),
+        /** Visiting the code with the checker's visitor. */
+        TYPE_CHECKING("type-checking"),
+        /** Inferring the type arguments of method invocations. */
+        TYPE_ARGUMENT_INFERENCE("type argument inference"),
+        /** Applying default qualifiers. */
+        DEFAULTS("defaults");
+
+        /** A description of the phase, for the report. */
+        final String description;
+
+        /**
+         * Creates a phase.
+         *
+         * @param description a description of the phase, for the report
+         */
+        Phase(String description) {
+            this.description = description;
+        }
+    }
+
+    /** The number of phases. */
+    private static final int PHASES = Phase.values().length;
+
+    /** The phases that do not nest within one another; their sum is the cost of a method. */
+    private static final Phase[] TOP_LEVEL_PHASES = {
+        Phase.CFG_CONSTRUCTION, Phase.DATAFLOW, Phase.TYPE_CHECKING
+    };
+
+    /** The measurements of the phases for one scope: the whole run, a file, or a method. */
+    private static final class Stats {
+        /** The number of measurements of each phase. */
+        final long[] count = new long[PHASES];
+
+        /** The elapsed time of each phase, in nanoseconds. */
+        final long[] nanos = new long[PHASES];
+
+        /** The bytes allocated during each phase. */
+        final long[] bytes = new long[PHASES];
+
+        /**
+         * Adds a measurement.
+         *
+         * @param phase the phase that was measured
+         * @param elapsedNanos the elapsed time, in nanoseconds
+         * @param allocatedBytes the bytes allocated
+         */
+        void add(Phase phase, long elapsedNanos, long allocatedBytes) {
+            int i = phase.ordinal();
+            count[i]++;
+            nanos[i] += elapsedNanos;
+            bytes[i] += allocatedBytes;
+        }
+
+        /**
+         * Returns the time spent in the top-level phases.
+         *
+         * @return the time spent in the phases in {@link #TOP_LEVEL_PHASES}, in nanoseconds
+         */
+        long topLevelNanos() {
+            long result = 0;
+            for (Phase phase : TOP_LEVEL_PHASES) {
+                result += nanos[phase.ordinal()];
+            }
+            return result;
+        }
+    }
+
+    /** The name of the checker being profiled. */
+    private final String checkerName;
+
+    /** True if this profiler records measurements. */
+    private final boolean enabled;
+
+    /** The source of per-thread allocation counts, or null if the JVM does not provide them. */
+    private final com.sun.management.@Nullable ThreadMXBean allocationBean;
+
+    /** The measurements for the whole run. */
+    private final Stats total = new Stats();
+
+    /** The measurements for each compilation unit, keyed by file name. */
+    private final Map<String, Stats> compilationUnits = new LinkedHashMap<>();
+
+    /** The measurements for each method, keyed by {@link #methodLabel}. */
+    private final Map<String, Stats> methods = new LinkedHashMap<>();
+
+    /** The measurements of the current compilation unit, or null if there is none. */
+    private @Nullable Stats currentCompilationUnit = null;
+
+    /** The label of the method being type-checked, or null if none is. */
+    private @Nullable String currentMethod = null;
+
+    /** How many times {@link #enterMethod} has been called without {@link #exitMethod}. */
+    private int methodDepth = 0;
+
+    /** The time at which type-checking of {@link #currentMethod} started. */
+    private long methodStartNanos;
+
+    /** The allocation count at which type-checking of {@link #currentMethod} started. */
+    private long methodStartBytes;
+
+    /** How many times each phase has been entered and not yet exited. */
+    private final int[] depth = new int[PHASES];
+
+    /** The start time of the outermost entry of each phase. */
+    private final long[] startNanos = new long[PHASES];
+
+    /** The allocation count at the outermost entry of each phase. */
+    private final long[] startBytes = new long[PHASES];
+
+    /** The method to which the outermost entry of each phase is attributed, or null. */
+    private final @Nullable String[] startMethod = new String[PHASES];
+
+    /**
+     * Creates a profiler.
+     *
+     * @param checkerName the name of the checker being profiled
+     * @param enabled whether the profiler records measurements
+     */
+    public CheckingProfiler(String checkerName, boolean enabled) {
+        this.checkerName = checkerName;
+        this.enabled = enabled;
+        this.allocationBean = enabled ? getAllocationBean() : null;
+    }
+
+    /**
+     * Returns the thread bean that reports per-thread allocation, if the JVM provides one.
+     *
+     * @return the thread bean that reports per-thread allocation, or null
+     */
+    private static com.sun.management.@Nullable ThreadMXBean getAllocationBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported()
+                    && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of bytes allocated so far by the current thread.
+     *
+     * @return the number of bytes allocated so far by the current thread, or 0 if unknown
+     */
+    private long allocatedBytes() {
+        return allocationBean == null
+                ? 0
+                : allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Returns true if this profiler records measurements. Callers may use this to avoid computing
+     * labels that would be discarded.
+     *
+     * @return true if this profiler records measurements
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets the compilation unit to which subsequent measurements are attributed.
+     *
+     * @param fileName the file name of the compilation unit
+     */
+    public void setCompilationUnit(String fileName) {
+        if (!enabled) {
+            return;
+        }
+        currentCompilationUnit = compilationUnits.computeIfAbsent(fileName, k -> new Stats());
+    }
+
+    /**
+     * Starts measuring a phase. Every call must be matched by a call to {@link #stop(Phase)},
+     * usually in a {@code finally} block.
+     *
+     * @param phase the phase
+     * @param method the label of the method to which the phase is attributed, as returned by one
+     *     of the {@code methodLabel} methods; if null, the phase is attributed to the method being
+     *     type-checked, if any
+     */
+    public void start(Phase phase, @Nullable String method) {
+        if (!enabled) {
+            return;
+        }
+        int i = phase.ordinal();
+        if (depth[i]++ > 0) {
+            return;
+        }
+        startMethod[i] = method != null ? method : currentMethod;
+        startBytes[i] = allocatedBytes();
+        startNanos[i] = System.nanoTime();
+    }
+
+    /**
+     * Stops measuring a phase that was started by {@link #start(Phase, String)}.
+     *
+     * @param phase the phase
+     */
+    public void stop(Phase phase) {
+        if (!enabled) {
+            return;
+        }
+        int i = phase.ordinal();
+        if (--depth[i] > 0) {
+            return;
+        }
+        long elapsedNanos = System.nanoTime() - startNanos[i];
+        long allocated = allocatedBytes() - startBytes[i];
+        total.add(phase, elapsedNanos, allocated);
+        if (currentCompilationUnit != null) {
+            currentCompilationUnit.add(phase, elapsedNanos, allocated);
+        }
+        String method = startMethod[i];
+        if (method != null) {
+            methods.computeIfAbsent(method, k -> new Stats()).add(phase, elapsedNanos, allocated);
+        }
+        startMethod[i] = null;
+    }
+
+    /**
+     * Starts measuring the type-checking of a method. Until the matching call to {@link
+     * #exitMethod()}, phases that are not explicitly attributed to a method are attributed to this
+     * one. A method nested in another one, such as a method of an anonymous class, is counted as
+     * part of the outer method.
+     *
+     * @param method the label of the method, as returned by {@link #methodLabel(MethodTree)}
+     */
+    public void enterMethod(String method) {
+        if (!enabled || methodDepth++ > 0) {
+            return;
+        }
+        currentMethod = method;
+        methodStartBytes = allocatedBytes();
+        methodStartNanos = System.nanoTime();
+    }
+
+    /** Stops measuring the type-checking of the method passed to {@link #enterMethod}. */
+    public void exitMethod() {
+        if (!enabled || --methodDepth > 0) {
+            return;
+        }
+        long elapsedNanos = System.nanoTime() - methodStartNanos;
+        long allocated = allocatedBytes() - methodStartBytes;
+        if (currentMethod != null) {
+            methods.computeIfAbsent(currentMethod, k -> new Stats())
+                    .add(Phase.TYPE_CHECKING, elapsedNanos, allocated);
+        }
+        currentMethod = null;
+    }
+
+    /**
+     * Returns the label under which measurements for a method are reported: the qualified name of
+     * its class, its name, and the simple names of its parameter types, as in {@code
+     * java.util.List.add(int,E)}. Overloads and methods of different classes with the same name are
+     * thus reported separately.
+     *
+     * @param method the declaration of a method
+     * @return the label for {@code method}
+     */
+    public static String methodLabel(MethodTree method) {
+        ExecutableElement element = TreeUtils.elementFromDeclaration(method);
+        return classLabel(ElementUtils.enclosingClass(element))
+                + "."
+                + ElementUtils.getSimpleName(element);
+    }
+
+    /**
+     * Returns the qualified name of a class, for a label.
+     *
+     * @param element a class, or null if a method is not in a class
+     * @return the qualified name of {@code element}, or the empty string if it is null
+     */
+    private static String classLabel(@Nullable TypeElement element) {
+        return element == null ? "" : element.getQualifiedName().toString();
+    }
+
+    /**
+     * Returns the label under which measurements for the code of a control flow graph are
+     * reported. Field initializers and initializer blocks are reported as {@code <initializer>}
+     * of their class.
+     *
+     * @param ast the code of a control flow graph
+     * @return the label for {@code ast}, or null if it is a lambda, which is reported as part of
+     *     the enclosing class rather than of a method
+     */
+    public static @Nullable String methodLabel(UnderlyingAST ast) {
+        switch (ast.getKind()) {
+            case METHOD:
+                CFGMethod cfgMethod = (CFGMethod) ast;
+                return methodLabel(cfgMethod.getMethod());
+            case ARBITRARY_CODE:
+                ClassTree classTree = ((CFGStatement) ast).getClassTree();
+                return classLabel(TreeUtils.elementFromDeclaration(classTree)) + ".<initializer>";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns the methods with the highest cost, most costly first. The cost of a method is the
+     * time spent building its control flow graph, analyzing it, and type-checking it.
+     *
+     * @param limit the maximum number of methods to return
+     * @return the {@code limit} most costly methods
+     */
+    private List<Map.Entry<String, Stats>> slowestMethods(int limit) {
+        List<Map.Entry<String, Stats>> result = new ArrayList<>(methods.entrySet());
+        result.sort(
+                (e1, e2) ->
+                        Long.compare(e2.getValue().topLevelNanos(), e1.getValue().topLevelNanos()));
+        return result.subList(0, Math.min(limit, result.size()));
+    }
+
+    /**
+     * Formats the measurements as text for people to read.
+     *
+     * @param topMethods the number of most costly methods to list
+     * @return a report of the measurements
+     */
+    public String formatText(int topMethods) {
+        StringBuilder sb = new StringBuilder();
+        String nl = System.lineSeparator();
+        sb.append("Profile of ").append(checkerName).append(nl);
+        appendPhaseTable(sb, "  ", total, true);
+
+        sb.append("Compilation units:").append(nl);
+        for (Map.Entry<String, Stats> entry : compilationUnits.entrySet()) {
+            sb.append("  ").append(entry.getKey()).append(nl);
+            appendPhaseTable(sb, "    ", entry.getValue(), false);
+        }
+
+        List<Map.Entry<String, Stats>> slowest = slowestMethods(topMethods);
+        sb.append("Slowest ").append(slowest.size()).append(" methods:").append(nl);
+        for (Map.Entry<String, Stats> entry : slowest) {
+            sb.append("  ")
+                    .append(entry.getKey())
+                    .append(String.format(" (%s)", formatMillis(entry.getValue().topLevelNanos())))
+                    .append(nl);
+            appendPhaseTable(sb, "    ", entry.getValue(), false);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Appends a table with one line for each phase that was measured.
+     *
+     * @param sb where to append the table
+     * @param indent the indentation of each line
+     * @param stats the measurements
+     * @param includeUnmeasured whether to include phases that were never measured
+     */
+    private static void appendPhaseTable(
+            StringBuilder sb, String indent, Stats stats, boolean includeUnmeasured) {
+        for (Phase phase : Phase.values()) {
+            int i = phase.ordinal();
+            if (stats.count[i] == 0 && !includeUnmeasured) {
+                continue;
+            }
+            sb.append(
+                    String.format(
+                            "%s%-25s %8d calls %12s %12s allocated%n",
+                            indent,
+                            phase.description,
+                            stats.count[i],
+                            formatMillis(stats.nanos[i]),
+                            formatMegabytes(stats.bytes[i])));
+        }
+    }
+
+    /**
+     * Formats a duration in milliseconds.
+     *
+     * @param nanos a duration in nanoseconds
+     * @return the duration in milliseconds, with its unit
+     */
+    private static String formatMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f ms", nanos / 1e6);
+    }
+
+    /**
+     * Formats an amount of memory in megabytes.
+     *
+     * @param bytes an amount of memory in bytes
+     * @return the amount in megabytes, with its unit
+     */
+    private static String formatMegabytes(long bytes) {
+        return String.format(Locale.ROOT, "%.1f MB", bytes / 1e6);
+    }
+
+    /**
+     * Formats the measurements as a single line of JSON, for tools to read. Times are in
+     * nanoseconds and allocation in bytes.
+     *
+     * @param topMethods the number of most costly methods to list
+     * @return a report of the measurements
+     */
+    public String formatJson(int topMethods) {
+        StringJoiner units = new StringJoiner(",", "[", "]");
+        for (Map.Entry<String, Stats> entry : compilationUnits.entrySet()) {
+            units.add(
+                    "{\"file\":"
+                            + jsonString(entry.getKey())
+                            + ",\"phases\":"
+                            + phasesJson(entry.getValue())
+                            + "}");
+        }
+        StringJoiner slowest = new StringJoiner(",", "[", "]");
+        for (Map.Entry<String, Stats> entry : slowestMethods(topMethods)) {
+            slowest.add(
+                    "{\"method\":"
+                            + jsonString(entry.getKey())
+                            + ",\"nanos\":"
+                            + entry.getValue().topLevelNanos()
+                            + ",\"phases\":"
+                            + phasesJson(entry.getValue())
+                            + "}");
+        }
+        return "{\"checker\":"
+                + jsonString(checkerName)
+                + ",\"phases\":"
+                + phasesJson(total)
+                + ",\"compilationUnits\":"
+                + units
+                + ",\"slowestMethods\":"
+                + slowest
+                + "}";
+    }
+
+    /**
+     * Formats the measurements of each phase as a JSON object.
+     *
+     * @param stats the measurements
+     * @return a JSON object that maps each measured phase to its measurements
+     */
+    private static String phasesJson(Stats stats) {
+        StringJoiner result = new StringJoiner(",", "{", "}");
+        for (Phase phase : Phase.values()) {
+            int i = phase.ordinal();
+            if (stats.count[i] == 0) {
+                continue;
+            }
+            result.add(
+                    jsonString(phase.description)
+                            + ":{\"calls\":"
+                            + stats.count[i]
+                            + ",\"nanos\":"
+                            + stats.nanos[i]
+                            + ",\"bytes\":"
+                            + stats.bytes[i]
+                            + "}");
+        }
+        return result.toString();
+    }
+
+    /**
+     * Returns a JSON string literal.
+     *
+     * @param s a string
+     * @return a JSON string literal whose value is {@code s}
+     */
+    private static String jsonString(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2);
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -54,10 +54,13 @@ public class ContractsUtils {
 
     /** Returns an instance of the {@link ContractsUtils} class. */
     public static ContractsUtils getInstance(GenericAnnotatedTypeFactory<?, ?, ?, ?> factory) {
-        if (instance == null || instance.factory != factory) {
-            instance = new ContractsUtils(factory);
+        // Read the field once: another thread may replace it with an instance for its own factory.
+        ContractsUtils result = instance;
+        if (result == null || result.factory != factory) {
+            result = new ContractsUtils(factory);
+            instance = result;
         }
-        return instance;
+        return result;
     }
 
     /**
@@ -0,0 +1,161 @@
+package org.checkerframework.framework.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.processing.Processor;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.javacutil.UserError;
+
+/**
+ * The command-line arguments of a program that runs checkers through the javac API, such as {@link
+ * ParallelCheckingDriver} and {@link
+ * org.checkerframework.common.wholeprograminference.WholeProgramInferenceDriver}. The arguments
+ * have the form
+ *
+ * <pre>{@code
+ * [<option>N] -processor <checkers> [javac options] <source files>
+ * }</pre>
+ *
+ * where {@code <option>N} sets a positive number that is specific to the program.
+ */
+public final class DriverArguments {
+
+    /** The value of the program's option, or its default value if the option was not given. */
+    public final int number;
+
+    /** The fully-qualified names of the processors. */
+    public final List<String> processorNames;
+
+    /** The javac options, other than {@code -processor}. */
+    public final List<String> options;
+
+    /** The source files. */
+    public final List<String> sourceFiles;
+
+    /**
+     * Creates the arguments of a program.
+     *
+     * @param number the value of the program's option
+     * @param processorNames the fully-qualified names of the processors
+     * @param options the javac options
+     * @param sourceFiles the source files
+     */
+    private DriverArguments(
+            int number,
+            List<String> processorNames,
+            List<String> options,
+            List<String> sourceFiles) {
+        this.number = number;
+        this.processorNames = Collections.unmodifiableList(processorNames);
+        this.options = Collections.unmodifiableList(options);
+        this.sourceFiles = Collections.unmodifiableList(sourceFiles);
+    }
+
+    /**
+     * Parses the command-line arguments of a program. An argument that does not start with "-" is a
+     * source file, unless it is the value of a javac option such as {@code -sourcepath}. If the
+     * arguments are invalid, prints the usage text of the program and returns null.
+     *
+     * @param program the class of the program, which is named in the usage text
+     * @param numberOption the program's option, such as {@code "--threads="}, which is followed by
+     *     a positive integer
+     * @param defaultNumber the value to use if {@code numberOption} is not given
+     * @param args the command-line arguments
+     * @return the parsed arguments, or null if they are invalid
+     */
+    public static @Nullable DriverArguments parse(
+            Class<?> program, String numberOption, int defaultNumber, String[] args) {
+        int number = defaultNumber;
+        List<String> processorNames = new ArrayList<>();
+        List<String> options = new ArrayList<>();
+        List<String> sourceFiles = new ArrayList<>();
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fileManager =
+                compiler.getStandardFileManager(null, null, null)) {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (arg.startsWith(numberOption)) {
+                    try {
+                        number = Integer.parseInt(arg.substring(numberOption.length()));
+                    } catch (NumberFormatException e) {
+                        number = 0;
+                    }
+                } else if (arg.equals("-processor") && i + 1 < args.length) {
+                    for (String name : args[++i].split(",")) {
+                        processorNames.add(name.trim());
+                    }
+                } else if (arg.startsWith("-")) {
+                    options.add(arg);
+                    for (int j = valueCount(arg, compiler, fileManager);
+                            j > 0 && i + 1 < args.length;
+                            j--) {
+                        options.add(args[++i]);
+                    }
+                } else {
+                    sourceFiles.add(arg);
+                }
+            }
+        } catch (IOException e) {
+            throw new UserError("Problem while closing the file manager: %s", e.getMessage());
+        }
+        if (processorNames.isEmpty() || sourceFiles.isEmpty() || number < 1) {
+            System.err.printf(
+                    "Usage: java %s [%sN] -processor <checkers> [javac options] <source files>%n",
+                    program.getName(), numberOption);
+            return null;
+        }
+        return new DriverArguments(number, processorNames, options, sourceFiles);
+    }
+
+    /**
+     * Returns the number of arguments that follow a javac option and are its values.
+     *
+     * @param option a javac option
+     * @param compiler the compiler
+     * @param fileManager a file manager of {@code compiler}
+     * @return the number of values of {@code option} that are separate arguments, which is 0 if
+     *     {@code option} is not a javac option
+     */
+    private static int valueCount(
+            String option, JavaCompiler compiler, StandardJavaFileManager fileManager) {
+        if (option.indexOf('=') >= 0 || option.indexOf(':') >= 0) {
+            // The option contains its value, as in --add-exports=... or -Xbootclasspath/p:...
+            return 0;
+        }
+        int count = compiler.isSupportedOption(option);
+        if (count >= 0) {
+            return count;
+        }
+        // Options such as -classpath, -sourcepath, and -d are options of the file manager.
+        return Math.max(fileManager.isSupportedOption(option), 0);
+    }
+
+    /**
+     * Instantiates annotation processors. The processors are loaded by the class loader of this
+     * class, so that they share static state with the program that runs them, such as the
+     * thread-local state by which the program tells them which compilation units to check.
+     *
+     * @param processorNames the fully-qualified names of the processors
+     * @return new instances of the processors
+     */
+    public static List<Processor> createProcessors(List<String> processorNames) {
+        List<Processor> processors = new ArrayList<>();
+        for (String name : processorNames) {
+            try {
+                processors.add(
+                        Class.forName(name)
+                                .asSubclass(Processor.class)
+                                .getConstructor()
+                                .newInstance());
+            } catch (ReflectiveOperationException | ClassCastException e) {
+                throw new UserError("Cannot instantiate processor %s: %s", name, e);
+            }
+        }
+        return processors;
+    }
+}
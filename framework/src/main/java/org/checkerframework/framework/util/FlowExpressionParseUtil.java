@@ -38,7 +38,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.annotation.processing.ProcessingEnvironment;
@@ -74,6 +76,7 @@ import org.checkerframework.dataflow.cfg.node.ObjectCreationNode;
 import org.checkerframework.framework.source.DiagMessage;
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
 import org.checkerframework.framework.util.dependenttypes.DependentTypesError;
+import org.checkerframework.javacutil.CollectionUtils;
 import org.checkerframework.javacutil.ElementUtils;
 import org.checkerframework.javacutil.Resolver;
 import org.checkerframework.javacutil.TreeUtils;
@@ -105,6 +108,24 @@ public class FlowExpressionParseUtil {
 
     private static final int PARAMETER_REPLACEMENT_LENGTH = PARMETER_REPLACEMENT.length();
 
+    /** The number of JavaParser expressions that {@link #parsedExpressions} holds. */
+    private static final int PARSED_EXPRESSIONS_CACHE_SIZE = 500;
+
+    /**
+     * Maps a flow expression string to its JavaParser AST. The AST depends only on the string, so
+     * the cache is shared by all checkers in the JVM. The visitors of this class must not modify
+     * the ASTs, for example with {@link MethodCallExpr#removeScope}.
+     */
+    private static final Map<String, Expression> parsedExpressions =
+            Collections.synchronizedMap(
+                    CollectionUtils.createLRUCache(PARSED_EXPRESSIONS_CACHE_SIZE));
+
+    /** The number of lookups in {@link #parsedExpressions} that found an AST. */
+    private static final AtomicLong parsedExpressionsHits = new AtomicLong();
+
+    /** The number of lookups in {@link #parsedExpressions} that did not find an AST. */
+    private static final AtomicLong parsedExpressionsMisses = new AtomicLong();
+
     /**
      * Parse a string and return its representation as a {@link Receiver}, or throw an {@link
      * FlowExpressionParseException}.
@@ -122,12 +143,7 @@ public class FlowExpressionParseUtil {
             throws FlowExpressionParseException {
         context = context.copyAndSetUseLocalScope(useLocalScope);
         ProcessingEnvironment env = context.checkerContext.getProcessingEnvironment();
-        Expression expr;
-        try {
-            expr = StaticJavaParser.parseExpression(replaceParameterSyntax(expression));
-        } catch (ParseProblemException e) {
-            throw constructParserException(expression, "is an invalid expression");
-        }
+        Expression expr = parseExpression(expression);
 
         Receiver result;
         try {
@@ -151,6 +167,43 @@ public class FlowExpressionParseUtil {
         return result;
     }
 
+    /**
+     * Parses a flow expression string into a JavaParser AST, or returns the AST from a previous
+     * call with the same string.
+     *
+     * @param expression flow expression to parse
+     * @return the JavaParser AST of {@code expression}
+     * @throws FlowExpressionParseException if {@code expression} is not a Java expression
+     */
+    private static Expression parseExpression(String expression)
+            throws FlowExpressionParseException {
+        Expression expr = parsedExpressions.get(expression);
+        if (expr != null) {
+            parsedExpressionsHits.incrementAndGet();
+            return expr;
+        }
+        parsedExpressionsMisses.incrementAndGet();
+        try {
+            expr = StaticJavaParser.parseExpression(replaceParameterSyntax(expression));
+        } catch (ParseProblemException e) {
+            throw constructParserException(expression, "is an invalid expression");
+        }
+        parsedExpressions.put(expression, expr);
+        return expr;
+    }
+
+    /**
+     * Returns a description of how effective the cache of parsed flow expression strings has been,
+     * for all checkers in this JVM.
+     *
+     * @return the number of hits and misses of the cache of parsed flow expression strings
+     */
+    public static String parseCacheStatistics() {
+        return String.format(
+                "Flow expression parse cache: %d hits, %d misses",
+                parsedExpressionsHits.get(), parsedExpressionsMisses.get());
+    }
+
     /**
      * Replaces every occurrence of "#(number)" with "PARAMETER_REPLACEMENT(number)" where number is
      * an index of a parameter.
@@ -390,7 +443,6 @@ public class FlowExpressionParseUtil {
             if (expr.getScope().isPresent()) {
                 Receiver receiver = expr.getScope().get().accept(this, context);
                 context = context.copyChangeToParsingMemberOfReceiver(receiver);
-                expr = expr.removeScope();
             }
 
             String methodName = expr.getNameAsString();
@@ -9,7 +9,9 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.StringJoiner;
 import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
 import javax.lang.model.element.Name;
+import javax.lang.model.util.ElementFilter;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.dataflow.qual.Pure;
 import org.checkerframework.dataflow.qual.SideEffectFree;
@@ -176,6 +178,40 @@ public class MultiGraphQualifierHierarchy extends QualifierHierarchy {
     /** All qualifiers, including polymorphic qualifiers. */
     private final Set<AnnotationMirror> typeQualifiers;
 
+    /*
+     * Most qualifier comparisons involve qualifiers without elements. Such a qualifier is equal to
+     * every other qualifier with the same name, so each one is numbered once and the comparisons
+     * are answered from the dense tables below instead of from the annotation maps and the
+     * AnnotationPair caches. Qualifiers with elements always use the general code.
+     */
+
+    /**
+     * Maps the annotation type of each qualifier without elements to its index in {@link
+     * #indexedQualifiers} and in the dense tables.
+     */
+    private final Map<Element, Integer> qualifierIndexes;
+
+    /** The qualifiers without elements, in index order. */
+    private final AnnotationMirror[] indexedQualifiers;
+
+    /**
+     * The subtype relation on the qualifiers without elements: {@code subtypeTable[i][j]} is true
+     * iff {@code indexedQualifiers[i]} is a subtype of {@code indexedQualifiers[j]}.
+     */
+    private final boolean[][] subtypeTable;
+
+    /** Memoized results of {@link #leastUpperBound} on qualifiers without elements. */
+    private final AnnotationMirror[][] lubTable;
+
+    /** Whether the corresponding entry of {@link #lubTable} has been computed. */
+    private final boolean[][] lubKnown;
+
+    /** Memoized results of {@link #greatestLowerBound} on qualifiers without elements. */
+    private final AnnotationMirror[][] glbTable;
+
+    /** Whether the corresponding entry of {@link #glbTable} has been computed. */
+    private final boolean[][] glbKnown;
+
     public MultiGraphQualifierHierarchy(MultiGraphFactory f) {
         this(f, (Object[]) null);
     }
@@ -212,9 +248,64 @@ public class MultiGraphQualifierHierarchy extends QualifierHierarchy {
         Set<AnnotationMirror> typeQualifiers = AnnotationUtils.createAnnotationSet();
         typeQualifiers.addAll(supertypesTransitive.keySet());
         this.typeQualifiers = Collections.unmodifiableSet(typeQualifiers);
+
+        // Number the qualifiers without elements and precompute their subtype relation.
+        int size = 0;
+        Map<Element, Integer> qualifierIndexes = new HashMap<>();
+        for (AnnotationMirror qual : typeQualifiers) {
+            if (!hasElements(qual)) {
+                qualifierIndexes.put(qual.getAnnotationType().asElement(), size++);
+            }
+        }
+        this.qualifierIndexes = qualifierIndexes;
+        this.indexedQualifiers = new AnnotationMirror[size];
+        for (AnnotationMirror qual : typeQualifiers) {
+            Integer index = qualifierIndexes.get(qual.getAnnotationType().asElement());
+            if (index != null) {
+                indexedQualifiers[index] = qual;
+            }
+        }
+        this.subtypeTable = new boolean[size][size];
+        for (int sub = 0; sub < size; sub++) {
+            Set<AnnotationMirror> supers = supertypesTransitive.get(indexedQualifiers[sub]);
+            for (int sup = 0; sup < size; sup++) {
+                subtypeTable[sub][sup] =
+                        sub == sup || AnnotationUtils.containsSame(supers, indexedQualifiers[sup]);
+            }
+        }
+        this.lubTable = new AnnotationMirror[size][size];
+        this.lubKnown = new boolean[size][size];
+        this.glbTable = new AnnotationMirror[size][size];
+        this.glbKnown = new boolean[size][size];
         // System.out.println("MGH: " + this);
     }
 
+    /**
+     * Returns true if the annotation type of {@code qual} declares any elements.
+     *
+     * @param qual a qualifier
+     * @return true if {@code qual} may have element values
+     */
+    private static boolean hasElements(AnnotationMirror qual) {
+        return !ElementFilter.methodsIn(qual.getAnnotationType().asElement().getEnclosedElements())
+                .isEmpty();
+    }
+
+    /**
+     * Returns the index of {@code qual} in the dense subtype, lub, and glb tables, or -1 if {@code
+     * qual} is not a qualifier without elements in this hierarchy.
+     *
+     * @param qual a qualifier, or null
+     * @return the index of {@code qual} in the tables, or -1
+     */
+    private int qualifierIndex(@Nullable AnnotationMirror qual) {
+        if (qual == null) {
+            return -1;
+        }
+        Integer index = qualifierIndexes.get(qual.getAnnotationType().asElement());
+        return index == null ? -1 : index;
+    }
+
     @Override
     public boolean isValid() {
         return !typeQualifiers.isEmpty();
@@ -374,6 +465,55 @@ public class MultiGraphQualifierHierarchy extends QualifierHierarchy {
 
     @Override
     public AnnotationMirror leastUpperBound(AnnotationMirror a1, AnnotationMirror a2) {
+        int i1 = qualifierIndex(a1);
+        int i2 = qualifierIndex(a2);
+        if (i1 < 0 || i2 < 0) {
+            return computeLeastUpperBound(a1, a2);
+        }
+        if (!lubKnown[i1][i2]) {
+            lubTable[i1][i2] = computeLeastUpperBound(indexedQualifiers[i1], indexedQualifiers[i2]);
+            lubKnown[i1][i2] = true;
+        }
+        return sameOrArgument(lubTable[i1][i2], a1, i1, a2, i2);
+    }
+
+    /**
+     * Returns {@code a1} if {@code result} is the qualifier with index {@code i1}, {@code a2} if it
+     * is the qualifier with index {@code i2}, and {@code result} otherwise. Memoized results are
+     * computed from the hierarchy's own qualifiers; this method returns the caller's equivalent
+     * instance instead, as the uncached computation does.
+     *
+     * @param result a memoized lub or glb, or null
+     * @param a1 the first argument of the lub or glb
+     * @param i1 the index of {@code a1}
+     * @param a2 the second argument of the lub or glb
+     * @param i2 the index of {@code a2}
+     * @return {@code result} or an equivalent argument
+     */
+    private @Nullable AnnotationMirror sameOrArgument(
+            @Nullable AnnotationMirror result,
+            AnnotationMirror a1,
+            int i1,
+            AnnotationMirror a2,
+            int i2) {
+        if (result == indexedQualifiers[i1]) {
+            return a1;
+        } else if (result == indexedQualifiers[i2]) {
+            return a2;
+        } else {
+            return result;
+        }
+    }
+
+    /**
+     * Computes the least upper bound of two qualifiers without consulting the dense tables.
+     *
+     * @param a1 the first qualifier
+     * @param a2 the second qualifier
+     * @return the least upper bound of {@code a1} and {@code a2}, or null if they are in different
+     *     hierarchies
+     */
+    private AnnotationMirror computeLeastUpperBound(AnnotationMirror a1, AnnotationMirror a2) {
         if (!AnnotationUtils.areSameByName(getTopAnnotation(a1), getTopAnnotation(a2))) {
             return null;
         } else if (isSubtype(a1, a2)) {
@@ -404,6 +544,27 @@ public class MultiGraphQualifierHierarchy extends QualifierHierarchy {
 
     @Override
     public AnnotationMirror greatestLowerBound(AnnotationMirror a1, AnnotationMirror a2) {
+        int i1 = qualifierIndex(a1);
+        int i2 = qualifierIndex(a2);
+        if (i1 < 0 || i2 < 0) {
+            return computeGreatestLowerBound(a1, a2);
+        }
+        if (!glbKnown[i1][i2]) {
+            glbTable[i1][i2] =
+                    computeGreatestLowerBound(indexedQualifiers[i1], indexedQualifiers[i2]);
+            glbKnown[i1][i2] = true;
+        }
+        return sameOrArgument(glbTable[i1][i2], a1, i1, a2, i2);
+    }
+
+    /**
+     * Computes the greatest lower bound of two qualifiers without consulting the dense tables.
+     *
+     * @param a1 the first qualifier
+     * @param a2 the second qualifier
+     * @return the greatest lower bound of {@code a1} and {@code a2}
+     */
+    private AnnotationMirror computeGreatestLowerBound(AnnotationMirror a1, AnnotationMirror a2) {
         if (AnnotationUtils.areSameByName(a1, a2)) {
             return AnnotationUtils.sameElementValues(a1, a2) ? a1 : getBottomAnnotation(a1);
         }
@@ -442,6 +603,12 @@ public class MultiGraphQualifierHierarchy extends QualifierHierarchy {
      */
     @Override
     public boolean isSubtype(AnnotationMirror subAnno, AnnotationMirror superAnno) {
+        int subIndex = qualifierIndex(subAnno);
+        int superIndex = qualifierIndex(superAnno);
+        if (subIndex >= 0 && superIndex >= 0) {
+            return subtypeTable[subIndex][superIndex];
+        }
+
         checkAnnoInGraph(subAnno);
         checkAnnoInGraph(superAnno);
 
@@ -0,0 +1,313 @@
+package org.checkerframework.framework.util;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.util.JavacTask;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.javacutil.BugInCF;
+import org.checkerframework.javacutil.UserError;
+
+/**
+ * Type-checks a program with several threads, each of which checks a part of the compilation units.
+ * This can make checking faster on a machine with several cores.
+ *
+ * <p>javac cannot attribute trees or complete symbols from several threads, so each thread runs its
+ * own javac instance, which has its own checker instances and type factories. Each instance parses
+ * and attributes the whole program, so that every compilation unit sees the same declarations as in
+ * a single compilation, but its checkers only check the compilation units of its part (see {@link
+ * #shouldCheck}). The parts are chosen so that they have about the same total size of source files.
+ * Only static caches are shared between the threads.
+ *
+ * <p>The diagnostics of each thread are collected, then printed grouped by source file, in the
+ * order in which the source files were given. The diagnostics of a source file are printed in the
+ * order in which they were issued, which is the order of a single compilation. Diagnostics that do
+ * not belong to a source file are printed first, once.
+ *
+ * <p>Usage:
+ *
+ * <pre>{@code
+ * java -cp checker.jar:... org.checkerframework.framework.util.ParallelCheckingDriver \
+ *     [--threads=N] -processor <checkers> [javac options] <source files>
+ * }</pre>
+ *
+ * The processors, which must be given by their fully-qualified names, are loaded from the classpath
+ * of this program. The number of threads defaults to the number of available processors. Each
+ * thread needs about as much memory as a single compilation.
+ *
+ * @checker_framework.manual #faq-cf-is-slow The Checker Framework runs too slowly
+ */
+public final class ParallelCheckingDriver {
+
+    /** The command-line option that sets the number of threads. */
+    private static final String THREADS_OPT = "--threads=";
+
+    /**
+     * The URIs of the source files that the checkers running on the current thread should check, or
+     * null if the current thread is not run by this driver.
+     */
+    private static final ThreadLocal<@Nullable Set<String>> unitsToCheck = new ThreadLocal<>();
+
+    /** Do not instantiate. */
+    private ParallelCheckingDriver() {
+        throw new Error("Do not instantiate");
+    }
+
+    /**
+     * Type-checks a program with several threads. Exits with status 0 if no errors were reported,
+     * and 1 otherwise.
+     *
+     * @param args the number of threads (optional), followed by javac options and the source files
+     *     of the program
+     */
+    public static void main(String[] args) {
+        System.exit(execute(args));
+    }
+
+    /**
+     * Type-checks a program with several threads, like {@link #main}, but returns the exit status
+     * instead of exiting.
+     *
+     * @param args the number of threads (optional), followed by javac options and the source files
+     *     of the program
+     * @return 0 if no errors were reported, 1 if errors were reported, and 2 if the arguments are
+     *     invalid
+     */
+    public static int execute(String[] args) {
+        DriverArguments arguments =
+                DriverArguments.parse(
+                        ParallelCheckingDriver.class,
+                        THREADS_OPT,
+                        Runtime.getRuntime().availableProcessors(),
+                        args);
+        if (arguments == null) {
+            return 2;
+        }
+        boolean success =
+                run(
+                        arguments.processorNames,
+                        arguments.options,
+                        arguments.sourceFiles,
+                        arguments.number);
+        return success ? 0 : 1;
+    }
+
+    /**
+     * Type-checks a program with several threads and prints the diagnostics.
+     *
+     * @param processorNames the fully-qualified names of the checkers
+     * @param options javac options
+     * @param sourceFiles the source files of the program, which must not be empty
+     * @param threads the number of threads, which must be positive
+     * @return true if no errors were reported
+     */
+    public static boolean run(
+            List<String> processorNames,
+            List<String> options,
+            List<String> sourceFiles,
+            int threads) {
+        if (threads < 1 || sourceFiles.isEmpty()) {
+            throw new IllegalArgumentException(
+                    String.format(
+                            "Invalid arguments: %d threads, %d source files",
+                            threads, sourceFiles.size()));
+        }
+        List<String> sourceUris = sourceUris(sourceFiles);
+        List<Set<String>> parts =
+                partition(sourceFiles, sourceUris, Math.min(threads, sourceFiles.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(parts.size());
+        List<Future<List<Diagnostic<? extends JavaFileObject>>>> results = new ArrayList<>();
+        try {
+            for (Set<String> part : parts) {
+                results.add(
+                        executor.submit(() -> check(processorNames, options, sourceFiles, part)));
+            }
+            Map<String, List<Diagnostic<? extends JavaFileObject>>> diagnosticsByFile =
+                    new HashMap<>();
+            List<Diagnostic<? extends JavaFileObject>> otherDiagnostics = new ArrayList<>();
+            for (int i = 0; i < parts.size(); i++) {
+                for (Diagnostic<? extends JavaFileObject> d : results.get(i).get()) {
+                    JavaFileObject source = d.getSource();
+                    @Nullable String file = source == null ? null : source.toUri().toString();
+                    if (file == null) {
+                        // Every thread issues the same diagnostics without a source file.
+                        if (i == 0) {
+                            otherDiagnostics.add(d);
+                        }
+                    } else if (parts.get(i).contains(file)) {
+                        diagnosticsByFile.computeIfAbsent(file, f -> new ArrayList<>()).add(d);
+                    }
+                }
+            }
+            return print(otherDiagnostics, diagnosticsByFile, sourceUris);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UserError("Interrupted while checking");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new BugInCF(cause);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns true if the checkers running on the current thread should check a compilation unit.
+     * This is false if the current thread is run by this driver and the compilation unit is checked
+     * by another thread.
+     *
+     * @param root a compilation unit
+     * @return true if the checkers running on the current thread should check {@code root}
+     */
+    public static boolean shouldCheck(CompilationUnitTree root) {
+        Set<String> units = unitsToCheck.get();
+        return units == null || units.contains(root.getSourceFile().toUri().toString());
+    }
+
+    /**
+     * Divides the source files into parts of about the same total size. Each file is put into the
+     * part that is smallest so far, largest file first.
+     *
+     * @param sourceFiles the source files
+     * @param sourceUris the URIs of the source files, in the same order
+     * @param count the number of parts
+     * @return the URIs of the source files of each part
+     */
+    private static List<Set<String>> partition(
+            List<String> sourceFiles, List<String> sourceUris, int count) {
+        List<Integer> bySize = new ArrayList<>(sourceFiles.size());
+        for (int i = 0; i < sourceFiles.size(); i++) {
+            bySize.add(i);
+        }
+        Collections.sort(
+                bySize,
+                (i1, i2) ->
+                        Long.compare(
+                                new File(sourceFiles.get(i2)).length(),
+                                new File(sourceFiles.get(i1)).length()));
+        List<Set<String>> parts = new ArrayList<>(count);
+        long[] sizes = new long[count];
+        for (int i = 0; i < count; i++) {
+            parts.add(new HashSet<>());
+        }
+        for (int file : bySize) {
+            int smallest = 0;
+            for (int i = 1; i < count; i++) {
+                if (sizes[i] < sizes[smallest]) {
+                    smallest = i;
+                }
+            }
+            parts.get(smallest).add(sourceUris.get(file));
+            sizes[smallest] += new File(sourceFiles.get(file)).length();
+        }
+        return parts;
+    }
+
+    /**
+     * Returns the URIs by which javac identifies source files. They are obtained from javac's file
+     * manager, because their form differs between JDK versions.
+     *
+     * @param sourceFiles the names of source files
+     * @return the URIs of the source files, in the same order
+     */
+    private static List<String> sourceUris(List<String> sourceFiles) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        List<String> uris = new ArrayList<>(sourceFiles.size());
+        try (StandardJavaFileManager fileManager =
+                compiler.getStandardFileManager(null, null, null)) {
+            for (JavaFileObject source : fileManager.getJavaFileObjectsFromStrings(sourceFiles)) {
+                uris.add(source.toUri().toString());
+            }
+        } catch (IOException e) {
+            throw new UserError("Problem while reading source files: %s", e.getMessage());
+        }
+        return uris;
+    }
+
+    /**
+     * Compiles the whole program and checks some of its compilation units. Called on a thread of
+     * its own.
+     *
+     * @param processorNames the fully-qualified names of the checkers
+     * @param options javac options
+     * @param sourceFiles the source files of the program
+     * @param part the URIs of the source files to check
+     * @return the diagnostics issued by the compilation
+     */
+    private static List<Diagnostic<? extends JavaFileObject>> check(
+            List<String> processorNames,
+            List<String> options,
+            List<String> sourceFiles,
+            Set<String> part) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        unitsToCheck.set(part);
+        try (StandardJavaFileManager fileManager =
+                compiler.getStandardFileManager(null, null, null)) {
+            JavacTask task =
+                    (JavacTask)
+                            compiler.getTask(
+                                    null,
+                                    fileManager,
+                                    diagnostics,
+                                    options,
+                                    null,
+                                    fileManager.getJavaFileObjectsFromStrings(sourceFiles));
+            task.setProcessors(DriverArguments.createProcessors(processorNames));
+            task.analyze();
+        } catch (IOException e) {
+            throw new UserError("Problem while compiling: %s", e.getMessage());
+        } finally {
+            unitsToCheck.remove();
+        }
+        return diagnostics.getDiagnostics();
+    }
+
+    /**
+     * Prints diagnostics, grouped by source file.
+     *
+     * @param otherDiagnostics the diagnostics without a source file
+     * @param diagnosticsByFile the diagnostics of each source file, indexed by its URI
+     * @param sourceUris the URIs of the source files, in the order in which to print their
+     *     diagnostics
+     * @return true if none of the diagnostics is an error
+     */
+    private static boolean print(
+            List<Diagnostic<? extends JavaFileObject>> otherDiagnostics,
+            Map<String, List<Diagnostic<? extends JavaFileObject>>> diagnosticsByFile,
+            List<String> sourceUris) {
+        List<Diagnostic<? extends JavaFileObject>> all = new ArrayList<>(otherDiagnostics);
+        for (String uri : sourceUris) {
+            List<Diagnostic<? extends JavaFileObject>> forFile = diagnosticsByFile.remove(uri);
+            if (forFile != null) {
+                all.addAll(forFile);
+            }
+        }
+        boolean success = true;
+        for (Diagnostic<? extends JavaFileObject> d : all) {
+            System.err.println(d);
+            success &= d.getKind() != Diagnostic.Kind.ERROR;
+        }
+        return success;
+    }
+}
@@ -41,6 +41,7 @@ import org.checkerframework.framework.type.GenericAnnotatedTypeFactory;
 import org.checkerframework.framework.type.QualifierHierarchy;
 import org.checkerframework.framework.type.visitor.AnnotatedTypeScanner;
 import org.checkerframework.framework.util.CheckerMain;
+import org.checkerframework.framework.util.CheckingProfiler;
 import org.checkerframework.javacutil.AnnotationBuilder;
 import org.checkerframework.javacutil.AnnotationUtils;
 import org.checkerframework.javacutil.BugInCF;
@@ -359,7 +360,13 @@ public class QualifierDefaults {
      * @param type the type to annotate
      */
     public void annotate(Element elt, AnnotatedTypeMirror type) {
-        applyDefaultsElement(elt, type);
+        CheckingProfiler profiler = atypeFactory.getContext().getChecker().getProfiler();
+        profiler.start(CheckingProfiler.Phase.DEFAULTS, null);
+        try {
+            applyDefaultsElement(elt, type);
+        } finally {
+            profiler.stop(CheckingProfiler.Phase.DEFAULTS);
+        }
     }
 
     /**
@@ -369,7 +376,13 @@ public class QualifierDefaults {
      * @param type the type to annotate
      */
     public void annotate(Tree tree, AnnotatedTypeMirror type) {
-        applyDefaults(tree, type);
+        CheckingProfiler profiler = atypeFactory.getContext().getChecker().getProfiler();
+        profiler.start(CheckingProfiler.Phase.DEFAULTS, null);
+        try {
+            applyDefaults(tree, type);
+        } finally {
+            profiler.stop(CheckingProfiler.Phase.DEFAULTS);
+        }
     }
 
     /**
@@ -23,6 +23,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.StringJoiner;
 import javax.lang.model.element.AnnotationMirror;
@@ -32,6 +33,7 @@ import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.dataflow.analysis.FlowExpressions;
 import org.checkerframework.dataflow.analysis.FlowExpressions.Receiver;
 import org.checkerframework.framework.qual.JavaExpression;
@@ -52,6 +54,7 @@ import org.checkerframework.framework.util.FlowExpressionParseUtil.FlowExpressio
 import org.checkerframework.javacutil.AnnotationBuilder;
 import org.checkerframework.javacutil.AnnotationUtils;
 import org.checkerframework.javacutil.BugInCF;
+import org.checkerframework.javacutil.CollectionUtils;
 import org.checkerframework.javacutil.ElementUtils;
 import org.checkerframework.javacutil.SystemUtil;
 import org.checkerframework.javacutil.TreeUtils;
@@ -86,6 +89,23 @@ public class DependentTypesHelper {
     /** A map of annotation classes to the names of their elements that are Java expressions. */
     private Map<Class<? extends Annotation>, List<String>> annoToElements;
 
+    /** The number of standardized expression strings that {@link #standardizedStrings} holds. */
+    private static final int STANDARDIZED_STRINGS_CACHE_SIZE = 500;
+
+    /**
+     * Caches the results of {@link #standardizeString}. An annotated type is created, and its
+     * dependent type annotations are standardized, every time the type of a tree or element is
+     * requested, so the same expression string is standardized in the same context many times.
+     */
+    private final Map<StandardizationKey, String> standardizedStrings =
+            CollectionUtils.createLRUCache(STANDARDIZED_STRINGS_CACHE_SIZE);
+
+    /** The number of lookups in {@link #standardizedStrings} that found a result. */
+    private long standardizedStringsHits = 0;
+
+    /** The number of lookups in {@link #standardizedStrings} that did not find a result. */
+    private long standardizedStringsMisses = 0;
+
     public DependentTypesHelper(AnnotatedTypeFactory factory) {
         this.factory = factory;
 
@@ -549,6 +569,153 @@ public class DependentTypesHelper {
         }
     }
 
+    /**
+     * Returns the result of {@link #standardizeString}, which is computed only if it has not been
+     * computed for the same arguments before.
+     *
+     * @param expression a Java expression
+     * @param context the context of the expression
+     * @param localScope path to local scope to use
+     * @param useLocalScope whether {@code localScope} should be used to resolve identifiers
+     * @return the standardized expression, or an error string
+     */
+    private String cachedStandardizeString(
+            String expression,
+            FlowExpressionContext context,
+            TreePath localScope,
+            boolean useLocalScope) {
+        StandardizationKey key =
+                new StandardizationKey(expression, context, localScope, useLocalScope);
+        String result = standardizedStrings.get(key);
+        if (result != null) {
+            standardizedStringsHits++;
+            return result;
+        }
+        standardizedStringsMisses++;
+        result = standardizeString(expression, context, localScope, useLocalScope);
+        standardizedStrings.put(key, result);
+        return result;
+    }
+
+    /**
+     * Returns a description of how effective the cache of standardized expression strings has
+     * been.
+     *
+     * @return the number of hits and misses of the cache of standardized expression strings
+     */
+    public String standardizationCacheStatistics() {
+        return String.format(
+                "Dependent type standardization cache: %d hits, %d misses",
+                standardizedStringsHits, standardizedStringsMisses);
+    }
+
+    /**
+     * The arguments of a call to {@link #standardizeString}, used as a key of {@link
+     * #standardizedStrings}.
+     *
+     * <p>Two keys are equal only if standardizing their expressions is guaranteed to have the same
+     * result. {@link Receiver#equals} ignores the type of some receivers, such as {@code this},
+     * but the type determines which fields an expression can refer to, so the receivers of the
+     * contexts must also have the same type. The local scope is compared by the identity of its
+     * leaf, which determines the rest of the path.
+     */
+    private static class StandardizationKey {
+        /** The expression to standardize. */
+        private final String expression;
+
+        /** The context of the expression. */
+        private final FlowExpressionContext context;
+
+        /** The leaf of the local scope, or null if there is no local scope. */
+        private final @Nullable Tree scope;
+
+        /** Whether the local scope is used to resolve identifiers. */
+        private final boolean useLocalScope;
+
+        /** The hash code of this key. */
+        private final int hashCode;
+
+        /**
+         * Creates a key.
+         *
+         * @param expression the expression to standardize
+         * @param context the context of the expression
+         * @param localScope path to local scope to use
+         * @param useLocalScope whether {@code localScope} should be used to resolve identifiers
+         */
+        StandardizationKey(
+                String expression,
+                FlowExpressionContext context,
+                @Nullable TreePath localScope,
+                boolean useLocalScope) {
+            this.expression = expression;
+            this.context = context;
+            this.scope = localScope == null ? null : localScope.getLeaf();
+            this.useLocalScope = useLocalScope;
+            this.hashCode =
+                    Objects.hash(
+                            expression,
+                            System.identityHashCode(scope),
+                            useLocalScope,
+                            context.receiver,
+                            context.arguments);
+        }
+
+        @Override
+        public boolean equals(@Nullable Object obj) {
+            if (!(obj instanceof StandardizationKey)) {
+                return false;
+            }
+            StandardizationKey other = (StandardizationKey) obj;
+            if (hashCode != other.hashCode
+                    || scope != other.scope
+                    || useLocalScope != other.useLocalScope
+                    || !expression.equals(other.expression)
+                    || context.checkerContext != other.context.checkerContext
+                    || context.parsingMember != other.context.parsingMember
+                    || !sameReceiver(context.receiver, other.context.receiver)
+                    || !sameReceiver(context.outerReceiver, other.context.outerReceiver)) {
+                return false;
+            }
+            List<Receiver> args = context.arguments;
+            List<Receiver> otherArgs = other.context.arguments;
+            if (args == null || otherArgs == null) {
+                return args == otherArgs;
+            }
+            if (args.size() != otherArgs.size()) {
+                return false;
+            }
+            for (int i = 0; i < args.size(); i++) {
+                if (!sameReceiver(args.get(i), otherArgs.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        /**
+         * Returns true if the two receivers are equal and have the same type.
+         *
+         * @param r1 a receiver
+         * @param r2 a receiver
+         * @return true if the two receivers are equal and have the same type
+         */
+        private static boolean sameReceiver(@Nullable Receiver r1, @Nullable Receiver r2) {
+            if (r1 == r2) {
+                return true;
+            }
+            return r1 != null
+                    && r2 != null
+                    && r1.getType() == r2.getType()
+                    && r1.equals(r2);
+        }
+    }
+
     /**
      * Returns true if any qualifier in the type system is a dependent type annotation.
      *
@@ -607,7 +774,7 @@ public class DependentTypesHelper {
             List<String> standardizedStrings = new ArrayList<>();
             for (String expression : expressionStrings) {
                 standardizedStrings.add(
-                        standardizeString(expression, context, localScope, useLocalScope));
+                        cachedStandardizeString(expression, context, localScope, useLocalScope));
             }
             builder.setValue(value, standardizedStrings);
         }
@@ -116,6 +116,23 @@ public class DefaultTypeArgumentInference implements TypeArgumentInference {
             ExecutableElement methodElem,
             AnnotatedExecutableType methodType) {
 
+        SourceChecker checker = typeFactory.getContext().getChecker();
+        final Set<TypeVariable> targets = TypeArgInferenceUtil.methodTypeToTargets(methodType);
+
+        if (!isConstrained(methodType, targets)) {
+            // Neither the arguments nor the assignment context can constrain the type arguments,
+            // so there is nothing to solve.
+            if (showInferenceSteps) {
+                checker.message(
+                        Kind.NOTE,
+                        "DTAI: expression: %s%n  type arguments are unconstrained",
+                        expressionTree.toString().replace(System.lineSeparator(), " "));
+            }
+            Map<TypeVariable, AnnotatedTypeMirror> inferredArgs = new LinkedHashMap<>();
+            handleUninferredTypeVariables(typeFactory, methodType, targets, inferredArgs);
+            return inferredArgs;
+        }
+
         final List<AnnotatedTypeMirror> argTypes =
                 TypeArgInferenceUtil.getArgumentTypes(expressionTree, typeFactory);
         final TreePath pathToExpression = typeFactory.getPath(expressionTree);
@@ -123,8 +140,6 @@ public class DefaultTypeArgumentInference implements TypeArgumentInference {
         AnnotatedTypeMirror assignedTo =
                 TypeArgInferenceUtil.assignedTo(typeFactory, pathToExpression);
 
-        SourceChecker checker = typeFactory.getContext().getChecker();
-
         if (showInferenceSteps) {
             checker.message(
                     Kind.NOTE,
@@ -134,8 +149,6 @@ public class DefaultTypeArgumentInference implements TypeArgumentInference {
                     assignedTo);
         }
 
-        final Set<TypeVariable> targets = TypeArgInferenceUtil.methodTypeToTargets(methodType);
-
         if (TreeUtils.enclosingNonParen(pathToExpression).first.getKind()
                         == Tree.Kind.LAMBDA_EXPRESSION
                 || (assignedTo == null
@@ -198,6 +211,30 @@ public class DefaultTypeArgumentInference implements TypeArgumentInference {
         }
     }
 
+    /**
+     * Returns true if the type arguments of a method can be constrained by the arguments of an
+     * invocation or by its assignment context, that is, if a type variable to infer occurs in the
+     * formal parameter types or in the return type of the method.
+     *
+     * @param methodType annotated type of the method
+     * @param targets set of type variables to infer
+     * @return true if inference may infer a type argument of the method
+     */
+    private boolean isConstrained(AnnotatedExecutableType methodType, Set<TypeVariable> targets) {
+        if (targets.isEmpty()) {
+            return false;
+        }
+        if (TypeArgInferenceUtil.containsTypeParameter(methodType.getReturnType(), targets)) {
+            return true;
+        }
+        for (AnnotatedTypeMirror paramType : methodType.getParameterTypes()) {
+            if (TypeArgInferenceUtil.containsTypeParameter(paramType, targets)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * If one of the inferredArgs are NullType, then re-run inference ignoring null method
      * arguments. Then lub the result of the second inference with the NullType and put the new
@@ -0,0 +1,48 @@
+package testlib.cfgcache;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.checkerframework.common.basetype.BaseAnnotatedTypeFactory;
+import org.checkerframework.common.basetype.BaseTypeChecker;
+import org.checkerframework.dataflow.cfg.ControlFlowGraph;
+import testlib.cfgcache.qual.CFGBottom;
+import testlib.cfgcache.qual.CFGTop;
+
+public class CFGCacheAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
+
+    /** The control-flow graphs that this factory analyzed, in order. */
+    private final List<ControlFlowGraph> analyzedCFGs = new ArrayList<>();
+
+    public CFGCacheAnnotatedTypeFactory(BaseTypeChecker checker) {
+        super(checker);
+        if (this.getClass() == CFGCacheAnnotatedTypeFactory.class) {
+            this.postInit();
+        }
+    }
+
+    @Override
+    protected Set<Class<? extends Annotation>> createSupportedTypeQualifiers() {
+        return new HashSet<Class<? extends Annotation>>(
+                Arrays.asList(CFGTop.class, CFGBottom.class));
+    }
+
+    @Override
+    protected void postAnalyze(ControlFlowGraph cfg) {
+        analyzedCFGs.add(cfg);
+        super.postAnalyze(cfg);
+    }
+
+    /**
+     * Returns the control-flow graphs that this factory analyzed.
+     *
+     * @return the control-flow graphs that this factory analyzed, in order
+     */
+    public List<ControlFlowGraph> getAnalyzedCFGs() {
+        return Collections.unmodifiableList(analyzedCFGs);
+    }
+}
@@ -0,0 +1,20 @@
+package testlib.cfgcache;
+
+import java.util.LinkedHashSet;
+import org.checkerframework.common.basetype.BaseTypeChecker;
+
+/**
+ * Used to test that a checker does not reuse the control-flow graph that its subchecker built,
+ * when the two checkers see different declaration annotations. {@link TerminatesChecker}, the
+ * subchecker, considers {@link Thread#dumpStack()} to be annotated with {@code
+ * TerminatesExecution}, and this checker does not.
+ */
+public class CFGCacheChecker extends BaseTypeChecker {
+    @Override
+    protected LinkedHashSet<Class<? extends BaseTypeChecker>> getImmediateSubcheckerClasses() {
+        LinkedHashSet<Class<? extends BaseTypeChecker>> subcheckers = new LinkedHashSet<>();
+        subcheckers.addAll(super.getImmediateSubcheckerClasses());
+        subcheckers.add(TerminatesChecker.class);
+        return subcheckers;
+    }
+}
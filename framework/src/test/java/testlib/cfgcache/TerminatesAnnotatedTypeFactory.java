@@ -0,0 +1,42 @@
+package testlib.cfgcache;
+
+import java.util.Set;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import org.checkerframework.common.basetype.BaseTypeChecker;
+import org.checkerframework.dataflow.qual.TerminatesExecution;
+import org.checkerframework.javacutil.AnnotationBuilder;
+import org.checkerframework.javacutil.AnnotationUtils;
+
+/**
+ * The type factory of {@link TerminatesChecker}. It considers {@link Thread#dumpStack()} to be
+ * annotated with {@link TerminatesExecution}, as a stub file that only this checker reads would.
+ * The method is not declared in the checked code, because a checker stores the declaration
+ * annotations of the methods that it checks in their elements, where other checkers see them.
+ */
+public class TerminatesAnnotatedTypeFactory extends CFGCacheAnnotatedTypeFactory {
+
+    /** The @{@link TerminatesExecution} annotation. */
+    private final AnnotationMirror TERMINATES_EXECUTION =
+            AnnotationBuilder.fromClass(elements, TerminatesExecution.class);
+
+    public TerminatesAnnotatedTypeFactory(BaseTypeChecker checker) {
+        super(checker);
+        this.postInit();
+    }
+
+    @Override
+    public Set<AnnotationMirror> getDeclAnnotations(Element elt) {
+        Set<AnnotationMirror> annos = super.getDeclAnnotations(elt);
+        if (elt.getKind() != ElementKind.METHOD
+                || !elt.getSimpleName().contentEquals("dumpStack")
+                || !elt.getEnclosingElement().toString().equals("java.lang.Thread")) {
+            return annos;
+        }
+        Set<AnnotationMirror> result = AnnotationUtils.createAnnotationSet();
+        result.addAll(annos);
+        result.add(TERMINATES_EXECUTION);
+        return result;
+    }
+}
@@ -0,0 +1,6 @@
+package testlib.cfgcache;
+
+import org.checkerframework.common.basetype.BaseTypeChecker;
+
+/** The subchecker of {@link CFGCacheChecker}. */
+public class TerminatesChecker extends BaseTypeChecker {}
@@ -0,0 +1,9 @@
+package testlib.cfgcache.qual;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Target;
+import org.checkerframework.framework.qual.SubtypeOf;
+
+@SubtypeOf({CFGTop.class})
+@Target({ElementType.TYPE_USE, ElementType.TYPE_PARAMETER})
+public @interface CFGBottom {}
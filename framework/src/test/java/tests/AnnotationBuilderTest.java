@@ -58,6 +58,19 @@ public class AnnotationBuilderTest {
         Assert.assertEquals(1, anno.getElementValues().size());
     }
 
+    @Test
+    public void annoWithoutValuesIsCanonical() {
+        AnnotationMirror built = new AnnotationBuilder(env, Encrypted.class).build();
+        AnnotationMirror fromClass =
+                AnnotationBuilder.fromClass(env.getElementUtils(), Encrypted.class);
+        Assert.assertSame(built, fromClass);
+        AnnotationBuilder builder = new AnnotationBuilder(env, AnnoWithStringArg.class);
+        builder.setValue("value", "m");
+        AnnotationMirror withValue = builder.build();
+        AnnotationMirror withoutValue = new AnnotationBuilder(env, AnnoWithStringArg.class).build();
+        Assert.assertNotSame(withValue, withoutValue);
+    }
+
     @Test(expected = BugInCF.class)
     public void buildingTwice() {
         AnnotationBuilder builder = new AnnotationBuilder(env, Encrypted.class);
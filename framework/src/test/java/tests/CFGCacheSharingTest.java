@@ -0,0 +1,108 @@
+package tests;
+
+import com.sun.source.tree.Tree;
+import com.sun.source.util.JavacTask;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.checkerframework.common.basetype.BaseTypeChecker;
+import org.checkerframework.dataflow.cfg.ControlFlowGraph;
+import org.checkerframework.framework.flow.CFGCache;
+import org.checkerframework.framework.test.TypecheckExecutor;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import testlib.cfgcache.CFGCacheAnnotatedTypeFactory;
+import testlib.cfgcache.CFGCacheChecker;
+import testlib.cfgcache.TerminatesChecker;
+
+/**
+ * Tests that a checker reuses the control-flow graphs that its subchecker built for the same
+ * compilation unit (see {@link CFGCache}), unless the {@code -AcfgDoNotShare} option is supplied.
+ * {@link CFGCacheTest} tests that a graph is not reused when the checkers would build different
+ * graphs.
+ */
+public class CFGCacheSharingTest {
+
+    /** The directory that contains the source file of a test. */
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    /** A class whose methods have the same control-flow graph for every checker. */
+    private static final String SOURCE =
+            "class CFGShared {\n"
+                    + "    int f = 1;\n"
+                    + "    int abs(int x) { if (x > 0) { return x; } return -x; }\n"
+                    + "    void loop(int[] a) { for (int i = 0; i < a.length; i++) { a[i] = i; } }\n"
+                    + "}\n";
+
+    @Test
+    public void reusesGraphsOfSubchecker() throws IOException {
+        CFGCacheChecker checker = check();
+        Map<Tree, ControlFlowGraph> parent = analyzedCFGs(checker);
+        Map<Tree, ControlFlowGraph> sub =
+                analyzedCFGs(checker.getSubchecker(TerminatesChecker.class));
+        Assert.assertFalse(parent.isEmpty());
+        Assert.assertEquals(parent.keySet(), sub.keySet());
+        for (Map.Entry<Tree, ControlFlowGraph> entry : parent.entrySet()) {
+            Assert.assertSame(entry.getKey().toString(), sub.get(entry.getKey()), entry.getValue());
+        }
+    }
+
+    @Test
+    public void doesNotShareWithOption() throws IOException {
+        CFGCacheChecker checker = check("-AcfgDoNotShare");
+        Assert.assertNull(checker.getCFGCache());
+        Map<Tree, ControlFlowGraph> parent = analyzedCFGs(checker);
+        Map<Tree, ControlFlowGraph> sub =
+                analyzedCFGs(checker.getSubchecker(TerminatesChecker.class));
+        Assert.assertFalse(parent.isEmpty());
+        Assert.assertEquals(parent.keySet(), sub.keySet());
+        for (Map.Entry<Tree, ControlFlowGraph> entry : parent.entrySet()) {
+            Assert.assertNotSame(
+                    entry.getKey().toString(), sub.get(entry.getKey()), entry.getValue());
+        }
+    }
+
+    /**
+     * Checks {@link #SOURCE} with {@link CFGCacheChecker}, in one compilation.
+     *
+     * @param options additional options for the checker
+     * @return the checker, after it checked the source file
+     */
+    private CFGCacheChecker check(String... options) throws IOException {
+        File source = new File(folder.getRoot(), "CFGShared.java");
+        Files.write(source.toPath(), SOURCE.getBytes(StandardCharsets.UTF_8));
+        List<String> args = new ArrayList<>();
+        args.add("-proc:only");
+        args.addAll(Arrays.asList(options));
+
+        CFGCacheChecker checker = new CFGCacheChecker();
+        Assert.assertTrue(
+                TypecheckExecutor.compileInProcess(
+                        checker, null, args, Collections.singletonList(source), JavacTask::call));
+        return checker;
+    }
+
+    /**
+     * Returns the control-flow graphs that the type factory of a checker analyzed.
+     *
+     * @param checker {@link CFGCacheChecker} or its subchecker
+     * @return the analyzed control-flow graphs, indexed by the code that they represent
+     */
+    private static Map<Tree, ControlFlowGraph> analyzedCFGs(BaseTypeChecker checker) {
+        Map<Tree, ControlFlowGraph> result = new IdentityHashMap<>();
+        for (ControlFlowGraph cfg :
+                ((CFGCacheAnnotatedTypeFactory) checker.getTypeFactory()).getAnalyzedCFGs()) {
+            result.put(cfg.getUnderlyingAST().getCode(), cfg);
+        }
+        return result;
+    }
+}
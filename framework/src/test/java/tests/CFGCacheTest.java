@@ -0,0 +1,24 @@
+package tests;
+
+import java.io.File;
+import java.util.List;
+import org.checkerframework.framework.test.FrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+import testlib.cfgcache.CFGCacheChecker;
+
+/**
+ * Tests that a checker and its subcheckers share a control-flow graph only if they would build
+ * the same one.
+ */
+public class CFGCacheTest extends FrameworkPerDirectoryTest {
+
+    /** @param testFiles the files containing test code, which will be type-checked */
+    public CFGCacheTest(List<File> testFiles) {
+        super(testFiles, CFGCacheChecker.class, "cfg-cache", "-Anomsgtext");
+    }
+
+    @Parameters
+    public static String[] getTestDirs() {
+        return new String[] {"cfg-cache"};
+    }
+}
@@ -0,0 +1,92 @@
+package tests;
+
+import com.sun.source.util.JavacTask;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import org.checkerframework.common.value.ValueChecker;
+import org.checkerframework.framework.test.TypecheckExecutor;
+import org.checkerframework.framework.util.CheckingProfiler;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the report of {@link CheckingProfiler}: measurements are attributed to the compilation
+ * unit, and methods are reported under labels that tell overloads and methods of nested classes
+ * apart.
+ */
+public class CheckingProfilerTest {
+
+    /** The directory that contains the source file of a test. */
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    /** A class with overloaded methods, and a nested class with a method of the same name. */
+    private static final String OVERLOADS =
+            "package profiled;\n"
+                    + "class Overloads {\n"
+                    + "    int m(int x) { return x + 1; }\n"
+                    + "    String m(String s) { return s + 1; }\n"
+                    + "    static class Nested { void m() { int y = 2 * 3; } }\n"
+                    + "}\n";
+
+    @Test
+    public void textReport() throws IOException {
+        String report = profile().formatText(20);
+        Assert.assertTrue(report, report.startsWith("Profile of " + ValueChecker.class.getName()));
+        int units = report.indexOf("Compilation units:");
+        int slowest = report.indexOf("Slowest ");
+        Assert.assertTrue(report, units >= 0 && slowest > units);
+        Assert.assertTrue(report, report.indexOf("Overloads.java", units) < slowest);
+        Assert.assertTrue(report, report.contains("  type-checking "));
+        Assert.assertTrue(report, report.contains("  CFG construction "));
+
+        String methods = report.substring(slowest);
+        Assert.assertTrue(methods, methods.contains("  profiled.Overloads.m(int) ("));
+        Assert.assertTrue(methods, methods.contains("  profiled.Overloads.m(String) ("));
+        Assert.assertTrue(methods, methods.contains("  profiled.Overloads.Nested.m() ("));
+    }
+
+    @Test
+    public void jsonReport() throws IOException {
+        String report = profile().formatJson(20);
+        Assert.assertTrue(
+                report,
+                report.startsWith("{\"checker\":\"" + ValueChecker.class.getName() + "\""));
+        Assert.assertFalse(report, report.contains("\n"));
+        int units = report.indexOf(",\"compilationUnits\":[{\"file\":");
+        int slowest = report.indexOf(",\"slowestMethods\":[{\"method\":");
+        Assert.assertTrue(report, units >= 0 && slowest > units);
+        Assert.assertTrue(report, report.indexOf("Overloads.java\"", units) < slowest);
+        Assert.assertTrue(report, report.contains("\"type-checking\":{\"calls\":"));
+        Assert.assertTrue(report, report.contains("\"method\":\"profiled.Overloads.m(int)\""));
+        Assert.assertTrue(report, report.contains("\"method\":\"profiled.Overloads.m(String)\""));
+        Assert.assertTrue(report, report.endsWith("}]}"));
+    }
+
+    /**
+     * Runs the Value Checker with {@code -AprofileChecking} on {@link #OVERLOADS}.
+     *
+     * @return the profiler of the checker
+     */
+    private CheckingProfiler profile() throws IOException {
+        File file = new File(folder.newFolder("profiled"), "Overloads.java");
+        Files.write(file.toPath(), OVERLOADS.getBytes(StandardCharsets.UTF_8));
+
+        ValueChecker checker = new ValueChecker();
+        Assert.assertTrue(
+                TypecheckExecutor.compileInProcess(
+                        checker,
+                        null,
+                        Arrays.asList("-proc:only", "-AprofileChecking"),
+                        Collections.singletonList(file),
+                        JavacTask::call));
+        CheckingProfiler profiler = checker.getProfiler();
+        Assert.assertTrue(profiler.isEnabled());
+        return profiler;
+    }
+}
@@ -0,0 +1,21 @@
+package tests;
+
+import java.io.File;
+import java.util.List;
+import org.checkerframework.framework.test.FrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+import testlib.util.FlowTestChecker;
+
+/** Runs the tests of {@link FlowTest} when dataflow stores use copy-on-write maps. */
+public class FlowCopyOnWriteStoresTest extends FrameworkPerDirectoryTest {
+
+    /** @param testFiles the files containing test code, which will be type-checked */
+    public FlowCopyOnWriteStoresTest(List<File> testFiles) {
+        super(testFiles, FlowTestChecker.class, "flow", "-AcopyOnWriteStores", "-Anomsgtext");
+    }
+
+    @Parameters
+    public static String[] getTestDirs() {
+        return new String[] {"flow", "all-systems"};
+    }
+}
@@ -0,0 +1,294 @@
+package tests;
+
+import com.sun.source.util.JavacTask;
+import java.io.File;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.util.Elements;
+import lubglb.LubGlbChecker;
+import lubglb.quals.A;
+import lubglb.quals.B;
+import lubglb.quals.C;
+import lubglb.quals.D;
+import lubglb.quals.E;
+import lubglb.quals.F;
+import lubglb.quals.Poly;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.framework.test.TypecheckExecutor;
+import org.checkerframework.framework.type.AnnotatedTypeFactory;
+import org.checkerframework.framework.type.QualifierHierarchy;
+import org.checkerframework.framework.util.MultiGraphQualifierHierarchy;
+import org.checkerframework.framework.util.MultiGraphQualifierHierarchy.MultiGraphFactory;
+import org.checkerframework.javacutil.AnnotationBuilder;
+import org.checkerframework.javacutil.AnnotationUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import testlib.cfgcache.qual.CFGBottom;
+import testlib.cfgcache.qual.CFGTop;
+
+/**
+ * Tests that the subtype tests, least upper bounds, and greatest lower bounds of a {@link
+ * MultiGraphQualifierHierarchy}, which are answered from tables for qualifiers without elements,
+ * agree with a walk of the hierarchy's graph. Every query is made twice, so that the second one is
+ * answered from a memoized result, and with new instances of the qualifiers, so that the result is
+ * compared with arguments that are equal but not identical to the hierarchy's own qualifiers.
+ */
+public class MultiGraphQualifierHierarchyTest {
+
+    /** The directory that contains the source file of the compilation. */
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    /** A type factory, whose element utilities create the qualifiers. */
+    private AnnotatedTypeFactory atypeFactory;
+
+    /** Runs a compilation, to obtain a type factory. */
+    @Before
+    public void createTypeFactory() throws IOException {
+        File source = new File(folder.getRoot(), "Empty.java");
+        Files.write(source.toPath(), "class Empty {}\n".getBytes(StandardCharsets.UTF_8));
+        LubGlbChecker checker = new LubGlbChecker();
+        // Unlike call(), analyze() does not close the compiler, whose element utilities create the
+        // qualifiers.
+        TypecheckExecutor.compileInProcess(
+                checker,
+                null,
+                Collections.singletonList("-proc:only"),
+                Collections.singletonList(source),
+                JavacTask::analyze);
+        atypeFactory = checker.getTypeFactory();
+    }
+
+    /**
+     * Tests a hierarchy with a polymorphic qualifier, in which some qualifiers have several direct
+     * supertypes or subtypes.
+     */
+    @Test
+    public void polymorphicHierarchy() {
+        WalkedHierarchy hierarchy = buildLubGlbHierarchy(false);
+        Assert.assertEquals(1, hierarchy.getTopAnnotations().size());
+        checkAgainstWalk(hierarchy);
+    }
+
+    /** Tests a hierarchy with two tops, one of which has a polymorphic qualifier. */
+    @Test
+    public void multipleTops() {
+        WalkedHierarchy hierarchy = buildLubGlbHierarchy(true);
+        Assert.assertEquals(2, hierarchy.getTopAnnotations().size());
+        checkAgainstWalk(hierarchy);
+    }
+
+    /**
+     * Builds the hierarchy of {@link LubGlbChecker}, and optionally a second, unrelated hierarchy.
+     *
+     * @param secondTop whether to add a hierarchy with the top {@link CFGTop}
+     * @return the hierarchy
+     */
+    private WalkedHierarchy buildLubGlbHierarchy(boolean secondTop) {
+        MultiGraphFactory factory =
+                new MultiGraphFactory(atypeFactory) {
+                    @Override
+                    protected QualifierHierarchy createQualifierHierarchy() {
+                        return new WalkedHierarchy(this);
+                    }
+                };
+        factory.addQualifier(qualifier(A.class));
+        factory.addSubtype(qualifier(B.class), qualifier(A.class));
+        factory.addSubtype(qualifier(C.class), qualifier(A.class));
+        factory.addSubtype(qualifier(D.class), qualifier(B.class));
+        factory.addSubtype(qualifier(D.class), qualifier(C.class));
+        factory.addSubtype(qualifier(E.class), qualifier(C.class));
+        factory.addSubtype(qualifier(F.class), qualifier(D.class));
+        factory.addSubtype(qualifier(F.class), qualifier(E.class));
+        factory.addQualifier(qualifier(Poly.class));
+        if (secondTop) {
+            factory.addSubtype(qualifier(CFGBottom.class), qualifier(CFGTop.class));
+        }
+        return (WalkedHierarchy) factory.build();
+    }
+
+    /**
+     * Creates a new instance of a qualifier.
+     *
+     * @param annoClass the class of the qualifier
+     * @return a new instance of the qualifier
+     */
+    private AnnotationMirror qualifier(Class<? extends Annotation> annoClass) {
+        Elements elements = atypeFactory.getElementUtils();
+        return AnnotationBuilder.fromClass(elements, annoClass);
+    }
+
+    /**
+     * Checks that the subtype tests, least upper bounds, and greatest lower bounds of every pair of
+     * qualifiers of a hierarchy agree with a walk of its graph.
+     *
+     * @param hierarchy the hierarchy
+     */
+    private void checkAgainstWalk(WalkedHierarchy hierarchy) {
+        List<AnnotationMirror> quals = new ArrayList<>(hierarchy.qualifiers());
+        for (int round = 0; round < 2; round++) {
+            for (AnnotationMirror a1 : quals) {
+                for (AnnotationMirror a2 : quals) {
+                    AnnotationMirror copy1 = copy(a1);
+                    AnnotationMirror copy2 = copy(a2);
+                    String pair = a1 + ", " + a2;
+                    Assert.assertEquals(
+                            pair,
+                            hierarchy.walkIsSubtype(a1, a2),
+                            hierarchy.isSubtype(copy1, copy2));
+                    checkBound(
+                            "lub " + pair,
+                            hierarchy.walkLub(a1, a2),
+                            hierarchy.leastUpperBound(copy1, copy2),
+                            copy1,
+                            copy2);
+                    checkBound(
+                            "glb " + pair,
+                            hierarchy.walkGlb(a1, a2),
+                            hierarchy.greatestLowerBound(copy1, copy2),
+                            copy1,
+                            copy2);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks the result of a least upper bound or greatest lower bound. If the result is one of the
+     * arguments, it must be that argument instance, not the hierarchy's own equal qualifier.
+     *
+     * @param message the message of a failure
+     * @param expected the result of the graph walk
+     * @param actual the result of the hierarchy
+     * @param a1 the first argument
+     * @param a2 the second argument
+     */
+    private static void checkBound(
+            String message,
+            @Nullable AnnotationMirror expected,
+            @Nullable AnnotationMirror actual,
+            AnnotationMirror a1,
+            AnnotationMirror a2) {
+        if (expected == null || actual == null) {
+            Assert.assertEquals(message, expected, actual);
+        } else if (AnnotationUtils.areSame(expected, a1)) {
+            Assert.assertSame(message, a1, actual);
+        } else if (AnnotationUtils.areSame(expected, a2)) {
+            Assert.assertSame(message, a2, actual);
+        } else {
+            Assert.assertTrue(message + ": " + actual, AnnotationUtils.areSame(expected, actual));
+        }
+    }
+
+    /**
+     * Creates a new instance of a qualifier without elements.
+     *
+     * @param qual a qualifier without elements
+     * @return a new instance of {@code qual}
+     */
+    private AnnotationMirror copy(AnnotationMirror qual) {
+        return AnnotationBuilder.fromName(
+                atypeFactory.getElementUtils(), AnnotationUtils.annotationName(qual).toString());
+    }
+
+    /** A hierarchy that also answers queries by walking its graph of transitive supertypes. */
+    private static class WalkedHierarchy extends MultiGraphQualifierHierarchy {
+
+        /**
+         * Creates a hierarchy.
+         *
+         * @param factory the factory that contains the qualifiers and their subtype relations
+         */
+        WalkedHierarchy(MultiGraphFactory factory) {
+            super(factory);
+        }
+
+        /**
+         * Returns all qualifiers of this hierarchy, including the polymorphic qualifiers.
+         *
+         * @return all qualifiers of this hierarchy
+         */
+        List<AnnotationMirror> qualifiers() {
+            return new ArrayList<>(supertypesTransitive.keySet());
+        }
+
+        /**
+         * Returns true if {@code sub} is {@code sup} or one of its transitive subtypes.
+         *
+         * @param sub a qualifier of this hierarchy
+         * @param sup a qualifier of this hierarchy
+         * @return true if {@code sub} is a subtype of {@code sup} in the graph
+         */
+        boolean walkIsSubtype(AnnotationMirror sub, AnnotationMirror sup) {
+            return AnnotationUtils.areSame(sub, sup)
+                    || AnnotationUtils.containsSame(supertypesTransitive.get(sub), sup);
+        }
+
+        /**
+         * Returns the least common supertype of two qualifiers in the graph.
+         *
+         * @param a1 a qualifier of this hierarchy
+         * @param a2 a qualifier of this hierarchy
+         * @return the least common supertype, or null if the qualifiers have none
+         */
+        @Nullable AnnotationMirror walkLub(AnnotationMirror a1, AnnotationMirror a2) {
+            List<AnnotationMirror> bounds = new ArrayList<>();
+            for (AnnotationMirror q : qualifiers()) {
+                if (walkIsSubtype(a1, q) && walkIsSubtype(a2, q)) {
+                    bounds.add(q);
+                }
+            }
+            return extreme(bounds, true);
+        }
+
+        /**
+         * Returns the greatest common subtype of two qualifiers in the graph.
+         *
+         * @param a1 a qualifier of this hierarchy
+         * @param a2 a qualifier of this hierarchy
+         * @return the greatest common subtype, or null if the qualifiers have none
+         */
+        @Nullable AnnotationMirror walkGlb(AnnotationMirror a1, AnnotationMirror a2) {
+            List<AnnotationMirror> bounds = new ArrayList<>();
+            for (AnnotationMirror q : qualifiers()) {
+                if (walkIsSubtype(q, a1) && walkIsSubtype(q, a2)) {
+                    bounds.add(q);
+                }
+            }
+            return extreme(bounds, false);
+        }
+
+        /**
+         * Returns the bound that is a subtype, or a supertype, of all the others.
+         *
+         * @param bounds the common upper or lower bounds of two qualifiers
+         * @param least true to return the bound that is a subtype of all the others
+         * @return the least or greatest bound, or null if there is none
+         */
+        private @Nullable AnnotationMirror extreme(List<AnnotationMirror> bounds, boolean least) {
+            for (AnnotationMirror candidate : bounds) {
+                boolean extreme = true;
+                for (AnnotationMirror other : bounds) {
+                    if (least
+                            ? !walkIsSubtype(candidate, other)
+                            : !walkIsSubtype(other, candidate)) {
+                        extreme = false;
+                        break;
+                    }
+                }
+                if (extreme) {
+                    return candidate;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package tests;
+
+import com.sun.source.util.JavacTask;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+import org.checkerframework.framework.test.TypecheckExecutor;
+import org.checkerframework.framework.type.AnnotatedTypeFactory;
+import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedDeclaredType;
+import org.checkerframework.framework.util.AnnotatedTypes;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import testlib.util.TestChecker;
+
+/**
+ * Tests the cache of {@link AnnotatedTypeFactory#getOverriddenMethods}: a cached result agrees with
+ * the supertypes that {@link AnnotatedTypes#overriddenMethods(javax.lang.model.util.Elements,
+ * ExecutableElement, java.util.Collection)} finds without the cache, and side effects on a result
+ * do not change later results.
+ */
+public class OverriddenMethodsCacheTest {
+
+    /** The directory that contains the source file of the compilation. */
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    /** A method that overrides a method of its superclass and of an interface. */
+    private static final String SOURCE =
+            "interface Iface { void m(); }\n"
+                    + "class Base { public void m() {} }\n"
+                    + "class Sub extends Base implements Iface { public void m() {} }\n";
+
+    /** The type factory of the compilation. */
+    private AnnotatedTypeFactory atypeFactory;
+
+    /** The method {@code Sub.m}. */
+    private ExecutableElement method;
+
+    /** Runs a compilation, to obtain a type factory. */
+    @Before
+    public void createTypeFactory() throws IOException {
+        File source = new File(folder.getRoot(), "OverriddenMethods.java");
+        Files.write(source.toPath(), SOURCE.getBytes(StandardCharsets.UTF_8));
+        TestChecker checker = new TestChecker();
+        // Unlike call(), analyze() does not close the compiler, whose element utilities find Sub.
+        TypecheckExecutor.compileInProcess(
+                checker,
+                null,
+                Collections.singletonList("-proc:only"),
+                Collections.singletonList(source),
+                JavacTask::analyze);
+        atypeFactory = checker.getTypeFactory();
+        TypeElement sub = atypeFactory.getElementUtils().getTypeElement("Sub");
+        method = ElementFilter.methodsIn(sub.getEnclosedElements()).get(0);
+    }
+
+    @Test
+    public void agreesWithUncachedResult() {
+        TypeElement sub = (TypeElement) method.getEnclosingElement();
+        Map<AnnotatedDeclaredType, ExecutableElement> expected =
+                AnnotatedTypes.overriddenMethods(
+                        atypeFactory.getElementUtils(),
+                        method,
+                        AnnotatedTypes.getSuperTypes(atypeFactory.getAnnotatedType(sub)));
+        Assert.assertEquals(2, expected.size());
+        for (int round = 0; round < 2; round++) {
+            Map<AnnotatedDeclaredType, ExecutableElement> actual =
+                    atypeFactory.getOverriddenMethods(method);
+            Assert.assertEquals(toStrings(expected), toStrings(actual));
+        }
+    }
+
+    @Test
+    public void returnsCopies() {
+        Map<AnnotatedDeclaredType, ExecutableElement> first =
+                atypeFactory.getOverriddenMethods(method);
+        List<String> expected = toStrings(first);
+        for (AnnotatedDeclaredType supertype : first.keySet()) {
+            Assert.assertFalse(supertype.toString(), supertype.getAnnotations().isEmpty());
+            supertype.clearAnnotations();
+        }
+
+        Map<AnnotatedDeclaredType, ExecutableElement> second =
+                atypeFactory.getOverriddenMethods(method);
+        Assert.assertEquals(expected, toStrings(second));
+        for (AnnotatedDeclaredType supertype : second.keySet()) {
+            Assert.assertFalse(supertype.toString(), supertype.getAnnotations().isEmpty());
+            for (AnnotatedDeclaredType other : first.keySet()) {
+                Assert.assertNotSame(other, supertype);
+            }
+        }
+    }
+
+    /**
+     * Returns the supertypes and overridden methods of a result of {@link
+     * AnnotatedTypeFactory#getOverriddenMethods}, as strings, in iteration order.
+     *
+     * @param overriddenMethods a map from types to methods
+     * @return the string representation of each entry of {@code overriddenMethods}
+     */
+    private static List<String> toStrings(
+            Map<AnnotatedDeclaredType, ExecutableElement> overriddenMethods) {
+        List<String> result = new ArrayList<>();
+        for (Map.Entry<AnnotatedDeclaredType, ExecutableElement> entry :
+                overriddenMethods.entrySet()) {
+            result.add(
+                    entry.getKey()
+                            + " "
+                            + entry.getKey().getAnnotations()
+                            + " "
+                            + entry.getValue());
+        }
+        return result;
+    }
+}
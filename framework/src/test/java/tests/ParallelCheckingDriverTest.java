@@ -0,0 +1,153 @@
+package tests;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.checkerframework.common.value.ValueChecker;
+import org.checkerframework.framework.util.ParallelCheckingDriver;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests that {@link ParallelCheckingDriver} checks every source file exactly once, and that it
+ * parses its arguments correctly.
+ */
+public class ParallelCheckingDriverTest {
+
+    /** The directory that contains the source files of a test. */
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    /** A source file without errors. */
+    private static final String GOOD =
+            "import org.checkerframework.common.value.qual.IntVal;\n"
+                    + "class Good { void m() { @IntVal(1) int x = 1; } }\n";
+
+    /** A source file with an error. */
+    private static final String BAD =
+            "import org.checkerframework.common.value.qual.IntVal;\n"
+                    + "class Bad { void m() { @IntVal(1) int x = 2; } }\n";
+
+    @Test
+    public void reportsErrorOnce() throws IOException {
+        String output = check(1, "Good.java", GOOD, "Bad.java", BAD);
+        int first = output.indexOf("assignment.type.incompatible");
+        Assert.assertTrue(output, first >= 0);
+        Assert.assertTrue(output, output.contains("Bad.java"));
+        Assert.assertEquals(
+                output, -1, output.indexOf("assignment.type.incompatible", first + 1));
+    }
+
+    @Test
+    public void reportsErrorWithOneFile() throws IOException {
+        String output = check(1, "Bad.java", BAD);
+        Assert.assertTrue(output, output.contains("assignment.type.incompatible"));
+    }
+
+    @Test
+    public void noErrors() throws IOException {
+        String output = check(0, "Good.java", GOOD, "Good2.java", GOOD.replace("Good", "Good2"));
+        Assert.assertFalse(output, output.contains("error"));
+    }
+
+    @Test
+    public void optionValueEndingInJava() throws IOException {
+        File sourcepath = folder.newFolder("sources.java");
+        String output =
+                check(
+                        Arrays.asList("--threads=2", "-sourcepath", sourcepath.getPath()),
+                        0,
+                        "Good.java",
+                        GOOD);
+        Assert.assertFalse(output, output.contains("error"));
+    }
+
+    @Test
+    public void invalidThreads() throws IOException {
+        String output = check(Collections.singletonList("--threads=x"), 2, "Good.java", GOOD);
+        Assert.assertTrue(output, output.startsWith("Usage: "));
+        output =
+                check(
+                        Collections.singletonList("--threads=0"),
+                        2,
+                        "Good2.java",
+                        GOOD.replace("Good", "Good2"));
+        Assert.assertTrue(output, output.startsWith("Usage: "));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void runRejectsNoThreads() throws IOException {
+        File file = folder.newFile("Good.java");
+        Files.write(file.toPath(), GOOD.getBytes(StandardCharsets.UTF_8));
+        ParallelCheckingDriver.run(
+                Collections.singletonList(ValueChecker.class.getName()),
+                Collections.emptyList(),
+                Collections.singletonList(file.getPath()),
+                0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void runRejectsNoSourceFiles() {
+        ParallelCheckingDriver.run(
+                Collections.singletonList(ValueChecker.class.getName()),
+                Collections.emptyList(),
+                Collections.emptyList(),
+                2);
+    }
+
+    /**
+     * Runs the driver with two threads on the given source files, and checks its exit status.
+     *
+     * @param expectedStatus the expected exit status
+     * @param namesAndContents alternating file names and file contents
+     * @return what the driver printed
+     */
+    private String check(int expectedStatus, String... namesAndContents) throws IOException {
+        return check(Collections.singletonList("--threads=2"), expectedStatus, namesAndContents);
+    }
+
+    /**
+     * Runs the driver on the given source files, and checks its exit status.
+     *
+     * @param driverOptions options of the driver and of javac, which precede the others
+     * @param expectedStatus the expected exit status
+     * @param namesAndContents alternating file names and file contents
+     * @return what the driver printed
+     */
+    private String check(List<String> driverOptions, int expectedStatus, String... namesAndContents)
+            throws IOException {
+        List<String> args = new ArrayList<>(driverOptions);
+        args.add("-processor");
+        args.add(ValueChecker.class.getName());
+        args.add("-classpath");
+        args.add(System.getProperty("java.class.path"));
+        args.add("-proc:only");
+        args.add("-Anomsgtext");
+        for (int j = 0; j < namesAndContents.length; j += 2) {
+            File file = folder.newFile(namesAndContents[j]);
+            Files.write(file.toPath(), namesAndContents[j + 1].getBytes(StandardCharsets.UTF_8));
+            args.add(file.getPath());
+        }
+
+        PrintStream err = System.err;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        int status;
+        try {
+            System.setErr(new PrintStream(output, true, "UTF-8"));
+            status = ParallelCheckingDriver.execute(args.toArray(new String[0]));
+        } finally {
+            System.setErr(err);
+        }
+        String printed = new String(output.toByteArray(), StandardCharsets.UTF_8);
+        Assert.assertEquals(printed, expectedStatus, status);
+        return printed;
+    }
+}
@@ -0,0 +1,100 @@
+package tests;
+
+import com.sun.source.util.JavacTask;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaFileObject;
+import org.checkerframework.framework.test.TypecheckExecutor;
+import org.checkerframework.framework.util.dependenttypes.DependentTypesHelper;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import testlib.flowexpression.FlowExpressionChecker;
+
+/**
+ * Tests the cache of standardized expressions of {@link DependentTypesHelper}: standardizing the
+ * expressions of a declaration again is a cache hit, and an expression is standardized anew in the
+ * context of each class, because the class determines which fields the expression can refer to.
+ */
+public class StandardizationCacheTest {
+
+    /** The directory that contains the source file of a test. */
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Two classes with annotations that refer to {@code f}, which is a field of the first class
+     * only.
+     */
+    private static final String SOURCE =
+            "import testlib.flowexpression.qual.FlowExp;\n"
+                    + "class HasField {\n"
+                    + "    Object f;\n"
+                    + "    @FlowExp(\"f\") Object a = null;\n"
+                    + "    @FlowExp(\"f\") Object b = null;\n"
+                    + "}\n"
+                    + "class NoField {\n"
+                    + "    @FlowExp(\"f\") Object c = null;\n"
+                    + "}\n";
+
+    /** The line of {@link #SOURCE} that declares the field of {@code NoField}. */
+    private static final long NO_FIELD_LINE = 8;
+
+    @Test
+    public void standardizesPerClass() throws IOException {
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        FlowExpressionChecker checker = check(diagnostics);
+
+        List<Diagnostic<? extends JavaFileObject>> errors = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                errors.add(diagnostic);
+            }
+        }
+        Assert.assertEquals(errors.toString(), 1, errors.size());
+        Assert.assertEquals(errors.toString(), NO_FIELD_LINE, errors.get(0).getLineNumber());
+        Assert.assertTrue(
+                errors.toString(),
+                errors.get(0).getMessage(null).contains("expression.unparsable.type.invalid"));
+
+        String statistics =
+                checker.getTypeFactory().getDependentTypesHelper().standardizationCacheStatistics();
+        Matcher matcher = Pattern.compile("(\\d+) hits, (\\d+) misses").matcher(statistics);
+        Assert.assertTrue(statistics, matcher.find());
+        // The annotations of each declaration are standardized more than once.
+        Assert.assertTrue(statistics, Integer.parseInt(matcher.group(1)) > 0);
+        // Each of the three declarations is standardized anew at least once.
+        Assert.assertTrue(statistics, Integer.parseInt(matcher.group(2)) >= 3);
+    }
+
+    /**
+     * Checks {@link #SOURCE} with {@link FlowExpressionChecker}.
+     *
+     * @param diagnostics collects the diagnostics of the compilation
+     * @return the checker, after it checked the source file
+     */
+    private FlowExpressionChecker check(DiagnosticCollector<JavaFileObject> diagnostics)
+            throws IOException {
+        File source = new File(folder.getRoot(), "StandardizationCache.java");
+        Files.write(source.toPath(), SOURCE.getBytes(StandardCharsets.UTF_8));
+
+        FlowExpressionChecker checker = new FlowExpressionChecker();
+        TypecheckExecutor.compileInProcess(
+                checker,
+                diagnostics,
+                Arrays.asList("-proc:only", "-Anomsgtext"),
+                Collections.singletonList(source),
+                JavacTask::call);
+        return checker;
+    }
+}
@@ -0,0 +1,390 @@
+package tests;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.checkerframework.common.wholeprograminference.WholeProgramInferenceDriver;
+import org.checkerframework.common.wholeprograminference.WholeProgramInferenceScenesStorage;
+import org.checkerframework.common.wholeprograminference.WholeProgramInferenceSession;
+import org.checkerframework.framework.test.TypecheckExecutor;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import testlib.wholeprograminference.WholeProgramInferenceTestChecker;
+
+/**
+ * Tests {@link WholeProgramInferenceDriver} and {@link WholeProgramInferenceSession}: the inferred
+ * annotations propagate through a chain of methods, one method per iteration, and are written once
+ * at the end. Skipping the compilation units that are not affected by a change does not change the
+ * result.
+ */
+public class WholeProgramInferenceDriverTest {
+
+    /** The directory that contains the source files of a test. */
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    /** The name of the class whose annotations are inferred. */
+    private static final String CLASS_NAME = "WholeProgramInferenceDriverChain";
+
+    /**
+     * A class in which each method returns the result of the previous one. Inferring the return
+     * type of {@code c} takes three iterations, and a fourth one finds no change.
+     */
+    private static final String CHAIN =
+            "import testlib.wholeprograminference.qual.Sibling1;\n"
+                    + "class "
+                    + CLASS_NAME
+                    + " {\n"
+                    + "    static int a() { return (@Sibling1 int) 0; }\n"
+                    + "    static int b() { return a(); }\n"
+                    + "    static int c() { return b(); }\n"
+                    + "}\n";
+
+    /** The directory of the source files of {@link #skipsUnaffectedUnits}. */
+    private static final File DRIVER_TESTS = new File("tests/whole-program-inference/driver");
+
+    /** The .jaif file of {@link #CLASS_NAME}. */
+    private final File jaif =
+            new File(WholeProgramInferenceScenesStorage.JAIF_FILES_PATH, CLASS_NAME + ".jaif");
+
+    @Before
+    @After
+    public void deleteJaifs() {
+        jaif.delete();
+        for (String className : driverTestClasses()) {
+            jaifOf(className).delete();
+            stubOf(className).delete();
+        }
+    }
+
+    @Test
+    public void converges() throws IOException {
+        Assert.assertEquals(0, WholeProgramInferenceDriver.execute(args(null)));
+        String output = readJaif();
+        Assert.assertTrue(output, returnAnnotations(output, "a()I").contains("Sibling1"));
+        Assert.assertTrue(output, returnAnnotations(output, "b()I").contains("Sibling1"));
+        Assert.assertTrue(output, returnAnnotations(output, "c()I").contains("Sibling1"));
+    }
+
+    @Test
+    public void stopsAfterMaxIterations() throws IOException {
+        Assert.assertEquals(1, WholeProgramInferenceDriver.execute(args("--max-iterations=2")));
+        // The annotations inferred by the last iteration are written anyway.
+        String output = readJaif();
+        Assert.assertTrue(output, returnAnnotations(output, "b()I").contains("Sibling1"));
+        Assert.assertFalse(output, returnAnnotations(output, "c()I").contains("Sibling1"));
+    }
+
+    @Test
+    public void rejectsInvalidMaxIterations() throws IOException {
+        Assert.assertEquals(2, WholeProgramInferenceDriver.execute(args("--max-iterations=x")));
+        Assert.assertEquals(2, WholeProgramInferenceDriver.execute(args("--max-iterations=0")));
+        Assert.assertFalse(jaif.exists());
+    }
+
+    @Test
+    public void writesOnlyAtTheEnd() throws IOException {
+        WholeProgramInferenceSession session = new WholeProgramInferenceSession();
+        TypecheckExecutor.compileInProcess(
+                new WholeProgramInferenceTestChecker(),
+                null,
+                Arrays.asList("-Ainfer=jaifs", "-Awarns"),
+                Collections.singletonList(writeChain()),
+                task -> {
+                    session.analyze(task);
+                    return null;
+                });
+        Assert.assertNull(WholeProgramInferenceSession.current());
+        Assert.assertFalse(jaif.exists());
+
+        session.startNextIteration();
+        session.writeResults();
+        String output = readJaif();
+        Assert.assertTrue(output, returnAnnotations(output, "a()I").contains("Sibling1"));
+        // The annotations of the Value Checker, a subchecker, are not overwritten.
+        Assert.assertTrue(output, returnAnnotations(output, "a()I").contains("IntVal"));
+    }
+
+    @Test
+    public void skipsUnaffectedUnits() throws IOException {
+        List<String> sourceFiles = new ArrayList<>();
+        for (String className : driverTestClasses()) {
+            sourceFiles.add(new File(DRIVER_TESTS, className + ".java").getPath());
+        }
+        String statistics = runDriver(sourceFiles, "-Ainfer=jaifs");
+        Map<String, Map<String, String>> separate = readDriverTestJaifs();
+        Assert.assertTrue(statistics, classesSkipped(statistics) > 0);
+        Assert.assertTrue(
+                separate.toString(), separate.get("WpiChainC").get("c()I").contains("Sibling1"));
+
+        deleteJaifs();
+        statistics =
+                runDriver(
+                        Collections.singletonList(combineDriverTests().getPath()), "-Ainfer=jaifs");
+        Assert.assertEquals(statistics, 0, classesSkipped(statistics));
+        Assert.assertEquals(readDriverTestJaifs(), separate);
+    }
+
+    @Test
+    public void writesStubsOfSkippedUnits() throws IOException {
+        List<String> sourceFiles = new ArrayList<>();
+        for (String className : driverTestClasses()) {
+            sourceFiles.add(new File(DRIVER_TESTS, className + ".java").getPath());
+        }
+        String statistics = runDriver(sourceFiles, "-Ainfer=stubs");
+        Assert.assertTrue(statistics, classesSkipped(statistics) > 0);
+        // The last compilation skipped some classes, so the elements of their declarations come
+        // from an earlier compilation.
+        for (String className : driverTestClasses()) {
+            Assert.assertTrue(className, stubOf(className).exists());
+        }
+        String stub =
+                new String(
+                        Files.readAllBytes(stubOf("WpiChainC").toPath()), StandardCharsets.UTF_8);
+        Assert.assertTrue(stub, stub.contains("Sibling1"));
+    }
+
+    /**
+     * Runs the driver on the given source files, and checks that the inferred annotations
+     * converged.
+     *
+     * @param sourceFiles the source files
+     * @param inferOption the -Ainfer option that selects the output format
+     * @return what the driver printed
+     */
+    private String runDriver(List<String> sourceFiles, String inferOption)
+            throws UnsupportedEncodingException {
+        List<String> args = new ArrayList<>();
+        args.add("-processor");
+        args.add(WholeProgramInferenceTestChecker.class.getName());
+        args.add("-classpath");
+        args.add(System.getProperty("java.class.path"));
+        args.add(inferOption);
+        args.addAll(sourceFiles);
+
+        PrintStream err = System.err;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        int status;
+        try {
+            System.setErr(new PrintStream(output, true, "UTF-8"));
+            status = WholeProgramInferenceDriver.execute(args.toArray(new String[0]));
+        } finally {
+            System.setErr(err);
+        }
+        String printed = new String(output.toByteArray(), StandardCharsets.UTF_8);
+        Assert.assertEquals(printed, 0, status);
+        return printed;
+    }
+
+    /**
+     * Returns the number of classes that the driver skipped.
+     *
+     * @param printed what the driver printed
+     * @return the number of classes skipped, according to the statistics that the driver printed
+     */
+    private static int classesSkipped(String printed) {
+        Matcher matcher = Pattern.compile("(\\d+) skipped").matcher(printed);
+        Assert.assertTrue(printed, matcher.find());
+        return Integer.parseInt(matcher.group(1));
+    }
+
+    /**
+     * Returns the names of the classes in {@link #DRIVER_TESTS}, one per file.
+     *
+     * @return the names of the classes in {@link #DRIVER_TESTS}, sorted
+     */
+    private static List<String> driverTestClasses() {
+        List<String> classNames = new ArrayList<>();
+        String[] fileNames = DRIVER_TESTS.list();
+        if (fileNames != null) {
+            for (String fileName : fileNames) {
+                if (fileName.endsWith(".java")) {
+                    classNames.add(fileName.substring(0, fileName.length() - ".java".length()));
+                }
+            }
+        }
+        Collections.sort(classNames);
+        return classNames;
+    }
+
+    /**
+     * Writes all the classes in {@link #DRIVER_TESTS} to a single source file.
+     *
+     * @return the source file
+     */
+    private File combineDriverTests() throws IOException {
+        Set<String> imports = new LinkedHashSet<>();
+        List<String> body = new ArrayList<>();
+        for (String className : driverTestClasses()) {
+            for (String line :
+                    Files.readAllLines(
+                            new File(DRIVER_TESTS, className + ".java").toPath(),
+                            StandardCharsets.UTF_8)) {
+                if (line.startsWith("import ")) {
+                    imports.add(line);
+                } else {
+                    body.add(line);
+                }
+            }
+        }
+        List<String> lines = new ArrayList<>(imports);
+        lines.addAll(body);
+        File file = new File(folder.getRoot(), "WpiCombined.java");
+        Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    /**
+     * Reads the .jaif files of the classes in {@link #DRIVER_TESTS}.
+     *
+     * @return the annotations on the return types of the methods of each class, as returned by
+     *     {@link #returnAnnotations(String)}, indexed by class name
+     */
+    private static Map<String, Map<String, String>> readDriverTestJaifs() throws IOException {
+        Map<String, Map<String, String>> result = new TreeMap<>();
+        for (String className : driverTestClasses()) {
+            File file = jaifOf(className);
+            Assert.assertTrue(file.getPath(), file.exists());
+            result.put(
+                    className,
+                    returnAnnotations(
+                            new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8)));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the .jaif file of a class.
+     *
+     * @param className the name of a class in the unnamed package
+     * @return the .jaif file of the class
+     */
+    private static File jaifOf(String className) {
+        return new File(WholeProgramInferenceScenesStorage.JAIF_FILES_PATH, className + ".jaif");
+    }
+
+    /**
+     * Returns the stub file that the driver writes for a class.
+     *
+     * @param className the name of a class in the unnamed package
+     * @return the stub file of the class
+     */
+    private static File stubOf(String className) {
+        return new File(
+                WholeProgramInferenceScenesStorage.JAIF_FILES_PATH,
+                className
+                        + "-"
+                        + WholeProgramInferenceTestChecker.class.getCanonicalName()
+                        + ".astub");
+    }
+
+    /**
+     * Returns the arguments of the driver for the chain test.
+     *
+     * @param option an extra option for the driver, or null
+     * @return the arguments of the driver
+     */
+    private String[] args(String option) throws IOException {
+        String[] args = {
+            "-processor",
+            WholeProgramInferenceTestChecker.class.getName(),
+            "-classpath",
+            System.getProperty("java.class.path"),
+            "-Ainfer=jaifs",
+            writeChain().getPath()
+        };
+        if (option == null) {
+            return args;
+        }
+        String[] result = new String[args.length + 1];
+        result[0] = option;
+        System.arraycopy(args, 0, result, 1, args.length);
+        return result;
+    }
+
+    /**
+     * Writes {@link #CHAIN} to a source file.
+     *
+     * @return the source file
+     */
+    private File writeChain() throws IOException {
+        File file = new File(folder.getRoot(), CLASS_NAME + ".java");
+        Files.write(file.toPath(), CHAIN.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    /**
+     * Reads the .jaif file of {@link #CLASS_NAME}.
+     *
+     * @return the contents of the .jaif file
+     */
+    private String readJaif() throws IOException {
+        Assert.assertTrue(jaif.getPath(), jaif.exists());
+        return new String(Files.readAllBytes(jaif.toPath()), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the annotations on the return types of all methods in a .jaif file.
+     *
+     * @param jaif the contents of a .jaif file
+     * @return the annotations on the return type of each method, sorted, indexed by the name and
+     *     JVM descriptor of the method
+     */
+    static Map<String, String> returnAnnotations(String jaif) {
+        Map<String, String> result = new TreeMap<>();
+        String method = null;
+        for (String line : jaif.split("\\R")) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("method ")) {
+                method = trimmed.substring("method ".length()).replaceAll(":$", "").trim();
+            } else if (method != null && trimmed.startsWith("return:")) {
+                List<String> annotations =
+                        new ArrayList<>(
+                                Arrays.asList(
+                                        trimmed.substring("return:".length()).trim().split(" ")));
+                Collections.sort(annotations);
+                result.put(method, String.join(" ", annotations));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the line of a .jaif file that holds the annotations on the return type of a method.
+     *
+     * @param jaif the contents of a .jaif file
+     * @param method the name and JVM descriptor of a method
+     * @return the line with the return type of {@code method}, or the empty string if there is no
+     *     such line
+     */
+    static String returnAnnotations(String jaif, String method) {
+        List<String> lines = Arrays.asList(jaif.split("\\R"));
+        boolean inMethod = false;
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("method ")) {
+                inMethod = trimmed.startsWith("method " + method);
+            } else if (inMethod && trimmed.startsWith("return:")) {
+                return trimmed;
+            }
+        }
+        return "";
+    }
+}
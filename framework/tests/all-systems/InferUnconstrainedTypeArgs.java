@@ -0,0 +1,21 @@
+import java.util.List;
+
+// Invocations of generic methods whose type arguments occur neither in the formal parameter types
+// nor in the return type, so that neither the arguments nor the assignment context constrain them.
+class InferUnconstrainedTypeArgs {
+    <T> void noUse() {}
+
+    <T extends Comparable<T>> int boundOnly(List<?> list) {
+        return list.size();
+    }
+
+    static <K, V extends List<K>> void nested(Object o) {}
+
+    void use(List<String> list) {
+        noUse();
+        this.<String>noUse();
+        int size = boundOnly(list);
+        nested(list);
+        InferUnconstrainedTypeArgs.nested(boundOnly(list));
+    }
+}
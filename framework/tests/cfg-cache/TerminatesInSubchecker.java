@@ -0,0 +1,18 @@
+import testlib.cfgcache.qual.CFGBottom;
+
+// The Terminates Checker, which runs first, builds the control-flow graph of test() without an
+// edge from Thread.dumpStack() to the end of the if statement, and reports no error. The CFG Cache
+// Checker must build its own graph, because it does not consider Thread.dumpStack() to terminate
+// execution.
+class TerminatesInSubchecker {
+    void test(@CFGBottom Object bottom, Object top, boolean b) {
+        Object x = top;
+        if (b) {
+            x = bottom;
+        } else {
+            Thread.dumpStack();
+        }
+        // :: error: (assignment.type.incompatible)
+        @CFGBottom Object y = x;
+    }
+}
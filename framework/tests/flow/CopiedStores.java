@@ -0,0 +1,59 @@
+import testlib.util.*;
+
+// Each branch of a conditional and each loop iteration starts from a copy of a store. A
+// refinement made in one copy must not be visible in the other copies.
+class CopiedStores {
+
+    String field;
+
+    void oneBranch(boolean b, @Odd String p) {
+        String local = "";
+        if (b) {
+            local = p;
+            field = p;
+            @Odd String ok = local;
+            @Odd String ok2 = field;
+        } else {
+            // :: error: (assignment.type.incompatible)
+            @Odd String bad = local;
+            // :: error: (assignment.type.incompatible)
+            @Odd String bad2 = field;
+        }
+        // :: error: (assignment.type.incompatible)
+        @Odd String bad3 = local;
+    }
+
+    void bothBranches(boolean b, @Odd String p) {
+        String local = "";
+        if (b) {
+            local = p;
+        } else {
+            local = p;
+        }
+        @Odd String ok = local;
+    }
+
+    void invalidatedInOneBranch(boolean b, @Odd String p) {
+        field = p;
+        if (b) {
+            unknown();
+            // :: error: (assignment.type.incompatible)
+            @Odd String bad = field;
+        } else {
+            @Odd String ok = field;
+        }
+        // :: error: (assignment.type.incompatible)
+        @Odd String bad2 = field;
+    }
+
+    void loop(@Odd String p) {
+        String local = p;
+        while (local != null) {
+            // :: error: (assignment.type.incompatible)
+            @Odd String bad = local;
+            local = "";
+        }
+    }
+
+    void unknown() {}
+}
@@ -0,0 +1,7 @@
+import testlib.wholeprograminference.qual.Sibling1;
+
+class WpiChainA {
+    static int a() {
+        return (@Sibling1 int) 0;
+    }
+}
@@ -0,0 +1,5 @@
+class WpiChainB {
+    static int b() {
+        return WpiChainA.a();
+    }
+}
@@ -0,0 +1,7 @@
+// The return type of c() is inferred in the third iteration, after WpiChainC was skipped in the
+// second one.
+class WpiChainC {
+    static int c() {
+        return WpiChainB.b();
+    }
+}
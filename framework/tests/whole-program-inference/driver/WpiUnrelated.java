@@ -0,0 +1,7 @@
+import testlib.wholeprograminference.qual.Sibling2;
+
+class WpiUnrelated {
+    static int d() {
+        return (@Sibling2 int) 0;
+    }
+}
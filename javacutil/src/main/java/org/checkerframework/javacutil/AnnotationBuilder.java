@@ -1,15 +1,18 @@
 package org.checkerframework.javacutil;
 
 import java.lang.annotation.Annotation;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.WeakHashMap;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.AnnotationValue;
@@ -25,7 +28,6 @@ import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.PrimitiveType;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
-import javax.lang.model.util.ElementFilter;
 import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
 import org.checkerframework.checker.interning.qual.Interned;
@@ -87,7 +89,7 @@ public class AnnotationBuilder {
     public AnnotationBuilder(ProcessingEnvironment env, CharSequence name) {
         this.elements = env.getElementUtils();
         this.types = env.getTypeUtils();
-        this.annotationElt = elements.getTypeElement(name);
+        this.annotationElt = getAnnotationTypeElement(elements, name);
         if (annotationElt == null) {
             throw new UserError("Could not find annotation: " + name + ". Is it on the classpath?");
         }
@@ -160,7 +162,7 @@ public class AnnotationBuilder {
      *     be loaded
      */
     public static @Nullable AnnotationMirror fromName(Elements elements, CharSequence name) {
-        final TypeElement annoElt = elements.getTypeElement(name);
+        final TypeElement annoElt = getAnnotationTypeElement(elements, name);
         if (annoElt == null) {
             return null;
         }
@@ -172,8 +174,81 @@ public class AnnotationBuilder {
         if (annoType == null) {
             return null;
         }
-        AnnotationMirror result =
-                new CheckerFrameworkAnnotationMirror(annoType, Collections.emptyMap());
+        return canonicalWithoutValues(annoElt, annoType);
+    }
+
+    /**
+     * The annotation types that have been looked up by name, for each element utilities object
+     * (that is, for each compilation). Looking up a type element by name can be slow, because
+     * javac may search several modules and class path entries for it.
+     *
+     * <p>The keys are weak, so that the entries of a finished compilation can be collected. The
+     * type elements are weakly referenced, so that they do not keep the compilation alive; javac
+     * refers to them until the compilation finishes. The map is synchronized because several
+     * compilations may run in one JVM.
+     */
+    private static final Map<Elements, Map<String, WeakReference<TypeElement>>>
+            annotationTypeElements = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Returns the type element with the given fully-qualified name, like {@link
+     * Elements#getTypeElement}, reusing the result of an earlier lookup.
+     *
+     * @param elements the element utilities to use
+     * @param name the fully-qualified name of an annotation type
+     * @return the type element with the given name, or null if it could not be found
+     */
+    private static @Nullable TypeElement getAnnotationTypeElement(
+            Elements elements, CharSequence name) {
+        String key = name.toString();
+        Map<String, WeakReference<TypeElement>> byName;
+        synchronized (annotationTypeElements) {
+            byName = annotationTypeElements.computeIfAbsent(elements, e -> new HashMap<>());
+        }
+        WeakReference<TypeElement> ref;
+        synchronized (byName) {
+            ref = byName.get(key);
+        }
+        TypeElement result = ref == null ? null : ref.get();
+        if (result == null) {
+            result = elements.getTypeElement(key);
+            if (result != null) {
+                synchronized (byName) {
+                    byName.put(key, new WeakReference<>(result));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Canonical instances of annotations without element values, indexed by annotation type. Such
+     * an annotation is immutable and is equal (by {@link AnnotationUtils#areSame}) to every other
+     * annotation of the same type without element values, so a single instance can be shared.
+     * Sharing lets comparisons such as {@link AnnotationUtils#compareAnnotationMirrors} succeed on
+     * the identity test, and makes {@code equals} agree with {@code areSame} for these annotations.
+     *
+     * <p>Both keys and values are weak, so that the entries of a finished compilation can be
+     * collected. The map is synchronized because several compilations may run in one JVM.
+     */
+    private static final Map<TypeElement, WeakReference<AnnotationMirror>> canonicalWithoutValues =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Returns the canonical annotation of the given type that has no element values.
+     *
+     * @param annoElt the annotation type element
+     * @param annoType the annotation type
+     * @return the canonical annotation of type {@code annoType} with no element values
+     */
+    private static AnnotationMirror canonicalWithoutValues(
+            TypeElement annoElt, DeclaredType annoType) {
+        WeakReference<AnnotationMirror> ref = canonicalWithoutValues.get(annoElt);
+        AnnotationMirror result = ref == null ? null : ref.get();
+        if (result == null) {
+            result = new CheckerFrameworkAnnotationMirror(annoType, Collections.emptyMap());
+            canonicalWithoutValues.put(annoElt, new WeakReference<>(result));
+        }
         return result;
     }
 
@@ -189,6 +264,9 @@ public class AnnotationBuilder {
     public AnnotationMirror build() {
         assertNotBuilt();
         wasBuilt = true;
+        if (elementValues.isEmpty()) {
+            return canonicalWithoutValues(annotationElt, annotationType);
+        }
         return new CheckerFrameworkAnnotationMirror(annotationType, elementValues);
     }
 
@@ -490,10 +568,9 @@ public class AnnotationBuilder {
     }
 
     public ExecutableElement findElement(CharSequence key) {
-        for (ExecutableElement elt : ElementFilter.methodsIn(annotationElt.getEnclosedElements())) {
-            if (elt.getSimpleName().contentEquals(key)) {
-                return elt;
-            }
+        ExecutableElement elt = AnnotationUtils.findAnnotationElement(annotationElt, key);
+        if (elt != null) {
+            return elt;
         }
         throw new BugInCF("Couldn't find " + key + " element in " + annotationElt);
     }
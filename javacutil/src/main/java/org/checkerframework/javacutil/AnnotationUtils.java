@@ -10,6 +10,7 @@ import java.lang.annotation.Annotation;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Inherited;
 import java.lang.annotation.Target;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -24,6 +25,7 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.WeakHashMap;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.AnnotationValue;
 import javax.lang.model.element.ElementKind;
@@ -322,6 +324,9 @@ public class AnnotationUtils {
      * @return an ordering over AnnotationMirrors based on their name and values
      */
     public static int compareAnnotationMirrors(AnnotationMirror a1, AnnotationMirror a2) {
+        if (a1 == a2) {
+            return 0;
+        }
         if (!AnnotationUtils.areSameByName(a1, a2)) {
             return annotationName(a1).compareTo(annotationName(a2));
         }
@@ -329,6 +334,10 @@ public class AnnotationUtils {
         // The annotations have the same name, but different values, so compare values.
         Map<? extends ExecutableElement, ? extends AnnotationValue> vals1 = a1.getElementValues();
         Map<? extends ExecutableElement, ? extends AnnotationValue> vals2 = a2.getElementValues();
+        if (vals1.isEmpty() && vals2.isEmpty()) {
+            // Every element has its default value in both annotations.
+            return 0;
+        }
         Set<ExecutableElement> sortedElements =
                 new TreeSet<>(Comparator.comparing(ElementUtils::getSimpleName));
         sortedElements.addAll(
@@ -557,6 +566,73 @@ public class AnnotationUtils {
         return valMap;
     }
 
+    /**
+     * The elements (fields) of each annotation type, indexed by their names. Looking up an element
+     * here avoids listing the members of the annotation type each time that an element value is
+     * read or set.
+     *
+     * <p>The keys are weak, so that the entries of a finished compilation can be collected. The
+     * elements are weakly referenced because each element refers to the annotation type that
+     * declares it; the annotation type refers to its elements, so they are not collected while its
+     * entry is in use. The map is synchronized because several compilations may run in one JVM.
+     */
+    private static final Map<TypeElement, Map<String, WeakReference<ExecutableElement>>>
+            annotationElements = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Returns the element (field) of an annotation type that has the given name.
+     *
+     * @param annoElt an annotation type
+     * @param elementName the name of an element of {@code annoElt}
+     * @return the element of {@code annoElt} named {@code elementName}, or null if there is none
+     */
+    public static @Nullable ExecutableElement findAnnotationElement(
+            TypeElement annoElt, CharSequence elementName) {
+        String name = elementName.toString();
+        Map<String, WeakReference<ExecutableElement>> byName = annotationElements.get(annoElt);
+        WeakReference<ExecutableElement> ref = byName == null ? null : byName.get(name);
+        ExecutableElement result = ref == null ? null : ref.get();
+        if (result == null && (byName == null || ref != null)) {
+            byName = new HashMap<>();
+            for (ExecutableElement meth : ElementFilter.methodsIn(annoElt.getEnclosedElements())) {
+                byName.put(meth.getSimpleName().toString(), new WeakReference<>(meth));
+                if (meth.getSimpleName().contentEquals(name)) {
+                    result = meth;
+                }
+            }
+            annotationElements.put(annoElt, byName);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the value of the element with the given name of an annotation. Unlike {@link
+     * #getElementValuesWithDefaults}, this does not build a map of all the values.
+     *
+     * @param anno the annotation whose element to access
+     * @param elementName the name of the element to access
+     * @param useDefaults whether to return the default value if the element is not set explicitly
+     * @return the value of the element with the given name, or null if there is none
+     */
+    private static @Nullable AnnotationValue findElementValue(
+            AnnotationMirror anno, CharSequence elementName, boolean useDefaults) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+                anno.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(elementName)) {
+                return entry.getValue();
+            }
+        }
+        if (useDefaults) {
+            ExecutableElement meth =
+                    findAnnotationElement(
+                            (TypeElement) anno.getAnnotationType().asElement(), elementName);
+            if (meth != null) {
+                return meth.getDefaultValue();
+            }
+        }
+        return null;
+    }
+
     /**
      * Returns true if the two annotations have the same elements (fields). The arguments {@code
      * am1} and {@code am2} must be the same type of annotation.
@@ -572,6 +648,10 @@ public class AnnotationUtils {
 
         Map<? extends ExecutableElement, ? extends AnnotationValue> vals1 = am1.getElementValues();
         Map<? extends ExecutableElement, ? extends AnnotationValue> vals2 = am2.getElementValues();
+        if (vals1.isEmpty() && vals2.isEmpty()) {
+            // Every element has its default value in both annotations.
+            return true;
+        }
         for (ExecutableElement meth :
                 ElementFilter.methodsIn(
                         am1.getAnnotationType().asElement().getEnclosedElements())) {
@@ -642,18 +722,16 @@ public class AnnotationUtils {
             CharSequence elementName,
             Class<T> expectedType,
             boolean useDefaults) {
+        AnnotationValue val = findElementValue(anno, elementName, useDefaults);
+        if (val != null) {
+            return expectedType.cast(val.getValue());
+        }
         Map<? extends ExecutableElement, ? extends AnnotationValue> valmap;
         if (useDefaults) {
             valmap = getElementValuesWithDefaults(anno);
         } else {
             valmap = anno.getElementValues();
         }
-        for (ExecutableElement elem : valmap.keySet()) {
-            if (elem.getSimpleName().contentEquals(elementName)) {
-                AnnotationValue val = valmap.get(elem);
-                return expectedType.cast(val.getValue());
-            }
-        }
         throw new NoSuchElementException(
                 String.format(
                         "No element with name \'%s\' in annotation %s; useDefaults=%s, valmap.keySet()=%s",
@@ -689,13 +767,8 @@ public class AnnotationUtils {
             CharSequence elementName,
             Class<T> expectedType,
             boolean useDefaults) {
-        // This implementation permits getElementValue a more detailed error message than if
-        // getElementValue called getElementValueOrNull and threw an error if the result was null.
-        try {
-            return getElementValue(anno, elementName, expectedType, useDefaults);
-        } catch (NoSuchElementException e) {
-            return null;
-        }
+        AnnotationValue val = findElementValue(anno, elementName, useDefaults);
+        return val == null ? null : expectedType.cast(val.getValue());
     }
 
     /**